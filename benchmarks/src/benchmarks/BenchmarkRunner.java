@@ -0,0 +1,37 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks of the ray tracer with the GC profiler, so every benchmark reports
+ * its time (ns/op) and its allocation rate (gc.alloc.rate.norm - bytes per operation).
+ * The results are also written as JSON to jmh-result.json for tracking regressions.
+ * <p>
+ * Usage: {@code BenchmarkRunner [regex]} - the optional regular expression selects the
+ * benchmarks to run (all of them by default), e.g. {@code IntersectionBenchmark.sphere}.
+ * </p>
+ *
+ * @author Hadar Nagar & Elinoy Damari
+ */
+public class BenchmarkRunner {
+    /**
+     * Runs the benchmarks
+     *
+     * @param args optional regular expression of the benchmarks to run
+     * @throws RunnerException if the benchmarks failed to run
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : ".*Benchmark.*")
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("jmh-result.json")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,99 @@
+package geometries;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import primitives.Point;
+import primitives.Ray;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the batches of homogeneous primitives (see {@link PrimitiveBatch}) - the closest
+ * intersection with a hierarchy of many small spheres (particles) and with a group of spheres without
+ * a hierarchy, by the vectorized kernel and by the scalar fallback (each in a JVM of its own, since the
+ * kernel is chosen once). The results are reported per ray.
+ *
+ * @author Hadar Nagar & Elinoy Damari
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class BatchBenchmark {
+    /** Seed of the generated spheres and rays */
+    private static final long SEED = 42;
+    /** Amount of the rays of each invocation */
+    private static final int RAYS = 1024;
+    /** Amount of the spheres of the hierarchy */
+    private static final int PARTICLES = 10_000;
+    /** Amount of the spheres of the group */
+    private static final int GROUP = 16;
+
+    private Geometries particles;
+    private Geometries group;
+    private final Ray[] rays = new Ray[RAYS];
+
+    /**
+     * Generates the spheres and the rays - from the area around the origin towards the spheres
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(SEED);
+        particles = new Geometries();
+        for (int i = 0; i < PARTICLES; ++i)
+            particles.add(new Sphere(0.05 + 0.1 * random.nextDouble(), new Point(
+                    20 * random.nextDouble() - 10, 20 * random.nextDouble() - 10, -10 - 10 * random.nextDouble())));
+        particles.buildBVH();
+        group = new Geometries();
+        for (int i = 0; i < GROUP; ++i)
+            group.add(new Sphere(0.5 + random.nextDouble(), new Point(
+                    8 * random.nextDouble() - 4, 8 * random.nextDouble() - 4, -10 - 5 * random.nextDouble())));
+        for (int i = 0; i < RAYS; ++i) {
+            Point head = new Point(random.nextDouble() - 0.5, random.nextDouble() - 0.5, 0);
+            Point target = new Point(20 * random.nextDouble() - 10, 20 * random.nextDouble() - 10, -15);
+            rays[i] = new Ray(head, target.subtract(head));
+        }
+    }
+
+    /**
+     * Intersects the rays with geometries
+     *
+     * @param geometries the geometries
+     * @param blackhole  consumes the results
+     */
+    private void intersect(Geometries geometries, Blackhole blackhole) {
+        HitRecord hit = HitRecord.local();
+        for (Ray ray : rays)
+            blackhole.consume(geometries.findClosestIntersection(hit.reset(ray, Double.POSITIVE_INFINITY)));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-Draytracer.simd=true"})
+    public void particlesVector(Blackhole blackhole) {
+        intersect(particles, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    @Fork(1)
+    public void particlesScalar(Blackhole blackhole) {
+        intersect(particles, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-Draytracer.simd=true"})
+    public void groupVector(Blackhole blackhole) {
+        intersect(group, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    @Fork(1)
+    public void groupScalar(Blackhole blackhole) {
+        intersect(group, blackhole);
+    }
+}
@@ -0,0 +1,79 @@
+package geometries;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the intersection kernels of the basic geometries.<br/>
+ * Each invocation intersects a fixed distribution of rays (generated by a fixed seed) with the
+ * geometry - about half of the rays hit it, so both the hit and the miss paths are measured.
+ * The results are reported per ray.
+ *
+ * @author Hadar Nagar & Elinoy Damari
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IntersectionBenchmark {
+    /** Seed of the generated rays */
+    private static final long SEED = 42;
+    /** Amount of the rays of each invocation */
+    private static final int RAYS = 1024;
+
+    private final Sphere sphere = new Sphere(1d, new Point(0, 0, -3));
+    private final Plane plane = new Plane(new Point(0, 0, -3), new Vector(0.1, 0.2, 1));
+    private final Triangle triangle = new Triangle(new Point(-1.5, -1, -3), new Point(1.5, -1, -3), new Point(0, 1.5, -3));
+    private final Polygon polygon = new Polygon(new Point(-1, -1, -3), new Point(1, -1, -3),
+            new Point(1.2, 1, -3), new Point(-1.2, 1, -3));
+    private final Ray[] rays = new Ray[RAYS];
+
+    /**
+     * Generates the rays - from the area around the origin towards the area of the geometries
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(SEED);
+        for (int i = 0; i < RAYS; ++i) {
+            Point head = new Point(random.nextDouble() - 0.5, random.nextDouble() - 0.5, 0);
+            Point target = new Point(4 * random.nextDouble() - 2, 4 * random.nextDouble() - 2, -3);
+            rays[i] = new Ray(head, target.subtract(head));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public void sphere(Blackhole blackhole) {
+        for (Ray ray : rays)
+            blackhole.consume(sphere.findGeoIntersectionsHelper(ray, Double.POSITIVE_INFINITY));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public void plane(Blackhole blackhole) {
+        for (Ray ray : rays)
+            blackhole.consume(plane.findGeoIntersectionsHelper(ray, Double.POSITIVE_INFINITY));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public void triangle(Blackhole blackhole) {
+        for (Ray ray : rays)
+            blackhole.consume(triangle.findGeoIntersectionsHelper(ray, Double.POSITIVE_INFINITY));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public void polygon(Blackhole blackhole) {
+        for (Ray ray : rays)
+            blackhole.consume(polygon.findGeoIntersectionsHelper(ray, Double.POSITIVE_INFINITY));
+    }
+}
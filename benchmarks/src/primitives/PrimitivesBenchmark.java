@@ -0,0 +1,118 @@
+package primitives;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the arithmetic of the primitives - the innermost operations of the ray tracing.
+ * The operands are generated by a fixed seed and kept in fields, so the JIT can't fold them.
+ *
+ * @author Hadar Nagar & Elinoy Damari
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrimitivesBenchmark {
+    /** Seed of the generated operands */
+    private static final long SEED = 42;
+
+    private Point point1;
+    private Point point2;
+    private Vector vector1;
+    private Vector vector2;
+    private Double3 double1;
+    private Double3 double2;
+    private double scalar;
+    private double tiny;
+
+    /**
+     * Generates the operands
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(SEED);
+        point1 = new Point(random.nextDouble(), random.nextDouble(), random.nextDouble());
+        point2 = new Point(random.nextDouble() + 1, random.nextDouble(), random.nextDouble());
+        vector1 = new Vector(random.nextDouble() + 1, random.nextDouble(), random.nextDouble());
+        vector2 = new Vector(random.nextDouble(), random.nextDouble() + 1, random.nextDouble());
+        double1 = new Double3(random.nextDouble(), random.nextDouble(), random.nextDouble());
+        double2 = new Double3(random.nextDouble(), random.nextDouble(), random.nextDouble());
+        scalar = random.nextDouble() + 0.5;
+        tiny = random.nextDouble() * 1e-12;
+    }
+
+    @Benchmark
+    public Vector vectorAdd() {
+        return vector1.add(vector2);
+    }
+
+    @Benchmark
+    public Vector vectorScale() {
+        return vector1.scale(scalar);
+    }
+
+    @Benchmark
+    public double vectorDotProduct() {
+        return vector1.dotProduct(vector2);
+    }
+
+    @Benchmark
+    public Vector vectorCrossProduct() {
+        return vector1.crossProduct(vector2);
+    }
+
+    @Benchmark
+    public double vectorLength() {
+        return vector1.length();
+    }
+
+    @Benchmark
+    public Vector vectorNormalize() {
+        return vector1.normalize();
+    }
+
+    @Benchmark
+    public Vector pointSubtract() {
+        return point2.subtract(point1);
+    }
+
+    @Benchmark
+    public Point pointAdd() {
+        return point1.add(vector1);
+    }
+
+    @Benchmark
+    public double pointDistance() {
+        return point1.distance(point2);
+    }
+
+    @Benchmark
+    public Double3 double3Add() {
+        return double1.add(double2);
+    }
+
+    @Benchmark
+    public Double3 double3Product() {
+        return double1.product(double2);
+    }
+
+    @Benchmark
+    public Double3 double3Scale() {
+        return double1.scale(scalar);
+    }
+
+    @Benchmark
+    public boolean utilIsZero() {
+        return Util.isZero(tiny);
+    }
+
+    @Benchmark
+    public boolean utilIsNotZero() {
+        return Util.isZero(scalar);
+    }
+}
@@ -0,0 +1,51 @@
+package primitives;
+
+import geometries.Intersectable.GeoPoint;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the search of the closest point of a list of intersections.
+ * The points are spread along the ray by a fixed seed.
+ *
+ * @author Hadar Nagar & Elinoy Damari
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RayBenchmark {
+    /** Seed of the generated points */
+    private static final long SEED = 42;
+
+    /** Amount of the intersections in the list */
+    @Param({"2", "16", "128"})
+    public int size;
+
+    private Ray ray;
+    private List<GeoPoint> geoPoints;
+
+    /**
+     * Generates the ray and the intersections
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(SEED);
+        ray = new Ray(new Point(random.nextDouble(), random.nextDouble(), random.nextDouble()),
+                new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, 1));
+        geoPoints = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i)
+            geoPoints.add(new GeoPoint(null, ray.getPoint(1 + random.nextDouble() * 100)));
+    }
+
+    @Benchmark
+    public GeoPoint findClosestGeoPoint() {
+        return ray.findClosestGeoPoint(geoPoints);
+    }
+}
@@ -0,0 +1,134 @@
+package geometries;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import static jdk.incubator.vector.VectorOperators.GE;
+import static jdk.incubator.vector.VectorOperators.LE;
+
+/**
+ * Vectorized kernel of batches of primitives, using the incubating Vector API - a lane per primitive,
+ * 4 or 8 lanes (the preferred width of the CPU).<br/>
+ * Every lane computes exactly the arithmetic of {@link ScalarBatchKernel} (the Vector API operations
+ * are IEEE operations, and no multiply-add is fused), so the distances are the same bit for bit.
+ * The arrays of the batch and of the results are padded (see {@link PrimitiveBatch#PADDING}), so a run
+ * that isn't a multiple of the lanes (e.g. a leaf of 2 spheres) is computed by whole vectors, without
+ * masks - the lanes after the run compute distances that are ignored.
+ * <p>
+ * The kernel is loaded by {@link BatchKernel#load()} - the JVM must run with
+ * {@code --add-modules jdk.incubator.vector} and {@code -Draytracer.simd=true}.
+ * </p>
+ *
+ * @author Hadar Nagar & Elinoy Damari
+ */
+final class VectorBatchKernel implements BatchKernel {
+    /** The lanes of the CPU */
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    /** Numbers below it in absolute value are zero, the vectorized {@code Util.isZero} */
+    private static final double ZERO = 0x1p-40;
+
+    /**
+     * Constructs the kernel.
+     *
+     * @throws UnsupportedOperationException if the CPU has less than 4 lanes of doubles, or more lanes
+     *                                       than the padding of the arrays
+     */
+    VectorBatchKernel() {
+        if (SPECIES.length() < 4 || SPECIES.length() > PrimitiveBatch.PADDING)
+            throw new UnsupportedOperationException("Unsupported amount of lanes: " + SPECIES.length());
+    }
+
+    /**
+     * Checks which lanes are zero, like {@code Util.isZero}.
+     *
+     * @param v the lanes
+     * @return the mask of the zero lanes
+     */
+    private static VectorMask<Double> isZero(DoubleVector v) {
+        return v.abs().lt(ZERO);
+    }
+
+    /**
+     * Sets the lanes that are almost zero to zero, like {@code Util.alignZero}.
+     *
+     * @param v the lanes
+     * @return the aligned lanes
+     */
+    private static DoubleVector alignZero(DoubleVector v) {
+        return v.blend(0.0, isZero(v));
+    }
+
+    @Override
+    public void intersectSpheres(PrimitiveBatch batch, Ray ray, int from, int to, double[] t) {
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double dx = direction.getX(), dy = direction.getY(), dz = direction.getZ();
+        for (int i = from; i < to; i += SPECIES.length()) {
+            DoubleVector lx = DoubleVector.fromArray(SPECIES, batch.cx, i).sub(ox);
+            DoubleVector ly = DoubleVector.fromArray(SPECIES, batch.cy, i).sub(oy);
+            DoubleVector lz = DoubleVector.fromArray(SPECIES, batch.cz, i).sub(oz);
+            DoubleVector radius = DoubleVector.fromArray(SPECIES, batch.radius, i);
+
+            DoubleVector tm = lx.mul(dx).add(ly.mul(dy)).add(lz.mul(dz));
+            DoubleVector d = lx.mul(lx).add(ly.mul(ly)).add(lz.mul(lz)).sub(tm.mul(tm)).abs().sqrt();
+            VectorMask<Double> miss = alignZero(d.sub(radius)).compare(GE, 0.0);
+            DoubleVector th = radius.mul(radius).sub(d.mul(d)).sqrt();
+            DoubleVector near = alignZero(tm.sub(th));
+            DoubleVector result = near.blend(alignZero(tm.add(th)), near.compare(LE, 0.0)).blend(0.0, miss);
+            // a ray from the center of a sphere
+            result = result.blend(radius, isZero(lx).and(isZero(ly)).and(isZero(lz)));
+            result.intoArray(t, i - from);
+        }
+    }
+
+    @Override
+    public void intersectTriangles(PrimitiveBatch batch, Ray ray, int from, int to, double maxDistance,
+                                   double[] t, double[] u, double[] v) {
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double dx = direction.getX(), dy = direction.getY(), dz = direction.getZ();
+        for (int i = from; i < to; i += SPECIES.length()) {
+            DoubleVector e1x = DoubleVector.fromArray(SPECIES, batch.e1x, i);
+            DoubleVector e1y = DoubleVector.fromArray(SPECIES, batch.e1y, i);
+            DoubleVector e1z = DoubleVector.fromArray(SPECIES, batch.e1z, i);
+            DoubleVector e2x = DoubleVector.fromArray(SPECIES, batch.e2x, i);
+            DoubleVector e2y = DoubleVector.fromArray(SPECIES, batch.e2y, i);
+            DoubleVector e2z = DoubleVector.fromArray(SPECIES, batch.e2z, i);
+            // p = d x e2
+            DoubleVector px = e2z.mul(dy).sub(e2y.mul(dz));
+            DoubleVector py = e2x.mul(dz).sub(e2z.mul(dx));
+            DoubleVector pz = e2y.mul(dx).sub(e2x.mul(dy));
+            DoubleVector det = e1x.mul(px).add(e1y.mul(py)).add(e1z.mul(pz));
+            VectorMask<Double> miss = isZero(det);
+            DoubleVector inverse = DoubleVector.broadcast(SPECIES, 1.0).div(det);
+
+            DoubleVector sx = DoubleVector.fromArray(SPECIES, batch.v0x, i);
+            DoubleVector sy = DoubleVector.fromArray(SPECIES, batch.v0y, i);
+            DoubleVector sz = DoubleVector.fromArray(SPECIES, batch.v0z, i);
+            // s = head - v0
+            sx = DoubleVector.broadcast(SPECIES, ox).sub(sx);
+            sy = DoubleVector.broadcast(SPECIES, oy).sub(sy);
+            sz = DoubleVector.broadcast(SPECIES, oz).sub(sz);
+            DoubleVector ui = sx.mul(px).add(sy.mul(py)).add(sz.mul(pz)).mul(inverse);
+            miss = miss.or(alignZero(ui).compare(LE, 0.0)).or(alignZero(ui.sub(1.0)).compare(GE, 0.0));
+            // q = s x e1
+            DoubleVector qx = sy.mul(e1z).sub(sz.mul(e1y));
+            DoubleVector qy = sz.mul(e1x).sub(sx.mul(e1z));
+            DoubleVector qz = sx.mul(e1y).sub(sy.mul(e1x));
+            DoubleVector vi = qx.mul(dx).add(qy.mul(dy)).add(qz.mul(dz)).mul(inverse);
+            miss = miss.or(alignZero(vi).compare(LE, 0.0)).or(alignZero(ui.add(vi).sub(1.0)).compare(GE, 0.0));
+
+            DoubleVector ti = alignZero(e2x.mul(qx).add(e2y.mul(qy)).add(e2z.mul(qz)).mul(inverse));
+            miss = miss.or(ti.compare(LE, 0.0)).or(alignZero(ti.sub(maxDistance)).compare(GE, 0.0));
+            ti.blend(0.0, miss).intoArray(t, i - from);
+            ui.intoArray(u, i - from);
+            vi.intoArray(v, i - from);
+        }
+    }
+}
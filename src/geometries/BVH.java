@@ -0,0 +1,375 @@
+package geometries;
+
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import geometries.Intersectable.GeoPoint;
+
+/**
+ * Bounding volume hierarchy (BVH) over a collection of intersectable shapes.
+ * The hierarchy is built once using the surface area heuristic (SAH) and is stored
+ * flattened in arrays (depth first order, see {@link BVHNodes}) for a fast, allocation free traversal.
+ * <p>
+ * Infinite shapes (such as planes) can't be placed in the hierarchy,
+ * so they are kept aside and tested against every ray.
+ * </p>
+ *
+ * @author Hadar Nagar & Elinoy Damari
+ */
+class BVH {
+
+    /** Initial size of the traversal stack of {@link #findGeoIntersections(Ray, double)}, grown when needed */
+    private static final int STACK_SIZE = 64;
+
+    /** The bounded shapes, ordered so each leaf refers to a consecutive range */
+    final Intersectable[] shapes;
+    /** The shapes that have no bounding box */
+    final Intersectable[] unbounded;
+
+    /** The nodes of the hierarchy */
+    final BVHNodes nodes;
+    /** For a leaf - index of its first shape, for an inner node - index of its second child */
+    private final int[] offsets;
+    /** For a leaf - amount of its shapes, 0 for an inner node */
+    private final int[] counts;
+    /** For an inner node - the axis it was split along */
+    private final byte[] axes;
+    /** The batch of the spheres and the triangles of the leaves, null if no leaf is batched */
+    private final PrimitiveBatch batch;
+    /** For a leaf - the kind of its shapes in the batch (see {@link PrimitiveBatch#kind}), null if no leaf is batched */
+    private final byte[] kinds;
+
+    /**
+     * Builds the hierarchy over the given shapes.
+     *
+     * @param geometries the shapes to build the hierarchy over
+     */
+    BVH(List<Intersectable> geometries) {
+        List<Intersectable> bounded = new LinkedList<>();
+        List<Intersectable> infinite = new LinkedList<>();
+        for (Intersectable geometry : geometries) {
+            BoundingBox box = geometry.getBoundingBox();
+            if (box.isInfinite())
+                infinite.add(geometry);
+            else if (!box.isEmpty())
+                bounded.add(geometry);
+        }
+        unbounded = infinite.toArray(new Intersectable[0]);
+        Intersectable[] boundedShapes = bounded.toArray(new Intersectable[0]);
+
+        int n = boundedShapes.length;
+        double[] boxes = new double[6 * n];
+        for (int i = 0; i < n; ++i) {
+            BoundingBox box = boundedShapes[i].getBoundingBox();
+            for (int axis = 0; axis < 3; ++axis) {
+                boxes[6 * i + axis] = box.getMin(axis);
+                boxes[6 * i + 3 + axis] = box.getMax(axis);
+            }
+        }
+        nodes = new BVHNodes(boxes, n);
+        shapes = new Intersectable[n];
+        for (int i = 0; i < n; ++i)
+            shapes[i] = boundedShapes[nodes.order[i]];
+        offsets = nodes.offsets;
+        counts = nodes.counts;
+        axes = nodes.axes;
+        PrimitiveBatch shapesBatch = new PrimitiveBatch(shapes);
+        kinds = batchKinds(shapesBatch, nodes);
+        batch = kinds == null ? null : shapesBatch;
+    }
+
+    /**
+     * Restores a hierarchy that was built before (e.g. read from a file), without building it again.
+     *
+     * @param shapes    the bounded shapes, in the order of the leaves of the nodes
+     * @param unbounded the shapes that have no bounding box
+     * @param nodes     the nodes of the hierarchy
+     * @throws IllegalArgumentException if the nodes are not of the bounded shapes
+     */
+    BVH(Intersectable[] shapes, Intersectable[] unbounded, BVHNodes nodes) {
+        if (nodes.order.length != shapes.length)
+            throw new IllegalArgumentException("The nodes must be of the bounded shapes");
+        this.shapes = shapes;
+        this.unbounded = unbounded;
+        this.nodes = nodes;
+        offsets = nodes.offsets;
+        counts = nodes.counts;
+        axes = nodes.axes;
+        PrimitiveBatch shapesBatch = new PrimitiveBatch(shapes);
+        kinds = batchKinds(shapesBatch, nodes);
+        batch = kinds == null ? null : shapesBatch;
+    }
+
+    /**
+     * Finds the leaves whose shapes are all spheres or all triangles, so they delegate to a batch.
+     *
+     * @param batch the batch of the shapes
+     * @param nodes the nodes of the hierarchy
+     * @return the kinds of the leaves, null if no leaf is batched
+     */
+    private static byte[] batchKinds(PrimitiveBatch batch, BVHNodes nodes) {
+        byte[] kinds = new byte[nodes.counts.length];
+        boolean batched = false;
+        for (int node = 0; node < kinds.length; ++node)
+            if (nodes.counts[node] > 0) {
+                kinds[node] = batch.kind(nodes.offsets[node], nodes.offsets[node] + nodes.counts[node]);
+                batched |= kinds[node] != PrimitiveBatch.MIXED;
+            }
+        return batched ? kinds : null;
+    }
+
+    /**
+     * Slab test of a ray against a node's box.
+     *
+     * @param node        the node
+     * @param ox          the ray head's x coordinate
+     * @param oy          the ray head's y coordinate
+     * @param oz          the ray head's z coordinate
+     * @param invDx       1 / direction's x component
+     * @param invDy       1 / direction's y component
+     * @param invDz       1 / direction's z component
+     * @param maxDistance the maximal distance from the ray's head
+     * @return true if the ray enters the node's box before the maximal distance
+     */
+    private boolean hitsNode(int node, double ox, double oy, double oz,
+                             double invDx, double invDy, double invDz, double maxDistance) {
+        return nodes.hitsNode(node, ox, oy, oz, invDx, invDy, invDz, maxDistance);
+    }
+
+    /**
+     * Finds all the intersections of a ray with the shapes in the hierarchy.
+     *
+     * @param ray         the ray
+     * @param maxDistance the maximal distance from the ray's head
+     * @return list of the intersections, or null if there are none
+     */
+    List<GeoPoint> findGeoIntersections(Ray ray, double maxDistance) {
+        LinkedList<GeoPoint> intersections = null;
+        for (Intersectable shape : unbounded) {
+            List<GeoPoint> shapeIntersections = shape.findGeoIntersectionsHelper(ray, maxDistance);
+            if (shapeIntersections != null) {
+                if (intersections == null)
+                    intersections = new LinkedList<>();
+                intersections.addAll(shapeIntersections);
+            }
+        }
+        if (shapes.length == 0)
+            return intersections;
+
+        Point head = ray.getHead();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double invDx = ray.getInvDx(), invDy = ray.getInvDy(), invDz = ray.getInvDz();
+
+        int[] stack = new int[STACK_SIZE];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (!hitsNode(node, ox, oy, oz, invDx, invDy, invDz, maxDistance))
+                continue;
+            int count = counts[node];
+            if (count > 0) {
+                for (int i = offsets[node], end = i + count; i < end; ++i) {
+                    List<GeoPoint> shapeIntersections = shapes[i].findGeoIntersectionsHelper(ray, maxDistance);
+                    if (shapeIntersections != null) {
+                        if (intersections == null)
+                            intersections = new LinkedList<>();
+                        intersections.addAll(shapeIntersections);
+                    }
+                }
+            } else {
+                if (top + 2 > stack.length) // an unbalanced hierarchy may be deeper than the initial stack
+                    stack = Arrays.copyOf(stack, 2 * stack.length);
+                stack[top++] = offsets[node];
+                stack[top++] = node + 1;
+            }
+        }
+        return intersections;
+    }
+
+    /**
+     * Finds the closest intersection of a ray with the shapes in the hierarchy.
+     * The nodes are visited front to back (according to the ray's direction along the split axis)
+     * and every found intersection shrinks the maximal distance, so farther nodes are pruned by their boxes.
+     *
+     * @param hit the record of the closest intersection found so far, updated if a closer one is found
+     * @return true if a closer intersection was found
+     */
+    boolean findClosestIntersection(HitRecord hit) {
+        boolean found = false;
+        for (Intersectable shape : unbounded) {
+            hit.countTest(shape);
+            found |= shape.findClosestIntersectionHelper(hit);
+        }
+        if (shapes.length == 0)
+            return found;
+        found |= findClosestIntersection(hit, 0);
+        return found;
+    }
+
+    /**
+     * Finds the closest intersection of a ray with the shapes in a subtree of the hierarchy
+     * (see {@link #findClosestIntersection(HitRecord)}).
+     *
+     * @param hit  the record of the closest intersection found so far, updated if a closer one is found
+     * @param root the root node of the subtree
+     * @return true if a closer intersection was found
+     */
+    private boolean findClosestIntersection(HitRecord hit, int root) {
+        Ray ray = hit.ray;
+        Point head = ray.getHead();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double invDx = ray.getInvDx(), invDy = ray.getInvDy(), invDz = ray.getInvDz();
+
+        boolean found = false;
+        int base = hit.stackBase();
+        hit.push(root);
+        while (hit.hasNodes(base)) {
+            int node = hit.pop();
+            if (!hitsNode(node, ox, oy, oz, invDx, invDy, invDz, hit.t))
+                continue;
+            if (counts[node] > 0)
+                found |= intersectLeaf(hit, node);
+            else {
+                // push the far child first so the near child is visited first
+                int axis = axes[node];
+                if (ray.isNegative(axis)) {
+                    hit.push(node + 1);
+                    hit.push(offsets[node]);
+                } else {
+                    hit.push(offsets[node]);
+                    hit.push(node + 1);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds the closest intersection of a ray with the shapes of a leaf - by the batch if the leaf is
+     * batched, shape by shape otherwise.
+     *
+     * @param hit  the record of the closest intersection found so far, updated if a closer one is found
+     * @param node the leaf
+     * @return true if a closer intersection was found
+     */
+    private boolean intersectLeaf(HitRecord hit, int node) {
+        int from = offsets[node], to = from + counts[node];
+        if (kinds != null && kinds[node] != PrimitiveBatch.MIXED)
+            return batch.findClosestIntersection(hit, from, to, kinds[node]);
+        boolean found = false;
+        for (int i = from; i < to; ++i) {
+            hit.countTest(shapes[i]);
+            found |= shapes[i].findClosestIntersectionHelper(hit);
+        }
+        return found;
+    }
+
+    /**
+     * Finds the closest intersections of rays of a packet with the shapes in the hierarchy.<br/>
+     * The rays must have the same direction signs, so the children of every node are visited in the same
+     * (front to back) order for all of them. A node is fetched once for the packet, and is entered by the
+     * rays that hit its box before their own closest intersections so far. A ray that is left alone in a
+     * subtree continues by the single ray traversal of the subtree. Thus each ray visits exactly the nodes
+     * and the shapes it visits by {@link #findClosestIntersection(HitRecord)}, in the same order.
+     *
+     * @param packet the packet of the rays, the records of the rays are updated if closer intersections are found
+     * @param mask   the rays of the packet to intersect
+     * @param signs  the sign bits of the directions of the rays (see {@link Ray#getSigns()})
+     */
+    void findClosestIntersections(RayPacket packet, int mask, int signs) {
+        HitRecord[] hits = packet.hits;
+        for (Intersectable shape : unbounded)
+            for (int rays = mask; rays != 0; rays &= rays - 1) {
+                HitRecord hit = hits[Integer.numberOfTrailingZeros(rays)];
+                hit.countTest(shape);
+                shape.findClosestIntersectionHelper(hit);
+            }
+        if (shapes.length == 0)
+            return;
+
+        int base = packet.stackBase();
+        packet.push(0, mask);
+        while (packet.hasNodes(base)) {
+            long entry = packet.pop();
+            int node = (int) (entry >>> 32);
+            int rays = (int) entry;
+            if (Integer.bitCount(rays) == 1) {
+                findClosestIntersection(hits[Integer.numberOfTrailingZeros(rays)], node);
+                continue;
+            }
+            int active = 0;
+            for (; rays != 0; rays &= rays - 1) {
+                int i = Integer.numberOfTrailingZeros(rays);
+                if (hitsNode(node, packet.ox[i], packet.oy[i], packet.oz[i],
+                        packet.invDx[i], packet.invDy[i], packet.invDz[i], hits[i].t))
+                    active |= 1 << i;
+            }
+            if (active == 0)
+                continue;
+            if (counts[node] > 0)
+                for (; active != 0; active &= active - 1)
+                    intersectLeaf(hits[Integer.numberOfTrailingZeros(active)], node);
+            else if ((signs & 1 << axes[node]) != 0) {
+                packet.push(node + 1, active);
+                packet.push(offsets[node], active);
+            } else {
+                packet.push(offsets[node], active);
+                packet.push(node + 1, active);
+            }
+        }
+    }
+
+    /**
+     * Calculates the transparency of the shapes in the hierarchy along a shadow ray.
+     * The traversal stops as soon as the accumulated transparency is lower than the minimum.
+     *
+     * @param hit             record of the shadow ray and the distance of the light source
+     * @param ktr             the transparency accumulated so far
+     * @param minTransparency the transparency below which the search stops
+     * @return the accumulated transparency
+     */
+    Double3 findTransparency(HitRecord hit, Double3 ktr, double minTransparency) {
+        for (Intersectable shape : unbounded) {
+            hit.countTest(shape);
+            ktr = shape.findTransparencyHelper(hit, ktr, minTransparency);
+            if (ktr.lowerThan(minTransparency))
+                return ktr;
+        }
+        if (shapes.length == 0)
+            return ktr;
+
+        Ray ray = hit.ray;
+        Point head = ray.getHead();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double invDx = ray.getInvDx(), invDy = ray.getInvDy(), invDz = ray.getInvDz();
+
+        int base = hit.stackBase();
+        hit.push(0);
+        while (hit.hasNodes(base)) {
+            int node = hit.pop();
+            if (!hitsNode(node, ox, oy, oz, invDx, invDy, invDz, hit.t))
+                continue;
+            int count = counts[node];
+            if (count > 0) {
+                for (int i = offsets[node], end = i + count; i < end; ++i) {
+                    hit.countTest(shapes[i]);
+                    ktr = shapes[i].findTransparencyHelper(hit, ktr, minTransparency);
+                    if (ktr.lowerThan(minTransparency)) {
+                        hit.dropNodes(base);
+                        return ktr;
+                    }
+                }
+            } else {
+                hit.push(offsets[node]);
+                hit.push(node + 1);
+            }
+        }
+        return ktr;
+    }
+}
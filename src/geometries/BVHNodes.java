@@ -0,0 +1,405 @@
+package geometries;
+
+import java.util.Arrays;
+
+/**
+ * Nodes of a bounding volume hierarchy, built over primitives given only by their boxes.
+ * The hierarchy is built once using the surface area heuristic (SAH) and is stored flattened in
+ * arrays (depth first order), so it can index millions of primitives without an object per node.
+ * The users of the hierarchy ({@link BVH} over shapes, {@link Mesh} over faces) keep their primitives
+ * in the order of {@link #order}, so each leaf refers to a consecutive range of primitives.
+ * <p>
+ * The boxes of the nodes may be stored as floats instead of doubles (see {@link #toFloatBounds(double[])}),
+ * half the memory (and the memory bandwidth of the traversal) of a large hierarchy.
+ * </p>
+ *
+ * @author Hadar Nagar & Elinoy Damari
+ */
+final class BVHNodes {
+
+    /** Amount of buckets the SAH evaluates the split candidates in */
+    private static final int BUCKETS = 12;
+    /** Maximal amount of primitives in a leaf, a node with more primitives is split in any case */
+    private static final int MAX_LEAF_SIZE = 4;
+    /** Estimated cost of a traversal step relatively to the cost of a primitive intersection */
+    private static final double TRAVERSAL_COST = 0.125;
+
+    /** Boxes of the nodes - 6 numbers per node: min x,y,z then max x,y,z, null if they are stored as floats */
+    final double[] bounds;
+    /** Boxes of the nodes stored as floats (rounded outwards), null if they are stored as doubles */
+    final float[] floatBounds;
+    /** For a leaf - index of its first primitive, for an inner node - index of its second child */
+    final int[] offsets;
+    /** For a leaf - amount of its primitives, 0 for an inner node */
+    final int[] counts;
+    /** For an inner node - the axis it was split along */
+    final byte[] axes;
+    /** The original indices of the primitives, in the order of the leaves */
+    final int[] order;
+
+    /** Boxes of the primitives during the build (reordered together with the primitives) */
+    private double[] boxes;
+    /** Centers of the boxes during the build (reordered together with the primitives) */
+    private double[] centers;
+    /** Amount of nodes built so far */
+    private int nodesCount = 0;
+
+    /**
+     * Builds the hierarchy over primitives.
+     *
+     * @param boxes boxes of the primitives - 6 numbers per primitive: min x,y,z then max x,y,z
+     *              (the array is reordered by the build)
+     * @param n     amount of the primitives
+     */
+    BVHNodes(double[] boxes, int n) {
+        this.boxes = boxes;
+        centers = new double[3 * n];
+        order = new int[n];
+        for (int i = 0; i < n; ++i) {
+            order[i] = i;
+            for (int axis = 0; axis < 3; ++axis)
+                centers[3 * i + axis] = (boxes[6 * i + axis] + boxes[6 * i + 3 + axis]) / 2;
+        }
+
+        int maxNodes = Math.max(1, 2 * n - 1);
+        double[] nodeBounds = new double[6 * maxNodes];
+        int[] nodeOffsets = new int[maxNodes];
+        int[] nodeCounts = new int[maxNodes];
+        byte[] nodeAxes = new byte[maxNodes];
+        if (n > 0) build(nodeBounds, nodeOffsets, nodeCounts, nodeAxes, 0, n);
+
+        // the SAH usually makes leaves of a few primitives, so the arrays are trimmed
+        int size = Math.max(1, nodesCount);
+        bounds = size == maxNodes ? nodeBounds : Arrays.copyOf(nodeBounds, 6 * size);
+        offsets = size == maxNodes ? nodeOffsets : Arrays.copyOf(nodeOffsets, size);
+        counts = size == maxNodes ? nodeCounts : Arrays.copyOf(nodeCounts, size);
+        axes = size == maxNodes ? nodeAxes : Arrays.copyOf(nodeAxes, size);
+        floatBounds = null;
+        this.boxes = null;
+        centers = null;
+    }
+
+    /**
+     * Restores a hierarchy that was built before (e.g. read from a file), without building it again.
+     * The arrays are kept by the hierarchy (not copied).
+     *
+     * @param bounds  boxes of the nodes
+     * @param offsets offsets of the nodes
+     * @param counts  amounts of primitives of the nodes
+     * @param axes    split axes of the nodes
+     * @param order   original indices of the primitives, in the order of the leaves
+     * @throws IllegalArgumentException if the arrays don't describe the same amount of nodes, an inner
+     *                                  node's children are not after it (depth first order) or a leaf
+     *                                  refers to a missing primitive
+     */
+    BVHNodes(double[] bounds, int[] offsets, int[] counts, byte[] axes, int[] order) {
+        validate(bounds.length, offsets, counts, axes, order);
+        this.bounds = bounds;
+        this.floatBounds = null;
+        this.offsets = offsets;
+        this.counts = counts;
+        this.axes = axes;
+        this.order = order;
+    }
+
+    /**
+     * Restores a hierarchy whose boxes are stored as floats (see {@link #BVHNodes(double[], int[], int[], byte[], int[])}).
+     *
+     * @param bounds  boxes of the nodes, rounded outwards
+     * @param offsets offsets of the nodes
+     * @param counts  amounts of primitives of the nodes
+     * @param axes    split axes of the nodes
+     * @param order   original indices of the primitives, in the order of the leaves
+     * @throws IllegalArgumentException if the arrays don't describe a legal hierarchy
+     */
+    BVHNodes(float[] bounds, int[] offsets, int[] counts, byte[] axes, int[] order) {
+        validate(bounds.length, offsets, counts, axes, order);
+        this.bounds = null;
+        this.floatBounds = bounds;
+        this.offsets = offsets;
+        this.counts = counts;
+        this.axes = axes;
+        this.order = order;
+    }
+
+    /**
+     * Checks the arrays of a restored hierarchy.
+     *
+     * @param boundsLength length of the boxes of the nodes
+     * @param offsets      offsets of the nodes
+     * @param counts       amounts of primitives of the nodes
+     * @param axes         split axes of the nodes
+     * @param order        original indices of the primitives, in the order of the leaves
+     * @throws IllegalArgumentException if the arrays don't describe the same amount of nodes, an inner
+     *                                  node's children are not after it (depth first order) or a leaf
+     *                                  refers to a missing primitive
+     */
+    private static void validate(int boundsLength, int[] offsets, int[] counts, byte[] axes, int[] order) {
+        int size = offsets.length;
+        if (size == 0 || boundsLength != 6 * size || counts.length != size || axes.length != size)
+            throw new IllegalArgumentException("The arrays of the nodes must be of the same amount of nodes");
+        // a single node of no primitives is an empty hierarchy, otherwise every inner node has 2 later children
+        for (int node = 0; node < size && size > 1; ++node)
+            if (counts[node] < 0 || offsets[node] < 0
+                    || counts[node] == 0 && (offsets[node] <= node + 1 || offsets[node] >= size)
+                    || counts[node] > 0 && offsets[node] + counts[node] > order.length)
+                throw new IllegalArgumentException("Illegal node " + node);
+    }
+
+    /**
+     * Creates the same hierarchy with the boxes of the nodes stored as floats. The boxes are refitted to
+     * given boxes of the primitives (e.g. of primitives whose coordinates were rounded to floats) and
+     * rounded outwards, so every box still contains all its primitives.
+     *
+     * @param boxes boxes of the primitives in the order of the leaves - 6 numbers per primitive:
+     *              min x,y,z then max x,y,z
+     * @return the hierarchy with float boxes
+     */
+    BVHNodes toFloatBounds(double[] boxes) {
+        int size = offsets.length;
+        double[] box = new double[6 * size];
+        // the children of a node are after it, so they are refitted before it
+        for (int node = size - 1; node >= 0 && order.length > 0; --node) {
+            int count = counts[node];
+            if (count > 0) {
+                System.arraycopy(boxes, 6 * offsets[node], box, 6 * node, 6);
+                for (int i = offsets[node] + 1; i < offsets[node] + count; ++i)
+                    union(box, 6 * node, boxes, 6 * i);
+            } else {
+                System.arraycopy(box, 6 * (node + 1), box, 6 * node, 6);
+                union(box, 6 * node, box, 6 * offsets[node]);
+            }
+        }
+        float[] floats = new float[6 * size];
+        for (int i = 0; i < floats.length; ++i) {
+            float value = (float) box[i];
+            // the minimal coordinates are rounded down and the maximal ones up
+            if (i % 6 < 3 ? value > box[i] : value < box[i])
+                value = i % 6 < 3 ? Math.nextDown(value) : Math.nextUp(value);
+            floats[i] = value;
+        }
+        return new BVHNodes(floats, offsets, counts, axes, order);
+    }
+
+    /**
+     * Returns a coordinate of the boxes of the nodes.
+     *
+     * @param i the index of the coordinate (6 per node: min x,y,z then max x,y,z)
+     * @return the coordinate
+     */
+    double bound(int i) {
+        return bounds != null ? bounds[i] : floatBounds[i];
+    }
+
+    /**
+     * Recursively builds the node of the primitives in range [from, to) and all its descendants.
+     *
+     * @param bounds  boxes of the nodes
+     * @param offsets offsets of the nodes
+     * @param counts  amounts of primitives of the nodes
+     * @param axes    split axes of the nodes
+     * @param from    first primitive of the node
+     * @param to      the primitive after the last primitive of the node
+     * @return index of the built node
+     */
+    private int build(double[] bounds, int[] offsets, int[] counts, byte[] axes, int from, int to) {
+        int node = nodesCount++;
+        double[] box = new double[6];
+        System.arraycopy(boxes, 6 * from, box, 0, 6);
+        double[] minC = {centers[3 * from], centers[3 * from + 1], centers[3 * from + 2]};
+        double[] maxC = minC.clone();
+        for (int i = from + 1; i < to; ++i) {
+            union(box, boxes, 6 * i);
+            for (int axis = 0; axis < 3; ++axis) {
+                minC[axis] = Math.min(minC[axis], centers[3 * i + axis]);
+                maxC[axis] = Math.max(maxC[axis], centers[3 * i + axis]);
+            }
+        }
+        System.arraycopy(box, 0, bounds, 6 * node, 6);
+
+        int count = to - from;
+        int axis = widestAxis(minC, maxC);
+        double extent = maxC[axis] - minC[axis];
+        if (count == 1 || extent <= 0)
+            return makeLeaf(offsets, counts, node, from, count);
+
+        // evaluate the SAH cost of splitting between each couple of buckets
+        int[] bucketCounts = new int[BUCKETS];
+        double[][] bucketBoxes = new double[BUCKETS][];
+        for (int i = from; i < to; ++i) {
+            int b = bucket(centers[3 * i + axis], minC[axis], extent);
+            ++bucketCounts[b];
+            if (bucketBoxes[b] == null)
+                bucketBoxes[b] = Arrays.copyOfRange(boxes, 6 * i, 6 * i + 6);
+            else
+                union(bucketBoxes[b], boxes, 6 * i);
+        }
+        double[] costs = new double[BUCKETS - 1];
+        double[] left = null;
+        int leftCount = 0;
+        for (int b = 0; b < BUCKETS - 1; ++b) {
+            if (bucketBoxes[b] != null) {
+                if (left == null) left = bucketBoxes[b].clone();
+                else union(left, bucketBoxes[b], 0);
+            }
+            leftCount += bucketCounts[b];
+            costs[b] = leftCount == 0 ? Double.POSITIVE_INFINITY : leftCount * surfaceArea(left);
+        }
+        double[] right = null;
+        int rightCount = 0;
+        for (int b = BUCKETS - 1; b > 0; --b) {
+            if (bucketBoxes[b] != null) {
+                if (right == null) right = bucketBoxes[b].clone();
+                else union(right, bucketBoxes[b], 0);
+            }
+            rightCount += bucketCounts[b];
+            costs[b - 1] += rightCount == 0 ? Double.POSITIVE_INFINITY : rightCount * surfaceArea(right);
+        }
+        int bestSplit = 0;
+        for (int b = 1; b < BUCKETS - 1; ++b)
+            if (costs[b] < costs[bestSplit]) bestSplit = b;
+        double splitCost = TRAVERSAL_COST + costs[bestSplit] / surfaceArea(box);
+        if (count <= MAX_LEAF_SIZE && splitCost >= count)
+            return makeLeaf(offsets, counts, node, from, count);
+
+        // partition the primitives according to the best split
+        int mid = from;
+        for (int i = from; i < to; ++i)
+            if (bucket(centers[3 * i + axis], minC[axis], extent) <= bestSplit)
+                swap(i, mid++);
+        if (mid == from || mid == to) // can't happen unless all the centers share one bucket
+            mid = (from + to) / 2;
+
+        axes[node] = (byte) axis;
+        build(bounds, offsets, counts, axes, from, mid);
+        offsets[node] = build(bounds, offsets, counts, axes, mid, to);
+        return node;
+    }
+
+    /**
+     * Turns a node into a leaf.
+     *
+     * @param offsets offsets of the nodes
+     * @param counts  amounts of primitives of the nodes
+     * @param node    the node
+     * @param from    its first primitive
+     * @param count   amount of its primitives
+     * @return the node
+     */
+    private static int makeLeaf(int[] offsets, int[] counts, int node, int from, int count) {
+        offsets[node] = from;
+        counts[node] = count;
+        return node;
+    }
+
+    /**
+     * Extends a box to contain another box.
+     *
+     * @param box    the box to extend
+     * @param other  array of the other box
+     * @param offset index of the other box in its array
+     */
+    private static void union(double[] box, double[] other, int offset) {
+        union(box, 0, other, offset);
+    }
+
+    /**
+     * Extends a box to contain another box.
+     *
+     * @param box         array of the box to extend
+     * @param boxOffset   index of the box in its array
+     * @param other       array of the other box
+     * @param otherOffset index of the other box in its array
+     */
+    private static void union(double[] box, int boxOffset, double[] other, int otherOffset) {
+        for (int axis = 0; axis < 3; ++axis) {
+            box[boxOffset + axis] = Math.min(box[boxOffset + axis], other[otherOffset + axis]);
+            box[boxOffset + 3 + axis] = Math.max(box[boxOffset + 3 + axis], other[otherOffset + 3 + axis]);
+        }
+    }
+
+    /**
+     * Calculates the surface area of a box.
+     *
+     * @param box the box
+     * @return its surface area
+     */
+    private static double surfaceArea(double[] box) {
+        double dx = box[3] - box[0];
+        double dy = box[4] - box[1];
+        double dz = box[5] - box[2];
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Finds the axis the centers are spread the most along.
+     *
+     * @param min minimal center coordinates
+     * @param max maximal center coordinates
+     * @return the widest axis
+     */
+    private static int widestAxis(double[] min, double[] max) {
+        double dx = max[0] - min[0], dy = max[1] - min[1], dz = max[2] - min[2];
+        return dx >= dy && dx >= dz ? 0 : dy >= dz ? 1 : 2;
+    }
+
+    /**
+     * Finds the SAH bucket of a center coordinate.
+     *
+     * @param center the center coordinate
+     * @param min    minimal center coordinate of the node
+     * @param extent extent of the centers of the node
+     * @return the bucket
+     */
+    private static int bucket(double center, double min, double extent) {
+        int b = (int) (BUCKETS * (center - min) / extent);
+        return b < BUCKETS ? b : BUCKETS - 1;
+    }
+
+    /**
+     * Swaps two primitives together with their boxes and centers.
+     *
+     * @param i first primitive
+     * @param j second primitive
+     */
+    private void swap(int i, int j) {
+        int primitive = order[i];
+        order[i] = order[j];
+        order[j] = primitive;
+        for (int k = 0; k < 6; ++k) {
+            double value = boxes[6 * i + k];
+            boxes[6 * i + k] = boxes[6 * j + k];
+            boxes[6 * j + k] = value;
+        }
+        for (int k = 0; k < 3; ++k) {
+            double value = centers[3 * i + k];
+            centers[3 * i + k] = centers[3 * j + k];
+            centers[3 * j + k] = value;
+        }
+    }
+
+    /**
+     * Slab test of a ray against a node's box.
+     *
+     * @param node        the node
+     * @param ox          the ray head's x coordinate
+     * @param oy          the ray head's y coordinate
+     * @param oz          the ray head's z coordinate
+     * @param invDx       1 / direction's x component
+     * @param invDy       1 / direction's y component
+     * @param invDz       1 / direction's z component
+     * @param maxDistance the maximal distance from the ray's head
+     * @return true if the ray enters the node's box before the maximal distance
+     */
+    boolean hitsNode(int node, double ox, double oy, double oz,
+                     double invDx, double invDy, double invDz, double maxDistance) {
+        int i = 6 * node;
+        if (bounds == null) {
+            float[] b = floatBounds;
+            return BoundingBox.intersects(b[i], b[i + 1], b[i + 2], b[i + 3], b[i + 4], b[i + 5],
+                    ox, oy, oz, invDx, invDy, invDz, maxDistance);
+        }
+        return BoundingBox.intersects(bounds[i], bounds[i + 1], bounds[i + 2], bounds[i + 3], bounds[i + 4], bounds[i + 5],
+                ox, oy, oz, invDx, invDy, invDz, maxDistance);
+    }
+}
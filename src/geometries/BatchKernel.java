@@ -0,0 +1,68 @@
+package geometries;
+
+import primitives.Ray;
+
+/**
+ * Kernel that intersects one ray with a batch of homogeneous primitives, given as a structure of
+ * arrays (see {@link PrimitiveBatch}).<br/>
+ * The kernel only calculates the distances - the caller records them in the hit record in the order of
+ * the primitives, so the chosen intersection doesn't depend on the kernel. The arrays of the results
+ * have room for {@link PrimitiveBatch#PADDING} more entries than the primitives, which a kernel may
+ * overwrite. Every kernel must compute exactly the arithmetic of the intersection routines of the
+ * primitives ({@link Sphere}, {@link Triangle}), so the distances are the same as without the batch.
+ * <p>
+ * The vectorized kernel ({@code VectorBatchKernel}) uses the incubating Vector API and is built in the
+ * optional {@code simd} module. It is used when enabled by {@code -Draytracer.simd=true}, it is on the
+ * class path and the JVM runs with {@code --add-modules jdk.incubator.vector}. Otherwise the scalar
+ * kernel ({@link ScalarBatchKernel}) is used - the leaves of the hierarchies hold a few shapes, so the
+ * vectorized kernel isn't faster on every CPU (see {@code BatchBenchmark}).
+ * </p>
+ *
+ * @author Hadar Nagar & Elinoy Damari
+ */
+interface BatchKernel {
+
+    /**
+     * Intersects a ray with a range of spheres of a batch.
+     *
+     * @param batch the batch
+     * @param ray   the ray
+     * @param from  index of the first sphere
+     * @param to    index after the last sphere
+     * @param t     receives the distance of the closer intersection in front of the ray's head of each
+     *              sphere (at index i - from), 0 for a sphere that isn't intersected
+     */
+    void intersectSpheres(PrimitiveBatch batch, Ray ray, int from, int to, double[] t);
+
+    /**
+     * Intersects a ray with a range of triangles of a batch.
+     *
+     * @param batch       the batch
+     * @param ray         the ray
+     * @param from        index of the first triangle
+     * @param to          index after the last triangle
+     * @param maxDistance the maximal distance from the ray's head
+     * @param t           receives the distance of the intersection of each triangle (at index i - from),
+     *                    0 for a triangle that isn't intersected closer than the maximal distance
+     * @param u           receives the weight of the second vertex of each intersected triangle
+     * @param v           receives the weight of the third vertex of each intersected triangle
+     */
+    void intersectTriangles(PrimitiveBatch batch, Ray ray, int from, int to, double maxDistance,
+                            double[] t, double[] u, double[] v);
+
+    /**
+     * Loads the vectorized kernel if it is available and enabled, the scalar kernel otherwise.
+     *
+     * @return the kernel
+     */
+    static BatchKernel load() {
+        if (Boolean.parseBoolean(System.getProperty("raytracer.simd", "false")))
+            try {
+                return (BatchKernel) Class.forName("geometries.VectorBatchKernel")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // the simd module isn't on the class path, or the Vector API module isn't added
+            }
+        return new ScalarBatchKernel();
+    }
+}
@@ -0,0 +1,245 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+
+/**
+ * Axis aligned bounding box (AABB) in three-dimensional space.
+ * The box is defined by its minimal and maximal coordinates on each axis
+ * and is used for fast rejection of rays that can't intersect the bounded geometries.
+ * <p>
+ * Instances of this class are immutable once created.
+ * </p>
+ *
+ * @author Hadar Nagar & Elinoy Damari
+ */
+public class BoundingBox {
+
+    /** Small padding added to every box so flat shapes (like axis aligned polygons) still have a volume */
+    static final double PADDING = 1e-7;
+
+    /** Marker box of infinite shapes (like planes and tubes) which can't be bounded */
+    public static final BoundingBox INFINITE = new BoundingBox(Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
+            Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
+
+    /** Box of an empty collection of shapes, no ray intersects it */
+    public static final BoundingBox EMPTY = new BoundingBox(Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+            Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY);
+
+    /** Minimal coordinates of the box */
+    final double minX, minY, minZ;
+    /** Maximal coordinates of the box */
+    final double maxX, maxY, maxZ;
+
+    /**
+     * Constructs a bounding box from its minimal and maximal coordinates.
+     * The box is padded a little bit on each side.
+     *
+     * @param minX minimal x coordinate
+     * @param minY minimal y coordinate
+     * @param minZ minimal z coordinate
+     * @param maxX maximal x coordinate
+     * @param maxY maximal y coordinate
+     * @param maxZ maximal z coordinate
+     */
+    public BoundingBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        this(minX, minY, minZ, maxX, maxY, maxZ, PADDING);
+    }
+
+    /**
+     * Constructs a bounding box from its minimal and maximal coordinates padded by a given amount.
+     *
+     * @param minX    minimal x coordinate
+     * @param minY    minimal y coordinate
+     * @param minZ    minimal z coordinate
+     * @param maxX    maximal x coordinate
+     * @param maxY    maximal y coordinate
+     * @param maxZ    maximal z coordinate
+     * @param padding the padding added on each side
+     */
+    private BoundingBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ, double padding) {
+        this.minX = minX - padding;
+        this.minY = minY - padding;
+        this.minZ = minZ - padding;
+        this.maxX = maxX + padding;
+        this.maxY = maxY + padding;
+        this.maxZ = maxZ + padding;
+    }
+
+    /**
+     * Constructs the smallest bounding box containing all the given points.
+     *
+     * @param points the points to bound
+     * @return the bounding box of the points
+     */
+    public static BoundingBox of(Iterable<Point> points) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (Point p : points) {
+            minX = Math.min(minX, p.getX());
+            minY = Math.min(minY, p.getY());
+            minZ = Math.min(minZ, p.getZ());
+            maxX = Math.max(maxX, p.getX());
+            maxY = Math.max(maxY, p.getY());
+            maxZ = Math.max(maxZ, p.getZ());
+        }
+        return new BoundingBox(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    /**
+     * Constructs the smallest bounding box containing this box and another one.
+     *
+     * @param other the other box
+     * @return the united bounding box
+     */
+    public BoundingBox union(BoundingBox other) {
+        // both boxes are already padded
+        return new BoundingBox(Math.min(minX, other.minX), Math.min(minY, other.minY), Math.min(minZ, other.minZ),
+                Math.max(maxX, other.maxX), Math.max(maxY, other.maxY), Math.max(maxZ, other.maxZ), 0);
+    }
+
+    /**
+     * Checks whether the box is the infinite marker (or has an infinite side).
+     *
+     * @return true if the box is infinite
+     */
+    public boolean isInfinite() {
+        return Double.isInfinite(minX) || Double.isInfinite(minY) || Double.isInfinite(minZ)
+                || Double.isInfinite(maxX) || Double.isInfinite(maxY) || Double.isInfinite(maxZ);
+    }
+
+    /**
+     * Checks whether the box is empty (bounds nothing).
+     *
+     * @return true if the box is empty
+     */
+    public boolean isEmpty() {
+        return minX > maxX || minY > maxY || minZ > maxZ;
+    }
+
+    /**
+     * Returns the minimal coordinate of the box on the given axis.
+     *
+     * @param axis 0 for x, 1 for y, 2 for z
+     * @return the minimal coordinate
+     */
+    public double getMin(int axis) {
+        return axis == 0 ? minX : axis == 1 ? minY : minZ;
+    }
+
+    /**
+     * Returns the maximal coordinate of the box on the given axis.
+     *
+     * @param axis 0 for x, 1 for y, 2 for z
+     * @return the maximal coordinate
+     */
+    public double getMax(int axis) {
+        return axis == 0 ? maxX : axis == 1 ? maxY : maxZ;
+    }
+
+    /**
+     * Returns the center of the box on the given axis.
+     *
+     * @param axis 0 for x, 1 for y, 2 for z
+     * @return the center coordinate
+     */
+    public double getCenter(int axis) {
+        return (getMin(axis) + getMax(axis)) / 2;
+    }
+
+    /**
+     * Computes the surface area of the box - the base of the surface area heuristic.
+     *
+     * @return the surface area of the box
+     */
+    public double surfaceArea() {
+        double dx = maxX - minX;
+        double dy = maxY - minY;
+        double dz = maxZ - minZ;
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Checks whether a ray hits the box before a given distance (slab test).
+     *
+     * @param ray         the ray
+     * @param maxDistance the maximal distance from the ray's head
+     * @return true if the ray enters the box before the maximal distance
+     */
+    public boolean intersects(Ray ray, double maxDistance) {
+        if (isEmpty()) return false;
+        if (isInfinite()) return true;
+        Point head = ray.getHead();
+        return intersects(head.getX(), head.getY(), head.getZ(),
+                ray.getInvDx(), ray.getInvDy(), ray.getInvDz(), maxDistance);
+    }
+
+    /**
+     * Slab test of a ray given by its head and reciprocal direction components.
+     *
+     * @param ox          the ray head's x coordinate
+     * @param oy          the ray head's y coordinate
+     * @param oz          the ray head's z coordinate
+     * @param invDx       1 / direction's x component
+     * @param invDy       1 / direction's y component
+     * @param invDz       1 / direction's z component
+     * @param maxDistance the maximal distance from the ray's head
+     * @return true if the ray enters the box before the maximal distance
+     */
+    boolean intersects(double ox, double oy, double oz, double invDx, double invDy, double invDz, double maxDistance) {
+        return intersects(minX, minY, minZ, maxX, maxY, maxZ, ox, oy, oz, invDx, invDy, invDz, maxDistance);
+    }
+
+    /**
+     * Slab test of a ray against a box given by its coordinates.
+     * A NaN (0 * infinity) appears when the ray's head lays on a slab border and the ray is parallel
+     * to the slab - in that case the slab doesn't limit the range.
+     *
+     * @param minX        minimal x coordinate of the box
+     * @param minY        minimal y coordinate of the box
+     * @param minZ        minimal z coordinate of the box
+     * @param maxX        maximal x coordinate of the box
+     * @param maxY        maximal y coordinate of the box
+     * @param maxZ        maximal z coordinate of the box
+     * @param ox          the ray head's x coordinate
+     * @param oy          the ray head's y coordinate
+     * @param oz          the ray head's z coordinate
+     * @param invDx       1 / direction's x component
+     * @param invDy       1 / direction's y component
+     * @param invDz       1 / direction's z component
+     * @param maxDistance the maximal distance from the ray's head
+     * @return true if the ray enters the box before the maximal distance
+     */
+    static boolean intersects(double minX, double minY, double minZ, double maxX, double maxY, double maxZ,
+                              double ox, double oy, double oz, double invDx, double invDy, double invDz,
+                              double maxDistance) {
+        double tMin = 0;
+        double tMax = maxDistance;
+
+        double t1 = (minX - ox) * invDx;
+        double t2 = (maxX - ox) * invDx;
+        if (t1 > t2) { double tmp = t1; t1 = t2; t2 = tmp; }
+        if (t1 > tMin) tMin = t1;
+        if (t2 < tMax) tMax = t2;
+        if (tMin > tMax) return false;
+
+        t1 = (minY - oy) * invDy;
+        t2 = (maxY - oy) * invDy;
+        if (t1 > t2) { double tmp = t1; t1 = t2; t2 = tmp; }
+        if (t1 > tMin) tMin = t1;
+        if (t2 < tMax) tMax = t2;
+        if (tMin > tMax) return false;
+
+        t1 = (minZ - oz) * invDz;
+        t2 = (maxZ - oz) * invDz;
+        if (t1 > t2) { double tmp = t1; t1 = t2; t2 = tmp; }
+        if (t1 > tMin) tMin = t1;
+        if (t2 < tMax) tMax = t2;
+        return tMin <= tMax;
+    }
+
+    @Override
+    public String toString() {
+        return "BoundingBox{(" + minX + "," + minY + "," + minZ + ")-(" + maxX + "," + maxY + "," + maxZ + ")}";
+    }
+}
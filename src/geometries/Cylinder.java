@@ -49,4 +49,23 @@ public class Cylinder extends Tube{
 
         return super.getNormal(point);
     }
+
+    /**
+     * Calculates the bounding box of the cylinder - the box of the axis segment
+     * expanded on each axis by the extent of the base disks along it.
+     *
+     * @return the bounding box of the cylinder
+     */
+    @Override
+    protected BoundingBox calcBoundingBox() {
+        Point p0 = axis.getHead();
+        Point p1 = axis.getPoint(height);
+        Vector d = axis.getDirection();
+        double ex = radius * Math.sqrt(Math.max(0, 1 - d.getX() * d.getX()));
+        double ey = radius * Math.sqrt(Math.max(0, 1 - d.getY() * d.getY()));
+        double ez = radius * Math.sqrt(Math.max(0, 1 - d.getZ() * d.getZ()));
+        return new BoundingBox(Math.min(p0.getX(), p1.getX()) - ex, Math.min(p0.getY(), p1.getY()) - ey,
+                Math.min(p0.getZ(), p1.getZ()) - ez, Math.max(p0.getX(), p1.getX()) + ex,
+                Math.max(p0.getY(), p1.getY()) + ey, Math.max(p0.getZ(), p1.getZ()) + ez);
+    }
 }
@@ -1,11 +1,15 @@
 package geometries;
 
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 /**
  * The Geometries class represents a collection of intersectable geometrical shapes.
@@ -18,7 +22,27 @@ public class Geometries extends Intersectable{
     /**
      * A list of geometrical shapes that can be intersected.
      */
-    final private List<Intersectable> geometries=new LinkedList<>();
+    final List<Intersectable> geometries=new LinkedList<>();
+
+    /**
+     * Bounding volume hierarchy over the geometries, null if it wasn't built
+     */
+    BVH bvh = null;
+
+    /** Marks geometries that are not all spheres or all triangles */
+    private static final PrimitiveBatch NO_BATCH = new PrimitiveBatch(new Intersectable[0]);
+
+    /**
+     * Batch of the geometries if they are all spheres or all triangles (see {@link PrimitiveBatch}),
+     * {@link #NO_BATCH} if they are not, null until it is needed
+     */
+    private PrimitiveBatch batch = null;
+
+    /**
+     * The collections this collection was added to, their boxes depend on the box of this collection.
+     * Held weakly (by identity, each once), so a collection doesn't keep alive the collections that contained it.
+     */
+    private final Set<Geometries> parents = Collections.newSetFromMap(new WeakHashMap<>());
 
     /**
      * Constructs an empty Geometries object.
@@ -35,6 +59,19 @@ public class Geometries extends Intersectable{
         add(geometries);
     }
 
+    /**
+     * Creates a snapshot collection of geometries: the collection isn't registered as a container of its
+     * nested collections, so geometries added to them later don't drop its box nor its hierarchy.
+     *
+     * @param geometries the geometries of the snapshot
+     * @return the collection
+     */
+    public static Geometries snapshotOf(Intersectable... geometries) {
+        Geometries snapshot = new Geometries();
+        snapshot.geometries.addAll(List.of(geometries));
+        return snapshot;
+    }
+
     /**
      * Adds one or more intersectable geometries to the collection.
      *
@@ -42,10 +79,70 @@ public class Geometries extends Intersectable{
      */
     public void add(Intersectable ...geometries){
         this.geometries.addAll(List.of(geometries));
+        for (Intersectable geometry : geometries)
+            if (geometry instanceof Geometries nested)
+                nested.parents.add(this);
+        invalidate();
+    }
+
+    /**
+     * Drops the box, the hierarchy and the batch of the collection and of the collections containing it
+     * (directly or through nested collections), since they were calculated of fewer geometries.
+     */
+    private void invalidate() {
+        bvh = null;
+        batch = null;
+        resetBoundingBox();
+        for (Geometries parent : parents)
+            parent.invalidate();
+    }
+
+    /**
+     * Returns the geometries of the collection.
+     *
+     * @return unmodifiable view of the geometries
+     */
+    public List<Intersectable> getGeometries() {
+        return Collections.unmodifiableList(geometries);
+    }
+
+    /**
+     * Builds a bounding volume hierarchy (using the surface area heuristic) over the current geometries.
+     * From now on the intersections are found through the hierarchy, until more geometries are added
+     * (to the collection or to a collection nested in it).
+     *
+     * @return the geometries collection itself (for method chaining)
+     */
+    public Geometries buildBVH() {
+        bvh = new BVH(geometries);
+        return this;
+    }
+
+    /**
+     * Calculates the box of all the geometries in the collection. The box is kept until geometries are added
+     * to the collection or to a collection nested in it.
+     *
+     * @return the united bounding box of the geometries
+     */
+    @Override
+    protected BoundingBox calcBoundingBox() {
+        BoundingBox box = BoundingBox.EMPTY;
+        for (Intersectable geometry : geometries) {
+            BoundingBox geometryBox = geometry.getBoundingBox();
+            if (geometryBox.isInfinite())
+                return BoundingBox.INFINITE;
+            box = box.union(geometryBox);
+        }
+        return box;
     }
 
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        // a single slab test rejects the whole group before descending into its geometries
+        if (!getBoundingBox().intersects(ray, maxDistance))
+            return null;
+        if (bvh != null)
+            return bvh.findGeoIntersections(ray, maxDistance);
         LinkedList<GeoPoint> intersections = null;
         for (Intersectable shape : geometries) {
             List<GeoPoint> shapeIntersections = shape.findGeoIntersectionsHelper(ray, maxDistance);
@@ -67,4 +164,95 @@ public class Geometries extends Intersectable{
 //        }
 //        return intersections;
     }
+
+    /**
+     * Finds the closest intersection with the geometries without collecting all the intersections:
+     * each found intersection becomes the maximal distance for the geometries that are tested after it.
+     *
+     * @param hit the record of the closest intersection found so far, updated if a closer one is found
+     * @return true if a closer intersection was found
+     */
+    @Override
+    protected boolean findClosestIntersectionHelper(HitRecord hit) {
+        if (!getBoundingBox().intersects(hit.ray, hit.t))
+            return false;
+        if (bvh != null)
+            return bvh.findClosestIntersection(hit);
+        PrimitiveBatch geometriesBatch = batch();
+        if (geometriesBatch != NO_BATCH)
+            return geometriesBatch.findClosestIntersection(hit, 0, geometriesBatch.shapes.length,
+                    geometriesBatch.kind);
+        boolean found = false;
+        for (Intersectable shape : geometries) {
+            hit.countTest(shape);
+            found |= shape.findClosestIntersectionHelper(hit);
+        }
+        return found;
+    }
+
+    /**
+     * Finds the closest intersections of rays of a packet through the hierarchy (if it was built).
+     * The rays that miss the box of the collection are dropped, and the rest are divided by the signs of
+     * their directions - the rays of the same signs traverse the hierarchy together, in the same order
+     * of the nodes.
+     *
+     * @param packet the packet of the rays, the records of the rays are updated if closer intersections are found
+     * @param mask   the rays of the packet to intersect
+     */
+    @Override
+    protected void findClosestIntersectionsHelper(RayPacket packet, int mask) {
+        if (bvh == null) {
+            super.findClosestIntersectionsHelper(packet, mask);
+            return;
+        }
+        BoundingBox box = getBoundingBox();
+        int active = 0;
+        for (int rays = mask; rays != 0; rays &= rays - 1) {
+            int i = Integer.numberOfTrailingZeros(rays);
+            if (box.intersects(packet.hits[i].ray, packet.hits[i].t))
+                active |= 1 << i;
+        }
+        while (active != 0) {
+            int signs = packet.hits[Integer.numberOfTrailingZeros(active)].ray.getSigns();
+            int group = 0;
+            for (int rays = active; rays != 0; rays &= rays - 1) {
+                int i = Integer.numberOfTrailingZeros(rays);
+                if (packet.hits[i].ray.getSigns() == signs)
+                    group |= 1 << i;
+            }
+            bvh.findClosestIntersections(packet, group, signs);
+            active &= ~group;
+        }
+    }
+
+    /**
+     * Returns the batch of the geometries, creates it on the first call after the geometries changed.
+     *
+     * @return the batch, {@link #NO_BATCH} if the geometries are not all spheres or all triangles
+     */
+    private PrimitiveBatch batch() {
+        PrimitiveBatch current = batch;
+        if (current == null) {
+            current = new PrimitiveBatch(geometries.toArray(new Intersectable[0]));
+            if (current.kind == PrimitiveBatch.MIXED)
+                current = NO_BATCH;
+            batch = current; // a batch has only final fields, so it is safely shared by the threads
+        }
+        return current;
+    }
+
+    @Override
+    protected Double3 findTransparencyHelper(HitRecord hit, Double3 ktr, double minTransparency) {
+        if (!getBoundingBox().intersects(hit.ray, hit.t))
+            return ktr;
+        if (bvh != null)
+            return bvh.findTransparency(hit, ktr, minTransparency);
+        for (Intersectable shape : geometries) {
+            hit.countTest(shape);
+            ktr = shape.findTransparencyHelper(hit, ktr, minTransparency);
+            if (ktr.lowerThan(minTransparency))
+                return ktr;
+        }
+        return ktr;
+    }
 }
@@ -1,6 +1,7 @@
 package geometries;
 
 import primitives.Color;
+import primitives.Double3;
 import primitives.Material;
 import primitives.Point;
 import primitives.Vector;
@@ -69,6 +70,17 @@ public abstract class Geometry extends Intersectable {
         return this;
     }
 
+    /**
+     * An opaque geometry blocks the light completely, so a single intersection is enough
+     * and there is no need to find all of them.
+     */
+    @Override
+    protected Double3 findTransparencyHelper(HitRecord hit, Double3 ktr, double minTransparency) {
+        if (!material.kT.equals(Double3.ZERO))
+            return super.findTransparencyHelper(hit, ktr, minTransparency);
+        return findClosestIntersectionHelper(hit) ? Double3.ZERO : ktr;
+    }
+
     /**
      * Retrieves the normal vector at a given point on the surface of the geometric shape.
      *
@@ -76,4 +88,16 @@ public abstract class Geometry extends Intersectable {
      * @return The normal vector at the specified point.
      */
     public abstract Vector getNormal(Point point);
+
+    /**
+     * Retrieves the normal vector at an intersection recorded by a hit record.
+     * Shapes whose normal depends on more than the point (e.g. the intersected face of a mesh)
+     * override it to use the other details of the record.
+     *
+     * @param hit the record of an intersection with the shape
+     * @return the normal vector at the intersection point
+     */
+    Vector getNormal(HitRecord hit) {
+        return getNormal(hit.getPoint());
+    }
 }
@@ -0,0 +1,506 @@
+package geometries;
+
+import primitives.*;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Binary encoding of geometries, together with their built bounding volume hierarchies.<br/>
+ * The hierarchies (of {@link Geometries} and of {@link Mesh}) are stored as their flat node arrays, so
+ * decoding them is a bulk copy of arrays - nothing is built again. The big arrays are stored as raw
+ * big-endian numbers, so they are copied straight from a (memory mapped) buffer.
+ * <p>
+ * Only the geometries of this package can be encoded. The hierarchy of a collection refers to the
+ * geometries of the collection by their indices.
+ * </p>
+ *
+ * @author Hadar Nagar & Elinoy Damari
+ */
+public final class GeometryCodec {
+    /** Tag of a collection of geometries */
+    private static final byte GEOMETRIES = 0;
+    /** Tag of a sphere */
+    private static final byte SPHERE = 1;
+    /** Tag of a plane */
+    private static final byte PLANE = 2;
+    /** Tag of a triangle */
+    private static final byte TRIANGLE = 3;
+    /** Tag of a polygon */
+    private static final byte POLYGON = 4;
+    /** Tag of a tube */
+    private static final byte TUBE = 5;
+    /** Tag of a cylinder */
+    private static final byte CYLINDER = 6;
+    /** Tag of a mesh */
+    private static final byte MESH = 7;
+    /** Tag of a mesh stored in floats */
+    private static final byte FLOAT_MESH = 8;
+
+    /** Size of the chunks the big arrays are written in */
+    private static final int CHUNK = 1 << 13;
+
+    /** Don't let anyone instantiate this class */
+    private GeometryCodec() {
+    }
+
+    /**
+     * Encodes a geometry (a collection is encoded with all its geometries).
+     *
+     * @param geometry the geometry
+     * @param out      the stream to write to
+     * @throws IOException              if the stream can't be written
+     * @throws IllegalArgumentException if the geometry (or a geometry in it) isn't of this package
+     */
+    public static void write(Intersectable geometry, DataOutputStream out) throws IOException {
+        if (geometry instanceof Geometries geometries) {
+            out.writeByte(GEOMETRIES);
+            out.writeInt(geometries.geometries.size());
+            Map<Intersectable, Integer> indices = new IdentityHashMap<>();
+            int index = 0;
+            for (Intersectable child : geometries.geometries) {
+                indices.putIfAbsent(child, index++);
+                write(child, out);
+            }
+            BVH bvh = geometries.bvh;
+            out.writeBoolean(bvh != null);
+            if (bvh != null) {
+                writeIndices(bvh.shapes, indices, out);
+                writeIndices(bvh.unbounded, indices, out);
+                writeNodes(bvh.nodes, out);
+            }
+            return;
+        }
+
+        switch (geometry) {
+            case Sphere sphere -> {
+                out.writeByte(SPHERE);
+                out.writeDouble(sphere.radius);
+                writePoint(sphere.center, out);
+            }
+            case Plane plane -> {
+                out.writeByte(PLANE);
+                writePoint(plane.q, out);
+                writeVector(plane.normal, out);
+            }
+            case Triangle triangle -> {
+                out.writeByte(TRIANGLE);
+                for (Point vertex : triangle.vertices)
+                    writePoint(vertex, out);
+            }
+            case Polygon polygon -> {
+                out.writeByte(POLYGON);
+                out.writeInt(polygon.vertices.size());
+                for (Point vertex : polygon.vertices)
+                    writePoint(vertex, out);
+            }
+            case Cylinder cylinder -> {
+                out.writeByte(CYLINDER);
+                out.writeDouble(cylinder.height);
+                writeRay(cylinder.axis, out);
+                out.writeDouble(cylinder.radius);
+            }
+            case Tube tube -> {
+                out.writeByte(TUBE);
+                out.writeDouble(tube.radius);
+                writeRay(tube.axis, out);
+            }
+            case Mesh mesh when mesh.isFloatStorage() -> {
+                out.writeByte(FLOAT_MESH);
+                writeFloats(mesh.floatVertices, out);
+                writeInts(mesh.faces, out);
+                writeNodes(mesh.nodes, out);
+                out.writeBoolean(mesh.floatNormals != null);
+                if (mesh.floatNormals != null)
+                    writeFloats(mesh.floatNormals, out);
+            }
+            case Mesh mesh -> {
+                out.writeByte(MESH);
+                writeDoubles(mesh.vertices, out);
+                writeInts(mesh.faces, out);
+                writeNodes(mesh.nodes, out);
+                out.writeBoolean(mesh.normals != null);
+                if (mesh.normals != null)
+                    writeDoubles(mesh.normals, out);
+            }
+            default -> throw new IllegalArgumentException("Can't encode a geometry of " + geometry.getClass().getName());
+        }
+        Geometry shape = (Geometry) geometry;
+        writeColor(shape.getEmission(), out);
+        Material material = shape.getMaterial();
+        writeDouble3(material.kD, out);
+        writeDouble3(material.kS, out);
+        writeDouble3(material.kT, out);
+        writeDouble3(material.kR, out);
+        out.writeInt(material.nShininess);
+    }
+
+    /**
+     * Decodes a geometry that was encoded by {@link #write(Intersectable, DataOutputStream)}.
+     *
+     * @param buffer the buffer to read from (from its position, which is advanced past the geometry)
+     * @return the geometry
+     * @throws IllegalArgumentException if the content isn't of an encoded geometry
+     */
+    public static Intersectable read(ByteBuffer buffer) {
+        try {
+            return readGeometry(buffer);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("The encoded geometries are truncated", e);
+        }
+    }
+
+    /**
+     * Decodes a geometry.
+     *
+     * @param buffer the buffer to read from
+     * @return the geometry
+     */
+    private static Intersectable readGeometry(ByteBuffer buffer) {
+        byte tag = buffer.get();
+        if (tag == GEOMETRIES) {
+            Intersectable[] children = new Intersectable[count(buffer, 1)];
+            for (int i = 0; i < children.length; ++i)
+                children[i] = readGeometry(buffer);
+            Geometries geometries = new Geometries(children);
+            if (buffer.get() != 0) {
+                Intersectable[] shapes = select(children, readInts(buffer));
+                Intersectable[] unbounded = select(children, readInts(buffer));
+                geometries.bvh = new BVH(shapes, unbounded, readNodes(buffer, false));
+            }
+            return geometries;
+        }
+
+        Geometry shape = switch (tag) {
+            case SPHERE -> new Sphere(buffer.getDouble(), readPoint(buffer));
+            case PLANE -> new Plane(readPoint(buffer), readVector(buffer));
+            case TRIANGLE -> new Triangle(readPoint(buffer), readPoint(buffer), readPoint(buffer));
+            case POLYGON -> {
+                Point[] vertices = new Point[count(buffer, 24)];
+                for (int i = 0; i < vertices.length; ++i)
+                    vertices[i] = readPoint(buffer);
+                yield new Polygon(vertices);
+            }
+            case CYLINDER -> new Cylinder(buffer.getDouble(), readRay(buffer), buffer.getDouble());
+            case TUBE -> new Tube(buffer.getDouble(), readRay(buffer));
+            case MESH -> {
+                Mesh mesh = new Mesh(readDoubles(buffer), readInts(buffer), readNodes(buffer, false));
+                if (buffer.get() != 0)
+                    mesh.setVertexNormals(readDoubles(buffer));
+                yield mesh;
+            }
+            case FLOAT_MESH -> {
+                Mesh mesh = new Mesh(readFloats(buffer), readInts(buffer), readNodes(buffer, true));
+                if (buffer.get() != 0)
+                    mesh.setVertexNormals(readFloats(buffer));
+                yield mesh;
+            }
+            default -> throw new IllegalArgumentException("Unknown geometry tag " + tag);
+        };
+        shape.setEmission(readColor(buffer));
+        shape.setMaterial(new Material()
+                .setKd(readDouble3(buffer))
+                .setKs(readDouble3(buffer))
+                .setKT(readDouble3(buffer))
+                .setKR(readDouble3(buffer))
+                .setNShininess(buffer.getInt()));
+        return shape;
+    }
+
+    /**
+     * Encodes a point.
+     *
+     * @param point the point
+     * @param out   the stream to write to
+     * @throws IOException if the stream can't be written
+     */
+    public static void writePoint(Point point, DataOutputStream out) throws IOException {
+        out.writeDouble(point.getX());
+        out.writeDouble(point.getY());
+        out.writeDouble(point.getZ());
+    }
+
+    /**
+     * Decodes a point.
+     *
+     * @param buffer the buffer to read from
+     * @return the point
+     */
+    public static Point readPoint(ByteBuffer buffer) {
+        return new Point(buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+    }
+
+    /**
+     * Encodes a vector.
+     *
+     * @param vector the vector
+     * @param out    the stream to write to
+     * @throws IOException if the stream can't be written
+     */
+    public static void writeVector(Vector vector, DataOutputStream out) throws IOException {
+        writePoint(vector, out);
+    }
+
+    /**
+     * Decodes a vector.
+     *
+     * @param buffer the buffer to read from
+     * @return the vector
+     * @throws IllegalArgumentException if the encoded vector is the zero vector
+     */
+    public static Vector readVector(ByteBuffer buffer) {
+        return new Vector(buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+    }
+
+    /**
+     * Encodes a color (its exact components).
+     *
+     * @param color the color
+     * @param out   the stream to write to
+     * @throws IOException if the stream can't be written
+     */
+    public static void writeColor(Color color, DataOutputStream out) throws IOException {
+        writeDouble3(color.getRgb(), out);
+    }
+
+    /**
+     * Decodes a color.
+     *
+     * @param buffer the buffer to read from
+     * @return the color
+     * @throws IllegalArgumentException if a component is negative
+     */
+    public static Color readColor(ByteBuffer buffer) {
+        return new Color(buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+    }
+
+    /**
+     * Encodes a triad of numbers.
+     *
+     * @param numbers the numbers
+     * @param out     the stream to write to
+     * @throws IOException if the stream can't be written
+     */
+    private static void writeDouble3(Double3 numbers, DataOutputStream out) throws IOException {
+        out.writeDouble(numbers.getD1());
+        out.writeDouble(numbers.getD2());
+        out.writeDouble(numbers.getD3());
+    }
+
+    /**
+     * Decodes a triad of numbers.
+     *
+     * @param buffer the buffer to read from
+     * @return the numbers
+     */
+    private static Double3 readDouble3(ByteBuffer buffer) {
+        return new Double3(buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+    }
+
+    /**
+     * Encodes a ray.
+     *
+     * @param ray the ray
+     * @param out the stream to write to
+     * @throws IOException if the stream can't be written
+     */
+    private static void writeRay(Ray ray, DataOutputStream out) throws IOException {
+        writePoint(ray.getHead(), out);
+        writeVector(ray.getDirection(), out);
+    }
+
+    /**
+     * Decodes a ray.
+     *
+     * @param buffer the buffer to read from
+     * @return the ray
+     */
+    private static Ray readRay(ByteBuffer buffer) {
+        return Ray.ofUnit(readPoint(buffer), readVector(buffer)); // the encoded direction is normalized
+    }
+
+    /**
+     * Encodes the nodes of a hierarchy, with their boxes as they are stored (doubles or floats).
+     *
+     * @param nodes the nodes
+     * @param out   the stream to write to
+     * @throws IOException if the stream can't be written
+     */
+    private static void writeNodes(BVHNodes nodes, DataOutputStream out) throws IOException {
+        if (nodes.bounds != null)
+            writeDoubles(nodes.bounds, out);
+        else
+            writeFloats(nodes.floatBounds, out);
+        writeInts(nodes.offsets, out);
+        writeInts(nodes.counts, out);
+        out.writeInt(nodes.axes.length);
+        out.write(nodes.axes);
+        writeInts(nodes.order, out);
+    }
+
+    /**
+     * Decodes the nodes of a hierarchy.
+     *
+     * @param buffer the buffer to read from
+     * @param floats  whether the boxes of the nodes are stored as floats
+     * @return the nodes
+     */
+    private static BVHNodes readNodes(ByteBuffer buffer, boolean floats) {
+        double[] bounds = floats ? null : readDoubles(buffer);
+        float[] floatBounds = floats ? readFloats(buffer) : null;
+        int[] offsets = readInts(buffer);
+        int[] counts = readInts(buffer);
+        byte[] axes = new byte[count(buffer, 1)];
+        buffer.get(axes);
+        int[] order = readInts(buffer);
+        return floats ? new BVHNodes(floatBounds, offsets, counts, axes, order)
+                : new BVHNodes(bounds, offsets, counts, axes, order);
+    }
+
+    /**
+     * Encodes shapes by their indices in their collection.
+     *
+     * @param shapes  the shapes
+     * @param indices the indices of the geometries of the collection
+     * @param out     the stream to write to
+     * @throws IOException if the stream can't be written
+     */
+    private static void writeIndices(Intersectable[] shapes, Map<Intersectable, Integer> indices,
+                                     DataOutputStream out) throws IOException {
+        int[] values = new int[shapes.length];
+        for (int i = 0; i < shapes.length; ++i)
+            values[i] = indices.get(shapes[i]);
+        writeInts(values, out);
+    }
+
+    /**
+     * Selects geometries of a collection by their indices.
+     *
+     * @param geometries the geometries of the collection
+     * @param indices    the indices
+     * @return the selected geometries
+     * @throws IllegalArgumentException if an index isn't of a geometry of the collection
+     */
+    private static Intersectable[] select(Intersectable[] geometries, int[] indices) {
+        Intersectable[] selected = new Intersectable[indices.length];
+        for (int i = 0; i < indices.length; ++i) {
+            if (indices[i] < 0 || indices[i] >= geometries.length)
+                throw new IllegalArgumentException("Missing geometry " + indices[i]);
+            selected[i] = geometries[indices[i]];
+        }
+        return selected;
+    }
+
+    /**
+     * Encodes an array of numbers - its length and then its numbers.
+     *
+     * @param values the numbers
+     * @param out    the stream to write to
+     * @throws IOException if the stream can't be written
+     */
+    private static void writeDoubles(double[] values, DataOutputStream out) throws IOException {
+        out.writeInt(values.length);
+        ByteBuffer chunk = ByteBuffer.allocate(CHUNK);
+        for (int from = 0; from < values.length; from += CHUNK / Double.BYTES) {
+            int length = Math.min(CHUNK / Double.BYTES, values.length - from);
+            chunk.clear();
+            chunk.asDoubleBuffer().put(values, from, length);
+            out.write(chunk.array(), 0, length * Double.BYTES);
+        }
+    }
+
+    /**
+     * Decodes an array of numbers.
+     *
+     * @param buffer the buffer to read from
+     * @return the numbers
+     */
+    private static double[] readDoubles(ByteBuffer buffer) {
+        double[] values = new double[count(buffer, Double.BYTES)];
+        buffer.asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + values.length * Double.BYTES);
+        return values;
+    }
+
+    /**
+     * Encodes an array of floats - its length and then its floats.
+     *
+     * @param values the floats
+     * @param out    the stream to write to
+     * @throws IOException if the stream can't be written
+     */
+    private static void writeFloats(float[] values, DataOutputStream out) throws IOException {
+        out.writeInt(values.length);
+        ByteBuffer chunk = ByteBuffer.allocate(CHUNK);
+        for (int from = 0; from < values.length; from += CHUNK / Float.BYTES) {
+            int length = Math.min(CHUNK / Float.BYTES, values.length - from);
+            chunk.clear();
+            chunk.asFloatBuffer().put(values, from, length);
+            out.write(chunk.array(), 0, length * Float.BYTES);
+        }
+    }
+
+    /**
+     * Decodes an array of floats.
+     *
+     * @param buffer the buffer to read from
+     * @return the floats
+     */
+    private static float[] readFloats(ByteBuffer buffer) {
+        float[] values = new float[count(buffer, Float.BYTES)];
+        buffer.asFloatBuffer().get(values);
+        buffer.position(buffer.position() + values.length * Float.BYTES);
+        return values;
+    }
+
+    /**
+     * Encodes an array of integers - its length and then its integers.
+     *
+     * @param values the integers
+     * @param out    the stream to write to
+     * @throws IOException if the stream can't be written
+     */
+    private static void writeInts(int[] values, DataOutputStream out) throws IOException {
+        out.writeInt(values.length);
+        ByteBuffer chunk = ByteBuffer.allocate(CHUNK);
+        for (int from = 0; from < values.length; from += CHUNK / Integer.BYTES) {
+            int length = Math.min(CHUNK / Integer.BYTES, values.length - from);
+            chunk.clear();
+            chunk.asIntBuffer().put(values, from, length);
+            out.write(chunk.array(), 0, length * Integer.BYTES);
+        }
+    }
+
+    /**
+     * Decodes an array of integers.
+     *
+     * @param buffer the buffer to read from
+     * @return the integers
+     */
+    private static int[] readInts(ByteBuffer buffer) {
+        int[] values = new int[count(buffer, Integer.BYTES)];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + values.length * Integer.BYTES);
+        return values;
+    }
+
+    /**
+     * Reads an amount of elements and checks the buffer has enough bytes for them, so a corrupted amount
+     * can't allocate a huge array.
+     *
+     * @param buffer the buffer to read from
+     * @param size   the least amount of bytes of an element
+     * @return the amount
+     * @throws IllegalArgumentException if the amount is negative or the buffer is too short for it
+     */
+    private static int count(ByteBuffer buffer, int size) {
+        int count = buffer.getInt();
+        if (count < 0 || (long) count * size > buffer.remaining())
+            throw new IllegalArgumentException("Illegal amount " + count);
+        return count;
+    }
+}
@@ -0,0 +1,324 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import geometries.Intersectable.GeoPoint;
+
+import static primitives.Util.alignZero;
+
+/**
+ * Mutable record of the closest intersection found so far along a ray.
+ * The intersection routines fill the record instead of returning lists of points, so a discarded
+ * intersection costs nothing but a few numbers. The point and the normal of the intersection are
+ * calculated only on demand (once the final intersection is known).
+ * <p>
+ * A record is meant to be reused - each thread has its own record (see {@link #local()}).
+ * The record must not be kept by the caller after the query returns, use {@link #toGeoPoint()} instead.
+ * </p>
+ *
+ * @author Hadar Nagar & Elinoy Damari
+ */
+public final class HitRecord {
+
+    /** The record of each thread */
+    private static final ThreadLocal<HitRecord> LOCAL = ThreadLocal.withInitial(HitRecord::new);
+
+    /** Initial size of the traversal stack */
+    private static final int STACK_SIZE = 64;
+    /** Initial size of the arrays of a batch of primitives */
+    private static final int BATCH_SIZE = 16;
+
+    /** The intersected ray */
+    Ray ray;
+    /**
+     * Distance of the intersection from the ray's head - during the search it is
+     * the maximal distance of a closer intersection
+     */
+    double t;
+    /** The intersected geometry, null if no intersection was found */
+    Geometry geometry;
+
+    /**
+     * Barycentric coordinates of the intersection with a triangle - the weights of its second and
+     * third vertices (the weight of the first one is 1-u-v)
+     */
+    private double u, v;
+    /** Index of the intersected face of a mesh (in the internal order of its faces) */
+    int face;
+
+    /** The intersection point, null until it is calculated */
+    private Point point;
+    /** The normal at the intersection point, null until it is calculated */
+    private Vector normal;
+
+    /** Stack of nodes for the traversal of spatial indices (shared by nested indices) */
+    private int[] stack = new int[STACK_SIZE];
+    /** Amount of the nodes in the stack */
+    private int stackSize = 0;
+
+    /** Distances found by a batch of primitives (see {@link PrimitiveBatch}) */
+    private double[] batchT = new double[BATCH_SIZE];
+    /** Barycentric coordinates found by a batch of triangles */
+    double[] batchU = new double[BATCH_SIZE], batchV = new double[BATCH_SIZE];
+
+    /** Counters of the intersection tests by the type of the tested geometry, null if the tests aren't counted */
+    private Map<Class<? extends Intersectable>, long[]> tests = null;
+
+    /**
+     * Returns the record of the current thread.
+     *
+     * @return the thread's record
+     */
+    public static HitRecord local() {
+        return LOCAL.get();
+    }
+
+    /**
+     * Prepares the record for a new search.
+     *
+     * @param ray         the ray to search intersections along
+     * @param maxDistance the maximal distance from the ray's head
+     * @return the record itself
+     */
+    public HitRecord reset(Ray ray, double maxDistance) {
+        this.ray = ray;
+        this.t = maxDistance;
+        geometry = null;
+        point = null;
+        normal = null;
+        stackSize = 0;
+        return this;
+    }
+
+    /**
+     * Records an intersection if it is in front of the ray's head and closer than the current one.
+     *
+     * @param t        distance of the intersection from the ray's head
+     * @param geometry the intersected geometry
+     * @return true if the intersection was recorded
+     */
+    public boolean update(double t, Geometry geometry) {
+        if (t <= 0 || alignZero(t - this.t) >= 0)
+            return false;
+        this.t = t;
+        this.geometry = geometry;
+        point = null;
+        normal = null;
+        return true;
+    }
+
+    /**
+     * Records an intersection with an already known point if it is closer than the current one.
+     *
+     * @param t        distance of the intersection from the ray's head
+     * @param geometry the intersected geometry
+     * @param point    the intersection point
+     * @return true if the intersection was recorded
+     */
+    boolean update(double t, Geometry geometry, Point point) {
+        if (!update(t, geometry))
+            return false;
+        this.point = point;
+        return true;
+    }
+
+    /**
+     * Sets the barycentric coordinates of the intersection with a triangle which is about to be recorded.
+     *
+     * @param u the weight of the second vertex of the triangle
+     * @param v the weight of the third vertex of the triangle
+     */
+    void setBarycentric(double u, double v) {
+        this.u = u;
+        this.v = v;
+    }
+
+    /**
+     * Returns the weight of the second vertex of the intersected triangle at the intersection point.
+     *
+     * @return the barycentric coordinate, meaningless if the intersected geometry isn't a triangle
+     */
+    public double getU() {
+        return u;
+    }
+
+    /**
+     * Returns the weight of the third vertex of the intersected triangle at the intersection point.
+     *
+     * @return the barycentric coordinate, meaningless if the intersected geometry isn't a triangle
+     */
+    public double getV() {
+        return v;
+    }
+
+    /**
+     * Checks whether an intersection was recorded.
+     *
+     * @return true if an intersection was found
+     */
+    public boolean isFound() {
+        return geometry != null;
+    }
+
+    /**
+     * Returns the distance of the recorded intersection from the ray's head.
+     *
+     * @return the distance
+     */
+    public double getT() {
+        return t;
+    }
+
+    /**
+     * Returns the intersected geometry.
+     *
+     * @return the geometry, null if no intersection was found
+     */
+    public Geometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Returns the intersection point, calculates it on the first call.
+     *
+     * @return the intersection point
+     */
+    public Point getPoint() {
+        if (point == null)
+            point = ray.getPoint(t);
+        return point;
+    }
+
+    /**
+     * Returns the normal at the intersection point, calculates it on the first call.
+     *
+     * @return the normal
+     */
+    public Vector getNormal() {
+        if (normal == null)
+            normal = geometry.getNormal(this);
+        return normal;
+    }
+
+    /**
+     * Creates an independent GeoPoint of the recorded intersection.
+     *
+     * @return the GeoPoint, null if no intersection was found
+     */
+    public GeoPoint toGeoPoint() {
+        // the normal of a mesh depends on the intersected face, which the GeoPoint doesn't keep
+        return geometry == null ? null
+                : new GeoPoint(geometry, getPoint(), geometry instanceof Mesh ? getNormal() : normal);
+    }
+
+    /**
+     * Returns the array of the distances of a batch of primitives, and makes sure the arrays of the
+     * batch are large enough (with the padding of {@link PrimitiveBatch#PADDING}).
+     *
+     * @param size the amount of the primitives in the batch
+     * @return the array of the distances
+     */
+    double[] batchDistances(int size) {
+        if (batchT.length < size + PrimitiveBatch.PADDING) {
+            batchT = new double[size + PrimitiveBatch.PADDING];
+            batchU = new double[size + PrimitiveBatch.PADDING];
+            batchV = new double[size + PrimitiveBatch.PADDING];
+        }
+        return batchT;
+    }
+
+    /**
+     * Marks the current top of the traversal stack, nodes below it belong to an outer traversal.
+     *
+     * @return the current size of the stack
+     */
+    int stackBase() {
+        return stackSize;
+    }
+
+    /**
+     * Pushes a node to the traversal stack.
+     *
+     * @param node the node
+     */
+    void push(int node) {
+        if (stackSize == stack.length)
+            stack = Arrays.copyOf(stack, 2 * stackSize);
+        stack[stackSize++] = node;
+    }
+
+    /**
+     * Pops a node of the traversal stack, the stack must not be empty.
+     *
+     * @return the node
+     */
+    int pop() {
+        return stack[--stackSize];
+    }
+
+    /**
+     * Checks whether there are nodes above a given base of the stack.
+     *
+     * @param base the base of the stack
+     * @return true if there are nodes above the base
+     */
+    boolean hasNodes(int base) {
+        return stackSize > base;
+    }
+
+    /**
+     * Drops the nodes above a given base of the stack (when a traversal stops early).
+     *
+     * @param base the base of the stack
+     */
+    void dropNodes(int base) {
+        stackSize = base;
+    }
+
+    /**
+     * Turns the counting of the intersection tests (by the type of the tested geometry) on or off.
+     * The counters belong to the record, so the threads count their tests without synchronization.
+     *
+     * @param counting true to count the intersection tests
+     */
+    public void setCountingTests(boolean counting) {
+        if (!counting)
+            tests = null;
+        else if (tests == null)
+            tests = new IdentityHashMap<>();
+    }
+
+    /**
+     * Counts an intersection test of a geometry (collections of geometries are not counted).
+     *
+     * @param shape the tested geometry
+     */
+    void countTest(Intersectable shape) {
+        if (tests != null && !(shape instanceof Geometries))
+            ++tests.computeIfAbsent(shape.getClass(), type -> new long[1])[0];
+    }
+
+    /**
+     * Passes the counted intersection tests to an action and resets the counters.
+     *
+     * @param action action receiving the type of the geometries and the amount of their tests
+     */
+    public void drainTests(BiConsumer<Class<? extends Intersectable>, Long> action) {
+        if (tests == null)
+            return;
+        for (Map.Entry<Class<? extends Intersectable>, long[]> entry : tests.entrySet()) {
+            long[] count = entry.getValue();
+            if (count[0] != 0) {
+                action.accept(entry.getKey(), count[0]);
+                count[0] = 0;
+            }
+        }
+    }
+}
@@ -17,6 +17,10 @@ import java.util.Objects;
  */
 public abstract class Intersectable {
 
+    /**
+     * The bounding box of the shape, calculated on first demand
+     */
+    private BoundingBox boundingBox = null;
 
     /**
      * Inner class representing a geometric point of intersection.
@@ -31,6 +35,10 @@ public abstract class Intersectable {
          * The point of intersection.
          */
         public Point point;
+        /**
+         * The normal at the point of intersection, null until it is calculated.
+         */
+        private Vector normal;
 
         /**
          * Constructs a GeoPoint with the specified geometry and point.
@@ -43,6 +51,31 @@ public abstract class Intersectable {
             this.point = point;
         }
 
+        /**
+         * Constructs a GeoPoint with the specified geometry, point and (already known) normal.
+         *
+         * @param geometry the geometry that is intersected
+         * @param point    the point of intersection
+         * @param normal   the normal at the point, or null if it is not known yet
+         */
+        GeoPoint(Geometry geometry, Point point, Vector normal) {
+            this.geometry = geometry;
+            this.point = point;
+            this.normal = normal;
+        }
+
+        /**
+         * Returns the normal of the geometry at the point of intersection.
+         * The normal is calculated on the first call and kept for the next calls.
+         *
+         * @return the normal at the point
+         */
+        public Vector getNormal() {
+            if (normal == null)
+                normal = geometry.getNormal(point);
+            return normal;
+        }
+
         /**
          * Checks whether this GeoPoint is equal to another object.
          *
@@ -95,6 +128,70 @@ public abstract class Intersectable {
      */
     abstract protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance);
 
+    /**
+     * Any-hit query for shadow rays - calculates the transparency coefficient of the shapes between
+     * the ray's head and a given distance (the product of the kT of all the intersected geometries).
+     * The search stops as soon as the product becomes lower than the given minimum, e.g. when an opaque
+     * geometry is hit.
+     *
+     * @param ray             the shadow ray
+     * @param maxDistance     the maximal distance from the ray's head (the distance of the light source)
+     * @param minTransparency the transparency below which the search stops
+     * @return the transparency coefficient, lower than the minimum if the search stopped early
+     */
+    public final Double3 findTransparency(Ray ray, double maxDistance, double minTransparency) {
+        return findTransparencyHelper(HitRecord.local().reset(ray, maxDistance), Double3.ONE, minTransparency);
+    }
+
+    /**
+     * Helper method of the any-hit query - multiplies the transparency accumulated so far by the kT
+     * of each intersection with the shape.
+     *
+     * @param hit             record of the shadow ray and the distance of the light source,
+     *                        it is updated only when the light is blocked completely
+     * @param ktr             the transparency accumulated so far
+     * @param minTransparency the transparency below which the search stops
+     * @return the accumulated transparency
+     */
+    protected Double3 findTransparencyHelper(HitRecord hit, Double3 ktr, double minTransparency) {
+        List<GeoPoint> intersections = findGeoIntersectionsHelper(hit.ray, hit.t);
+        if (intersections == null)
+            return ktr;
+        for (GeoPoint intersection : intersections) {
+            ktr = ktr.product(intersection.geometry.getMaterial().kT);
+            if (ktr.lowerThan(minTransparency))
+                return ktr;
+        }
+        return ktr;
+    }
+
+    /**
+     * Returns the axis aligned bounding box of the shape.
+     * The box is calculated on the first call and kept for the next calls.
+     *
+     * @return the bounding box of the shape, {@link BoundingBox#INFINITE} if the shape is not bounded
+     */
+    public final BoundingBox getBoundingBox() {
+        if (boundingBox == null)
+            boundingBox = calcBoundingBox();
+        return boundingBox;
+    }
+
+    /**
+     * Drops the kept bounding box, so it will be recalculated on the next demand.
+     * Should be called by shapes that are changed after their creation.
+     */
+    void resetBoundingBox() {
+        boundingBox = null;
+    }
+
+    /**
+     * Calculates the axis aligned bounding box of the shape.
+     *
+     * @return the bounding box of the shape, {@link BoundingBox#INFINITE} if the shape is not bounded
+     */
+    protected abstract BoundingBox calcBoundingBox();
+
 
     /**
      * Finds the intersections of a ray with the shape.
@@ -115,9 +212,74 @@ public abstract class Intersectable {
      * @param ray the given ray
      * @return the point and its geometry, null if there is no such point
      */
-    public GeoPoint findClosestIntersection(Ray ray) {
-        List<GeoPoint> intersections = findGeoIntersections(ray);
-        return intersections == null ? null : ray.findClosestGeoPoint(intersections);
+    public final GeoPoint findClosestIntersection(Ray ray) {
+        return findClosestIntersection(ray, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * finds the closest intersection point to a given ray, which is closer than a given distance
+     *
+     * @param ray         the given ray
+     * @param maxDistance the maximal distance from the ray's head
+     * @return the point and its geometry, null if there is no such point
+     */
+    public final GeoPoint findClosestIntersection(Ray ray, double maxDistance) {
+        HitRecord hit = HitRecord.local().reset(ray, maxDistance);
+        return findClosestIntersectionHelper(hit) ? hit.toGeoPoint() : null;
+    }
+
+    /**
+     * Finds the closest intersection of the record's ray with the shape, which is closer than
+     * the distance in the record, and fills the record with it.
+     *
+     * @param hit the record, prepared by {@link HitRecord#reset(Ray, double)}
+     * @return true if a closer intersection was found
+     */
+    public final boolean findClosestIntersection(HitRecord hit) {
+        return findClosestIntersectionHelper(hit);
+    }
+
+    /**
+     * Finds the closest intersections of all the rays of a packet with the shape, each one is recorded
+     * in the record of its ray (see {@link RayPacket#get(int)}). The intersections are the same as the
+     * ones {@link #findClosestIntersection(HitRecord)} finds ray by ray.
+     *
+     * @param packet the packet of the rays
+     */
+    public final void findClosestIntersections(RayPacket packet) {
+        findClosestIntersectionsHelper(packet, packet.allRays());
+    }
+
+    /**
+     * Helper method to find the closest intersections of rays of a packet with the shape.
+     * The default implementation finds the intersection of each ray alone, collections of shapes
+     * override it to traverse their hierarchy with the whole packet.
+     *
+     * @param packet the packet of the rays, the records of the rays are updated if closer intersections are found
+     * @param mask   the rays of the packet to intersect - bit i stands for the i-th ray
+     */
+    protected void findClosestIntersectionsHelper(RayPacket packet, int mask) {
+        for (int rays = mask; rays != 0; rays &= rays - 1)
+            findClosestIntersectionHelper(packet.hits[Integer.numberOfTrailingZeros(rays)]);
+    }
+
+    /**
+     * Helper method to find the closest intersection of a ray with the shape.
+     * The default implementation picks the closest point of all the intersections,
+     * shapes (and collections of shapes) should override it to avoid building the list.
+     *
+     * @param hit the record of the closest intersection found so far, updated if a closer one is found
+     * @return true if a closer intersection was found
+     */
+    protected boolean findClosestIntersectionHelper(HitRecord hit) {
+        List<GeoPoint> intersections = findGeoIntersectionsHelper(hit.ray, hit.t);
+        if (intersections == null)
+            return false;
+        Point head = hit.ray.getHead();
+        boolean found = false;
+        for (GeoPoint intersection : intersections)
+            found |= hit.update(intersection.point.distance(head), intersection.geometry, intersection.point);
+        return found;
     }
 
 }
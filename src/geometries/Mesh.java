@@ -0,0 +1,650 @@
+package geometries;
+
+import primitives.Double3;
+import primitives.MutableVector;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.IntToDoubleFunction;
+
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
+/**
+ * Indexed triangle mesh - a geometry of many triangles sharing their vertices.<br/>
+ * The vertices are stored in a flat array of coordinates and the faces in a flat array of vertex
+ * indices, so a face costs 3 integers instead of the objects of a {@link Triangle}. The faces are
+ * indexed by an internal bounding volume hierarchy, so a mesh of millions of triangles is intersected
+ * in about logarithmic time. All the faces share the material and the emission of the mesh.
+ * <p>
+ * The normals are the normals of the faces, or - if vertex normals are given - interpolated
+ * by the barycentric coordinates of the intersection (smooth shading).
+ * Like {@link Triangle}, the edges and the vertices of the faces are not intersected.
+ * </p>
+ * <p>
+ * For memory-bound scenes the mesh may be stored in floats (see {@link #Mesh(float[], int[])} and
+ * {@link #toFloatStorage()}): the vertices, the vertex normals and the boxes of the hierarchy take half
+ * the memory and the memory bandwidth. The faces of such a mesh are intersected by the watertight test
+ * of Woop, Benthin and Wald, which includes the edges and the vertices of the faces, so no ray slips
+ * between adjacent faces whatever the rounding of their shared vertices.
+ * </p>
+ *
+ * @author Hadar Nagar & Elinoy Damari
+ */
+public class Mesh extends Geometry {
+    /** Coordinates of the vertices - x,y,z of each vertex, null if they are stored as floats */
+    final double[] vertices;
+    /** Coordinates of the vertices stored as floats, null if they are stored as doubles */
+    final float[] floatVertices;
+    /** Indices of the vertices of the faces - 3 per face, in the order of the leaves of the hierarchy */
+    final int[] faces;
+    /** Normals of the vertices - x,y,z of each vertex, null for the normals of the faces (or float normals) */
+    double[] normals = null;
+    /** Normals of the vertices of a mesh stored as floats, null for the normals of the faces */
+    float[] floatNormals = null;
+
+    /** The hierarchy of the faces */
+    final BVHNodes nodes;
+
+    /**
+     * Constructs a mesh. The vertices array is kept by the mesh (not copied), so it must not be
+     * changed afterwards.
+     *
+     * @param vertices coordinates of the vertices - x,y,z of each vertex
+     * @param faces    indices of the vertices of the faces - 3 per face, counterclockwise (the
+     *                 normal of a face points to the side its vertices are seen counterclockwise from)
+     * @throws IllegalArgumentException if the arrays are not of whole vertices and faces or a face
+     *                                  refers to a missing vertex
+     */
+    public Mesh(double[] vertices, int[] faces) {
+        this(vertices, null, vertices.length, faces);
+    }
+
+    /**
+     * Constructs a mesh stored in floats (see the class's documentation). The vertices array is kept by
+     * the mesh (not copied), so it must not be changed afterwards.
+     *
+     * @param vertices coordinates of the vertices - x,y,z of each vertex
+     * @param faces    indices of the vertices of the faces - 3 per face, counterclockwise
+     * @throws IllegalArgumentException if the arrays are not of whole vertices and faces or a face
+     *                                  refers to a missing vertex
+     */
+    public Mesh(float[] vertices, int[] faces) {
+        this(null, vertices, vertices.length, faces);
+    }
+
+    /**
+     * Constructs a mesh of the vertices of either storage and builds its hierarchy.
+     *
+     * @param vertices       coordinates of the vertices, null if they are stored as floats
+     * @param floatVertices  coordinates of the vertices stored as floats, null if they are stored as doubles
+     * @param verticesLength the amount of the coordinates of the vertices
+     * @param faces          indices of the vertices of the faces - 3 per face
+     */
+    private Mesh(double[] vertices, float[] floatVertices, int verticesLength, int[] faces) {
+        if (verticesLength % 3 != 0)
+            throw new IllegalArgumentException("The vertices must have 3 coordinates each");
+        if (faces.length % 3 != 0)
+            throw new IllegalArgumentException("The faces must have 3 vertices each");
+        int verticesCount = verticesLength / 3;
+        for (int index : faces)
+            if (index < 0 || index >= verticesCount)
+                throw new IllegalArgumentException("A face refers to a missing vertex " + index);
+        this.vertices = vertices;
+        this.floatVertices = floatVertices;
+
+        int n = faces.length / 3;
+        double[] boxes = faceBoxes(faces, this::coordinate);
+        BVHNodes hierarchy = new BVHNodes(boxes, n);
+        // the build reorders the boxes to the order of the leaves
+        nodes = floatVertices == null ? hierarchy : hierarchy.toFloatBounds(boxes);
+        this.faces = new int[faces.length];
+        for (int f = 0; f < n; ++f)
+            System.arraycopy(faces, 3 * nodes.order[f], this.faces, 3 * f, 3);
+    }
+
+    /**
+     * Restores a mesh whose hierarchy was built before (e.g. read from a file), without building it again.
+     * The arrays are kept by the mesh (not copied).
+     *
+     * @param vertices coordinates of the vertices - x,y,z of each vertex
+     * @param faces    indices of the vertices of the faces - 3 per face, in the order of the leaves of the nodes
+     * @param nodes    the hierarchy of the faces
+     * @throws IllegalArgumentException if the arrays are not of whole vertices and faces, a face refers to
+     *                                  a missing vertex or the nodes are not of the faces
+     */
+    Mesh(double[] vertices, int[] faces, BVHNodes nodes) {
+        this(vertices, null, vertices.length, faces, nodes);
+    }
+
+    /**
+     * Restores a mesh stored in floats whose hierarchy was built before (see {@link #Mesh(double[], int[], BVHNodes)}).
+     *
+     * @param vertices coordinates of the vertices - x,y,z of each vertex
+     * @param faces    indices of the vertices of the faces - 3 per face, in the order of the leaves of the nodes
+     * @param nodes    the hierarchy of the faces, its boxes must contain the faces of the float vertices
+     * @throws IllegalArgumentException if the arrays are not of whole vertices and faces, a face refers to
+     *                                  a missing vertex or the nodes are not of the faces
+     */
+    Mesh(float[] vertices, int[] faces, BVHNodes nodes) {
+        this(null, vertices, vertices.length, faces, nodes);
+    }
+
+    /**
+     * Restores a mesh of the vertices of either storage.
+     *
+     * @param vertices       coordinates of the vertices, null if they are stored as floats
+     * @param floatVertices  coordinates of the vertices stored as floats, null if they are stored as doubles
+     * @param verticesLength the amount of the coordinates of the vertices
+     * @param faces          indices of the vertices of the faces - 3 per face, in the order of the leaves of the nodes
+     * @param nodes          the hierarchy of the faces
+     */
+    private Mesh(double[] vertices, float[] floatVertices, int verticesLength, int[] faces, BVHNodes nodes) {
+        if (verticesLength % 3 != 0 || faces.length % 3 != 0)
+            throw new IllegalArgumentException("The vertices and the faces must have 3 numbers each");
+        int verticesCount = verticesLength / 3;
+        for (int index : faces)
+            if (index < 0 || index >= verticesCount)
+                throw new IllegalArgumentException("A face refers to a missing vertex " + index);
+        if (nodes.order.length != faces.length / 3)
+            throw new IllegalArgumentException("The nodes must be of the faces");
+        this.vertices = vertices;
+        this.floatVertices = floatVertices;
+        this.faces = faces;
+        this.nodes = nodes;
+    }
+
+    /**
+     * Calculates the boxes of faces, padded like the boxes of the geometries.
+     *
+     * @param faces      indices of the vertices of the faces - 3 per face
+     * @param coordinate the coordinates of the vertices by their indices
+     * @return the boxes - 6 numbers per face: min x,y,z then max x,y,z
+     */
+    private static double[] faceBoxes(int[] faces, IntToDoubleFunction coordinate) {
+        int n = faces.length / 3;
+        double[] boxes = new double[6 * n];
+        for (int f = 0; f < n; ++f)
+            for (int axis = 0; axis < 3; ++axis) {
+                double a = coordinate.applyAsDouble(3 * faces[3 * f] + axis);
+                double b = coordinate.applyAsDouble(3 * faces[3 * f + 1] + axis);
+                double c = coordinate.applyAsDouble(3 * faces[3 * f + 2] + axis);
+                boxes[6 * f + axis] = Math.min(a, Math.min(b, c)) - BoundingBox.PADDING;
+                boxes[6 * f + 3 + axis] = Math.max(a, Math.max(b, c)) + BoundingBox.PADDING;
+            }
+        return boxes;
+    }
+
+    /**
+     * Creates a copy of the mesh stored in floats (see the class's documentation), of the same faces,
+     * vertex normals, material and emission. The hierarchy isn't built again - its boxes are refitted
+     * to the rounded vertices.
+     *
+     * @return the copy, or the mesh itself if it is already stored in floats
+     */
+    public Mesh toFloatStorage() {
+        if (floatVertices != null)
+            return this;
+        float[] floats = toFloats(vertices);
+        Mesh mesh = new Mesh(floats, faces, nodes.toFloatBounds(faceBoxes(faces, i -> floats[i])));
+        if (normals != null)
+            mesh.floatNormals = toFloats(normals);
+        mesh.setEmission(getEmission()).setMaterial(getMaterial());
+        return mesh;
+    }
+
+    /**
+     * Rounds numbers to floats.
+     *
+     * @param numbers the numbers
+     * @return the rounded numbers
+     */
+    private static float[] toFloats(double[] numbers) {
+        float[] floats = new float[numbers.length];
+        for (int i = 0; i < numbers.length; ++i)
+            floats[i] = (float) numbers[i];
+        return floats;
+    }
+
+    /**
+     * Checks whether the mesh is stored in floats.
+     *
+     * @return true if the vertices, the normals and the boxes of the hierarchy are stored as floats
+     */
+    public boolean isFloatStorage() {
+        return floatVertices != null;
+    }
+
+    /**
+     * Sets the normals of the vertices, for smooth shading. The array is kept by the mesh (not copied),
+     * unless the mesh is stored in floats - then it is rounded to floats.
+     *
+     * @param normals the normals - x,y,z of each vertex, null for the normals of the faces
+     * @return the mesh itself
+     * @throws IllegalArgumentException if there isn't a normal for each vertex
+     */
+    public Mesh setVertexNormals(double[] normals) {
+        if (normals != null && normals.length != 3 * getVerticesCount())
+            throw new IllegalArgumentException("There must be a normal for each vertex");
+        if (floatVertices != null) {
+            this.floatNormals = normals == null ? null : toFloats(normals);
+            return this;
+        }
+        this.normals = normals;
+        return this;
+    }
+
+    /**
+     * Sets the normals of the vertices of a mesh stored in floats. The array is kept by the mesh (not copied).
+     *
+     * @param normals the normals - x,y,z of each vertex, null for the normals of the faces
+     * @throws IllegalArgumentException if the mesh isn't stored in floats or there isn't a normal for each vertex
+     */
+    void setVertexNormals(float[] normals) {
+        if (floatVertices == null)
+            throw new IllegalArgumentException("The mesh is not stored in floats");
+        if (normals != null && normals.length != floatVertices.length)
+            throw new IllegalArgumentException("There must be a normal for each vertex");
+        this.floatNormals = normals;
+    }
+
+    /**
+     * Returns a coordinate of the vertices (of either storage).
+     *
+     * @param i the index of the coordinate - x,y,z of each vertex
+     * @return the coordinate
+     */
+    private double coordinate(int i) {
+        return vertices != null ? vertices[i] : floatVertices[i];
+    }
+
+    /**
+     * Returns a coordinate of the vertex normals (of either storage).
+     *
+     * @param i the index of the coordinate - x,y,z of each vertex
+     * @return the coordinate
+     */
+    private double normalCoordinate(int i) {
+        return normals != null ? normals[i] : floatNormals[i];
+    }
+
+    /**
+     * Returns the amount of the faces of the mesh.
+     *
+     * @return the amount of the faces
+     */
+    public int getFacesCount() {
+        return faces.length / 3;
+    }
+
+    /**
+     * Returns the amount of the vertices of the mesh.
+     *
+     * @return the amount of the vertices
+     */
+    public int getVerticesCount() {
+        return (vertices != null ? vertices.length : floatVertices.length) / 3;
+    }
+
+    /**
+     * Returns a vertex of the mesh.
+     *
+     * @param index the index of the vertex
+     * @return the vertex
+     */
+    public Point getVertex(int index) {
+        return new Point(coordinate(3 * index), coordinate(3 * index + 1), coordinate(3 * index + 2));
+    }
+
+    /**
+     * Returns the normal at a point of the mesh. The face of the point is searched among all
+     * the faces, so the normals of intersections are better taken from their records.
+     *
+     * @param point a point on the mesh
+     * @return the normal at the point
+     * @throws IllegalArgumentException if the point isn't on a face of the mesh
+     */
+    @Override
+    public Vector getNormal(Point point) {
+        double px = point.getX(), py = point.getY(), pz = point.getZ();
+        int best = -1;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        double bestU = 0, bestV = 0;
+        for (int f = 0; f < faces.length / 3; ++f) {
+            int i0 = 3 * faces[3 * f], i1 = 3 * faces[3 * f + 1], i2 = 3 * faces[3 * f + 2];
+            double v0x = coordinate(i0), v0y = coordinate(i0 + 1), v0z = coordinate(i0 + 2);
+            double e1x = coordinate(i1) - v0x, e1y = coordinate(i1 + 1) - v0y, e1z = coordinate(i1 + 2) - v0z;
+            double e2x = coordinate(i2) - v0x, e2y = coordinate(i2 + 1) - v0y, e2z = coordinate(i2 + 2) - v0z;
+            double wx = px - v0x, wy = py - v0y, wz = pz - v0z;
+            // barycentric coordinates of the projection of the point on the face's plane
+            double d11 = e1x * e1x + e1y * e1y + e1z * e1z;
+            double d12 = e1x * e2x + e1y * e2y + e1z * e2z;
+            double d22 = e2x * e2x + e2y * e2y + e2z * e2z;
+            double d1w = e1x * wx + e1y * wy + e1z * wz;
+            double d2w = e2x * wx + e2y * wy + e2z * wz;
+            double det = d11 * d22 - d12 * d12;
+            if (isZero(det))
+                continue;
+            double u = (d22 * d1w - d12 * d2w) / det;
+            double v = (d11 * d2w - d12 * d1w) / det;
+            if (alignZero(u) < 0 || alignZero(v) < 0 || alignZero(u + v - 1) > 0)
+                continue;
+            double rx = wx - u * e1x - v * e2x, ry = wy - u * e1y - v * e2y, rz = wz - u * e1z - v * e2z;
+            double distance = rx * rx + ry * ry + rz * rz;
+            if (distance < bestDistance) {
+                best = f;
+                bestDistance = distance;
+                bestU = u;
+                bestV = v;
+            }
+        }
+        if (best < 0 || !isZero(bestDistance))
+            throw new IllegalArgumentException("The point is not on the mesh");
+        return normal(best, bestU, bestV);
+    }
+
+    @Override
+    Vector getNormal(HitRecord hit) {
+        return normal(hit.face, hit.getU(), hit.getV());
+    }
+
+    /**
+     * Calculates the normal at a point of a face.
+     *
+     * @param face the face (in the internal order of the faces)
+     * @param u    the weight of the second vertex of the face at the point
+     * @param v    the weight of the third vertex of the face at the point
+     * @return the normal
+     */
+    private Vector normal(int face, double u, double v) {
+        int i0 = 3 * faces[3 * face], i1 = 3 * faces[3 * face + 1], i2 = 3 * faces[3 * face + 2];
+        MutableVector normal = new MutableVector();
+        if (normals != null || floatNormals != null) {
+            double w = 1 - u - v;
+            return normal.set(w * normalCoordinate(i0) + u * normalCoordinate(i1) + v * normalCoordinate(i2),
+                    w * normalCoordinate(i0 + 1) + u * normalCoordinate(i1 + 1) + v * normalCoordinate(i2 + 1),
+                    w * normalCoordinate(i0 + 2) + u * normalCoordinate(i1 + 2) + v * normalCoordinate(i2 + 2))
+                    .normalize().toVector();
+        }
+        MutableVector edge2 = new MutableVector(coordinate(i2) - coordinate(i0), coordinate(i2 + 1) - coordinate(i0 + 1),
+                coordinate(i2 + 2) - coordinate(i0 + 2));
+        return normal.set(coordinate(i1) - coordinate(i0), coordinate(i1 + 1) - coordinate(i0 + 1),
+                coordinate(i1 + 2) - coordinate(i0 + 2)).crossProduct(edge2).normalize().toVector();
+    }
+
+    /**
+     * M&ouml;ller&ndash;Trumbore intersection of a ray with a face, without creating any object.
+     * The edges and the vertices of the face are not intersected.
+     *
+     * @param face        the face (in the internal order of the faces)
+     * @param ox          the ray head's x coordinate
+     * @param oy          the ray head's y coordinate
+     * @param oz          the ray head's z coordinate
+     * @param dx          the ray direction's x component
+     * @param dy          the ray direction's y component
+     * @param dz          the ray direction's z component
+     * @param maxDistance the maximal distance from the ray's head
+     * @param hit         record receiving the face and the barycentric coordinates of the intersection,
+     *                    may be null
+     * @return the distance of the intersection, 0 if there is no intersection closer than the maximal distance
+     */
+    private double intersectFace(int face, double ox, double oy, double oz, double dx, double dy, double dz,
+                                 double maxDistance, HitRecord hit) {
+        int i0 = 3 * faces[3 * face], i1 = 3 * faces[3 * face + 1], i2 = 3 * faces[3 * face + 2];
+        double v0x = vertices[i0], v0y = vertices[i0 + 1], v0z = vertices[i0 + 2];
+        double e1x = vertices[i1] - v0x, e1y = vertices[i1 + 1] - v0y, e1z = vertices[i1 + 2] - v0z;
+        double e2x = vertices[i2] - v0x, e2y = vertices[i2 + 1] - v0y, e2z = vertices[i2 + 2] - v0z;
+        // p = d x e2
+        double px = dy * e2z - dz * e2y;
+        double py = dz * e2x - dx * e2z;
+        double pz = dx * e2y - dy * e2x;
+        double det = e1x * px + e1y * py + e1z * pz;
+        if (isZero(det)) // the ray is parallel to the face
+            return 0;
+        double inverse = 1 / det;
+
+        double sx = ox - v0x, sy = oy - v0y, sz = oz - v0z;
+        double u = (sx * px + sy * py + sz * pz) * inverse;
+        if (alignZero(u) <= 0 || alignZero(u - 1) >= 0)
+            return 0;
+        // q = s x e1
+        double qx = sy * e1z - sz * e1y;
+        double qy = sz * e1x - sx * e1z;
+        double qz = sx * e1y - sy * e1x;
+        double v = (dx * qx + dy * qy + dz * qz) * inverse;
+        if (alignZero(v) <= 0 || alignZero(u + v - 1) >= 0)
+            return 0;
+
+        double t = alignZero((e2x * qx + e2y * qy + e2z * qz) * inverse);
+        if (t <= 0 || alignZero(t - maxDistance) >= 0)
+            return 0;
+        if (hit != null) {
+            hit.face = face;
+            hit.setBarycentric(u, v);
+        }
+        return t;
+    }
+
+    /**
+     * A ray prepared for the watertight intersection: the axes are permuted so the largest component of
+     * the direction is the z axis (keeping the winding of the faces), and the shear of the vertices that
+     * turns the direction to the z axis is calculated.
+     *
+     * @param kx the axis permuted to x
+     * @param ky the axis permuted to y
+     * @param kz the axis permuted to z - of the largest component of the direction
+     * @param sx the shear of x by z
+     * @param sy the shear of y by z
+     * @param sz the scale of z
+     * @param hx the ray head's coordinate of the x axis
+     * @param hy the ray head's coordinate of the y axis
+     * @param hz the ray head's coordinate of the z axis
+     */
+    private record Shear(int kx, int ky, int kz, double sx, double sy, double sz, double hx, double hy, double hz) {
+        /**
+         * Prepares a ray for the watertight intersection.
+         *
+         * @param ray the ray
+         * @return the prepared ray
+         */
+        static Shear of(Ray ray) {
+            Point head = ray.getHead();
+            Vector direction = ray.getDirection();
+            double[] d = {direction.getX(), direction.getY(), direction.getZ()};
+            double[] o = {head.getX(), head.getY(), head.getZ()};
+            int kz = Math.abs(d[0]) >= Math.abs(d[1])
+                    ? Math.abs(d[0]) >= Math.abs(d[2]) ? 0 : 2
+                    : Math.abs(d[1]) >= Math.abs(d[2]) ? 1 : 2;
+            int kx = (kz + 1) % 3, ky = (kx + 1) % 3;
+            if (d[kz] < 0) { // swapping x and y keeps the winding
+                int swap = kx;
+                kx = ky;
+                ky = swap;
+            }
+            return new Shear(kx, ky, kz, d[kx] / d[kz], d[ky] / d[kz], 1 / d[kz], o[kx], o[ky], o[kz]);
+        }
+    }
+
+    /**
+     * Watertight intersection of a ray with a face of a mesh stored in floats (Woop, Benthin and Wald).
+     * The vertices are transformed to the space of the ray, where the ray is the z axis, and the signed
+     * 2D edge functions of the face are calculated at the origin. A shared edge is calculated of the same
+     * transformed vertices by both its faces, so its function is exactly negated from one face to the other
+     * - a ray is always inside one of them, or on the edge of both. The edges and the vertices of the face
+     * are intersected.
+     *
+     * @param face        the face (in the internal order of the faces)
+     * @param shear       the prepared ray
+     * @param maxDistance the maximal distance from the ray's head
+     * @param hit         record receiving the face and the barycentric coordinates of the intersection,
+     *                    may be null
+     * @return the distance of the intersection, 0 if there is no intersection closer than the maximal distance
+     */
+    private double intersectFace(int face, Shear shear, double maxDistance, HitRecord hit) {
+        float[] vs = floatVertices;
+        int i0 = 3 * faces[3 * face], i1 = 3 * faces[3 * face + 1], i2 = 3 * faces[3 * face + 2];
+        int kx = shear.kx, ky = shear.ky, kz = shear.kz;
+        double az = vs[i0 + kz] - shear.hz, bz = vs[i1 + kz] - shear.hz, cz = vs[i2 + kz] - shear.hz;
+        double ax = vs[i0 + kx] - shear.hx - shear.sx * az, ay = vs[i0 + ky] - shear.hy - shear.sy * az;
+        double bx = vs[i1 + kx] - shear.hx - shear.sx * bz, by = vs[i1 + ky] - shear.hy - shear.sy * bz;
+        double cx = vs[i2 + kx] - shear.hx - shear.sx * cz, cy = vs[i2 + ky] - shear.hy - shear.sy * cz;
+        // the edge functions - the weights of the vertices opposite to the edges
+        double u = cx * by - cy * bx;
+        double v = ax * cy - ay * cx;
+        double w = bx * ay - by * ax;
+        if ((u < 0 || v < 0 || w < 0) && (u > 0 || v > 0 || w > 0))
+            return 0;
+        double det = u + v + w;
+        if (det == 0) // the ray is parallel to the face
+            return 0;
+        double t = alignZero((u * az + v * bz + w * cz) * shear.sz / det);
+        if (t <= 0 || alignZero(t - maxDistance) >= 0)
+            return 0;
+        if (hit != null) {
+            hit.face = face;
+            hit.setBarycentric(v / det, w / det);
+        }
+        return t;
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        if (faces.length == 0)
+            return null;
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double dx = direction.getX(), dy = direction.getY(), dz = direction.getZ();
+        double invDx = ray.getInvDx(), invDy = ray.getInvDy(), invDz = ray.getInvDz();
+        Shear shear = floatVertices == null ? null : Shear.of(ray);
+
+        // a record of its own - the thread's record may be in the middle of another query
+        HitRecord hit = new HitRecord();
+        List<GeoPoint> intersections = null;
+        hit.push(0);
+        while (hit.hasNodes(0)) {
+            int node = hit.pop();
+            if (!nodes.hitsNode(node, ox, oy, oz, invDx, invDy, invDz, maxDistance))
+                continue;
+            int count = nodes.counts[node];
+            if (count > 0) {
+                for (int f = nodes.offsets[node], end = f + count; f < end; ++f) {
+                    double t = shear == null ? intersectFace(f, ox, oy, oz, dx, dy, dz, maxDistance, hit)
+                            : intersectFace(f, shear, maxDistance, hit);
+                    if (t != 0) {
+                        if (intersections == null)
+                            intersections = new LinkedList<>();
+                        intersections.add(new GeoPoint(this, ray.getPoint(t), normal(f, hit.getU(), hit.getV())));
+                    }
+                }
+            } else {
+                hit.push(nodes.offsets[node]);
+                hit.push(node + 1);
+            }
+        }
+        return intersections;
+    }
+
+    /**
+     * Finds the closest intersection of the ray with the faces. The nodes are visited front to back
+     * and every found intersection shrinks the distance, so farther nodes are pruned by their boxes.
+     */
+    @Override
+    protected boolean findClosestIntersectionHelper(HitRecord hit) {
+        if (faces.length == 0)
+            return false;
+        Ray ray = hit.ray;
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double dx = direction.getX(), dy = direction.getY(), dz = direction.getZ();
+        double invDx = ray.getInvDx(), invDy = ray.getInvDy(), invDz = ray.getInvDz();
+        Shear shear = floatVertices == null ? null : Shear.of(ray);
+
+        boolean found = false;
+        int base = hit.stackBase();
+        hit.push(0);
+        while (hit.hasNodes(base)) {
+            int node = hit.pop();
+            if (!nodes.hitsNode(node, ox, oy, oz, invDx, invDy, invDz, hit.t))
+                continue;
+            int count = nodes.counts[node];
+            if (count > 0) {
+                for (int f = nodes.offsets[node], end = f + count; f < end; ++f) {
+                    hit.countTest(this);
+                    // an intersection closer than the record's distance is always recorded
+                    double t = shear == null ? intersectFace(f, ox, oy, oz, dx, dy, dz, hit.t, hit)
+                            : intersectFace(f, shear, hit.t, hit);
+                    if (t != 0)
+                        found |= hit.update(t, this);
+                }
+            } else {
+                // push the far child first so the near child is visited first
+                int axis = nodes.axes[node];
+                if (ray.isNegative(axis)) {
+                    hit.push(node + 1);
+                    hit.push(nodes.offsets[node]);
+                } else {
+                    hit.push(nodes.offsets[node]);
+                    hit.push(node + 1);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * An opaque mesh blocks the light by any face between the point and the light source,
+     * so the traversal stops at the first found face.
+     */
+    @Override
+    protected Double3 findTransparencyHelper(HitRecord hit, Double3 ktr, double minTransparency) {
+        if (!getMaterial().kT.equals(Double3.ZERO))
+            return super.findTransparencyHelper(hit, ktr, minTransparency);
+        if (faces.length == 0)
+            return ktr;
+        Ray ray = hit.ray;
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double dx = direction.getX(), dy = direction.getY(), dz = direction.getZ();
+        double invDx = ray.getInvDx(), invDy = ray.getInvDy(), invDz = ray.getInvDz();
+        Shear shear = floatVertices == null ? null : Shear.of(ray);
+
+        int base = hit.stackBase();
+        hit.push(0);
+        while (hit.hasNodes(base)) {
+            int node = hit.pop();
+            if (!nodes.hitsNode(node, ox, oy, oz, invDx, invDy, invDz, hit.t))
+                continue;
+            int count = nodes.counts[node];
+            if (count > 0) {
+                for (int f = nodes.offsets[node], end = f + count; f < end; ++f) {
+                    hit.countTest(this);
+                    double t = shear == null ? intersectFace(f, ox, oy, oz, dx, dy, dz, hit.t, hit)
+                            : intersectFace(f, shear, hit.t, hit);
+                    if (t != 0) {
+                        hit.update(t, this);
+                        hit.dropNodes(base);
+                        return Double3.ZERO;
+                    }
+                }
+            } else {
+                hit.push(nodes.offsets[node]);
+                hit.push(node + 1);
+            }
+        }
+        return ktr;
+    }
+
+    @Override
+    protected BoundingBox calcBoundingBox() {
+        if (faces.length == 0)
+            return BoundingBox.EMPTY;
+        return new BoundingBox(nodes.bound(0), nodes.bound(1), nodes.bound(2),
+                nodes.bound(3), nodes.bound(4), nodes.bound(5));
+    }
+}
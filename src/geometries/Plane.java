@@ -92,15 +92,42 @@ public class Plane extends Geometry {
      */
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        double t = findIntersectionDistance(ray, maxDistance);
+        return t == 0 ? null : List.of(new GeoPoint(this, ray.getPoint(t)));
+    }
+
+    @Override
+    protected boolean findClosestIntersectionHelper(HitRecord hit) {
+        double t = findIntersectionDistance(hit.ray, hit.t);
+        return t != 0 && hit.update(t, this);
+    }
+
+    /**
+     * Calculates the distance of the intersection of a ray with the plane from the ray's head,
+     * without creating any object.
+     *
+     * @param ray         the ray to intersect with the plane
+     * @param maxDistance the maximal distance from the ray's head
+     * @return the distance of the intersection, 0 if there is no intersection closer than the maximal distance
+     */
+    double findIntersectionDistance(Ray ray, double maxDistance) {
         Point rayHead = ray.getHead();
-        if (q.equals(ray.getHead()))
-            return null;
+        double qx = q.getX() - rayHead.getX();
+        double qy = q.getY() - rayHead.getY();
+        double qz = q.getZ() - rayHead.getZ();
+        if (isZero(qx) && isZero(qy) && isZero(qz))
+            return 0;
         Vector v = ray.getDirection();
         double nv = normal.dotProduct(v);
         if (isZero(nv))
-            return null;
-        double t = alignZero((normal.dotProduct((q.subtract(ray.getHead())))) / (nv));
-        return t <= 0 || Util.alignZero(t - maxDistance) >= 0 ? null : List.of(new GeoPoint(this, ray.getPoint(t)));
+            return 0;
+        double t = alignZero((normal.getX() * qx + normal.getY() * qy + normal.getZ() * qz) / (nv));
+        return t <= 0 || Util.alignZero(t - maxDistance) >= 0 ? 0 : t;
+    }
+
+    @Override
+    protected BoundingBox calcBoundingBox() {
+        return BoundingBox.INFINITE;
     }
 }
 
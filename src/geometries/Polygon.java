@@ -4,6 +4,7 @@ import java.util.List;
 
 import static primitives.Util.isZero;
 
+import primitives.MutableVector;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Util;
@@ -89,25 +90,51 @@ public class Polygon extends Geometry {
 //    }
 @Override
 protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
-    List<GeoPoint> intersections = plane.findGeoIntersectionsHelper(ray, maxDistance);
-    if (intersections == null)
-        return null;
+    double t = findIntersectionDistance(ray, maxDistance);
+    return t == 0 ? null : List.of(new GeoPoint(this, ray.getPoint(t)));
+}
+
+@Override
+protected boolean findClosestIntersectionHelper(HitRecord hit) {
+    double t = findIntersectionDistance(hit.ray, hit.t);
+    return t != 0 && hit.update(t, this);
+}
+
+/**
+ * Calculates the distance of the intersection of a ray with the polygon from the ray's head.
+ *
+ * @param ray         the ray to intersect with the polygon
+ * @param maxDistance the maximal distance from the ray's head
+ * @return the distance of the intersection, 0 if there is no intersection closer than the maximal distance
+ */
+double findIntersectionDistance(Ray ray, double maxDistance) {
+    double t = plane.findIntersectionDistance(ray, maxDistance);
+    if (t == 0)
+        return 0;
 
+    // the vectors to the vertices and their cross products are computed in scratch vectors
     Point rayP0 = ray.getHead();
     Vector rayVec = ray.getDirection();
     int n = vertices.size();
-    Vector[] edgeVectors = new Vector[n];
-    for (int i = 0; i < n; ++i)
-        edgeVectors[i] = vertices.get(i).subtract(rayP0);
-    double[] scalars = new double[n];
-    for (int i = 0; i < n - 1; ++i)
-        scalars[i] = rayVec.dotProduct(edgeVectors[i].crossProduct(edgeVectors[i + 1]));
-    scalars[n - 1] = rayVec.dotProduct(edgeVectors[n - 1].crossProduct(edgeVectors[0]));
-    for (int i = 0; i < n - 1; ++i)
-        if (Util.alignZero(scalars[i] * scalars[i + 1]) <= 0)
-            return null;
-
-    intersections.get(0).geometry = this;
-    return intersections;
+    MutableVector edge = new MutableVector().setDifference(vertices.get(0), rayP0);
+    MutableVector nextEdge = new MutableVector();
+    MutableVector cross = new MutableVector();
+    double previous = 0;
+    for (int i = 0; i < n; ++i) {
+        nextEdge.setDifference(vertices.get(i + 1 < n ? i + 1 : 0), rayP0);
+        double scalar = cross.set(edge).crossProduct(nextEdge).dotProduct(rayVec);
+        if (i > 0 && Util.alignZero(previous * scalar) <= 0)
+            return 0;
+        previous = scalar;
+        MutableVector swap = edge;
+        edge = nextEdge;
+        nextEdge = swap;
+    }
+    return t;
 }
+
+    @Override
+    protected BoundingBox calcBoundingBox() {
+        return BoundingBox.of(vertices);
+    }
 }
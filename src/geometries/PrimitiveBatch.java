@@ -0,0 +1,161 @@
+package geometries;
+
+/**
+ * Structure of arrays copy of the spheres and the triangles among an array of shapes, so a run of
+ * consecutive spheres (or of consecutive triangles) is intersected at once by the {@link BatchKernel}
+ * instead of shape by shape.<br/>
+ * Groups of shapes delegate to a batch: a leaf of a {@link BVH} whose shapes are all spheres (or all
+ * triangles), and a {@link Geometries} without a hierarchy whose geometries are. Only exact
+ * {@link Sphere} and {@link Triangle} objects are batched, subclasses may intersect differently.
+ * <p>
+ * The distances found by the kernel are recorded in the order of the shapes, with the same tests of the
+ * hit record, so a batch finds exactly the intersection the shapes find one by one.
+ * </p>
+ *
+ * @author Hadar Nagar & Elinoy Damari
+ */
+final class PrimitiveBatch {
+    /** Kind of a range of shapes that isn't batched */
+    static final byte MIXED = 0;
+    /** Kind of a range of spheres */
+    static final byte SPHERES = 1;
+    /** Kind of a range of triangles */
+    static final byte TRIANGLES = 2;
+
+    /**
+     * Amount of extra (zero) entries at the end of the arrays - the widest vector of doubles, so a
+     * vectorized kernel reads and writes whole vectors beyond the last shape
+     */
+    static final int PADDING = 8;
+
+    /** Minimal amount of shapes worth a batch */
+    private static final int MIN_SIZE = 2;
+
+    /** The kernel of all the batches */
+    static final BatchKernel KERNEL = BatchKernel.load();
+
+    /** The shapes */
+    final Intersectable[] shapes;
+    /** The kind of all the shapes */
+    final byte kind;
+
+    /** Centers and radii of the spheres (zero for the other shapes), null if there are no spheres */
+    final double[] cx, cy, cz, radius;
+    /** First vertices and edges of the triangles (zero for the other shapes), null if there are no triangles */
+    final double[] v0x, v0y, v0z, e1x, e1y, e1z, e2x, e2y, e2z;
+
+    /**
+     * Copies the spheres and the triangles among shapes into arrays.
+     *
+     * @param shapes the shapes
+     */
+    PrimitiveBatch(Intersectable[] shapes) {
+        this.shapes = shapes;
+        int n = shapes.length;
+        int size = n + PADDING;
+        boolean spheres = false, triangles = false;
+        for (Intersectable shape : shapes) {
+            spheres |= shape.getClass() == Sphere.class;
+            triangles |= shape.getClass() == Triangle.class;
+        }
+
+        if (spheres) {
+            cx = new double[size];
+            cy = new double[size];
+            cz = new double[size];
+            radius = new double[size];
+            for (int i = 0; i < n; ++i)
+                if (shapes[i].getClass() == Sphere.class) {
+                    Sphere sphere = (Sphere) shapes[i];
+                    cx[i] = sphere.center.getX();
+                    cy[i] = sphere.center.getY();
+                    cz[i] = sphere.center.getZ();
+                    radius[i] = sphere.radius;
+                }
+        } else
+            cx = cy = cz = radius = null;
+
+        if (triangles) {
+            v0x = new double[size];
+            v0y = new double[size];
+            v0z = new double[size];
+            e1x = new double[size];
+            e1y = new double[size];
+            e1z = new double[size];
+            e2x = new double[size];
+            e2y = new double[size];
+            e2z = new double[size];
+            for (int i = 0; i < n; ++i)
+                if (shapes[i].getClass() == Triangle.class) {
+                    Triangle triangle = (Triangle) shapes[i];
+                    v0x[i] = triangle.v0x;
+                    v0y[i] = triangle.v0y;
+                    v0z[i] = triangle.v0z;
+                    e1x[i] = triangle.e1x;
+                    e1y[i] = triangle.e1y;
+                    e1z[i] = triangle.e1z;
+                    e2x[i] = triangle.e2x;
+                    e2y[i] = triangle.e2y;
+                    e2z[i] = triangle.e2z;
+                }
+        } else
+            v0x = v0y = v0z = e1x = e1y = e1z = e2x = e2y = e2z = null;
+
+        kind = kind(0, n);
+    }
+
+    /**
+     * Finds the kind of a range of the shapes.
+     *
+     * @param from index of the first shape
+     * @param to   index after the last shape
+     * @return {@link #SPHERES} or {@link #TRIANGLES} if all the shapes are of the kind (and there are
+     * enough of them to be worth a batch), {@link #MIXED} otherwise
+     */
+    byte kind(int from, int to) {
+        if (to - from < MIN_SIZE)
+            return MIXED;
+        Class<?> type = shapes[from].getClass();
+        if (type != Sphere.class && type != Triangle.class)
+            return MIXED;
+        for (int i = from + 1; i < to; ++i)
+            if (shapes[i].getClass() != type)
+                return MIXED;
+        return type == Sphere.class ? SPHERES : TRIANGLES;
+    }
+
+    /**
+     * Finds the closest intersection of the ray of a hit record with a range of the shapes.
+     *
+     * @param hit  the record of the closest intersection found so far, updated if a closer one is found
+     * @param from index of the first shape
+     * @param to   index after the last shape
+     * @param kind the kind of the range (not {@link #MIXED})
+     * @return true if a closer intersection was found
+     */
+    boolean findClosestIntersection(HitRecord hit, int from, int to, byte kind) {
+        int n = to - from;
+        double[] t = hit.batchDistances(n);
+        boolean found = false;
+        if (kind == SPHERES) {
+            KERNEL.intersectSpheres(this, hit.ray, from, to, t);
+            for (int i = 0; i < n; ++i) {
+                Sphere sphere = (Sphere) shapes[from + i];
+                hit.countTest(sphere);
+                found |= hit.update(t[i], sphere);
+            }
+        } else {
+            double[] u = hit.batchU, v = hit.batchV;
+            KERNEL.intersectTriangles(this, hit.ray, from, to, hit.t, t, u, v);
+            for (int i = 0; i < n; ++i) {
+                Triangle triangle = (Triangle) shapes[from + i];
+                hit.countTest(triangle);
+                if (t[i] != 0 && hit.update(t[i], triangle)) {
+                    hit.setBarycentric(u[i], v[i]);
+                    found = true;
+                }
+            }
+        }
+        return found;
+    }
+}
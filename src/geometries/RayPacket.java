@@ -0,0 +1,178 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Packet of coherent rays (e.g. the rays through a block of pixels) whose closest intersections are
+ * found together (see {@link Intersectable#findClosestIntersections(RayPacket)}).<br/>
+ * The rays of the same direction signs traverse a bounding volume hierarchy at once - every node is
+ * fetched once for the packet and is entered only by the rays that hit its box, and a ray that is left
+ * alone in a subtree continues by the single ray traversal. Each ray visits exactly the nodes and the
+ * shapes it visits alone, in the same order, so the intersections are the same as ray by ray.
+ * <p>
+ * A packet is meant to be reused - each thread has its own packet (see {@link #local()}).
+ * The rays of a packet are given by masks of bits - bit i stands for the i-th ray.
+ * </p>
+ *
+ * @author Hadar Nagar & Elinoy Damari
+ */
+public final class RayPacket {
+    /** Maximal amount of the rays of a packet - a block of 4x4 pixels */
+    public static final int MAX_SIZE = 16;
+
+    /** The packet of each thread */
+    private static final ThreadLocal<RayPacket> LOCAL = ThreadLocal.withInitial(RayPacket::new);
+
+    /** Initial size of the traversal stack */
+    private static final int STACK_SIZE = 64;
+
+    /** The records of the closest intersections of the rays */
+    final HitRecord[] hits = new HitRecord[MAX_SIZE];
+    /** Amount of the rays */
+    private int size = 0;
+
+    /** Heads of the rays, for the slab tests of the nodes */
+    final double[] ox = new double[MAX_SIZE], oy = new double[MAX_SIZE], oz = new double[MAX_SIZE];
+    /** Reciprocals of the directions of the rays, for the slab tests of the nodes */
+    final double[] invDx = new double[MAX_SIZE], invDy = new double[MAX_SIZE], invDz = new double[MAX_SIZE];
+
+    /** Stack of the traversal - a node (high 32 bits) and the mask of its rays (low 32 bits) */
+    private long[] stack = new long[STACK_SIZE];
+    /** Amount of the entries in the stack */
+    private int stackSize = 0;
+
+    /**
+     * Constructs an empty packet.
+     */
+    public RayPacket() {
+        for (int i = 0; i < MAX_SIZE; ++i)
+            hits[i] = new HitRecord();
+    }
+
+    /**
+     * Returns the packet of the current thread.
+     *
+     * @return the thread's packet
+     */
+    public static RayPacket local() {
+        return LOCAL.get();
+    }
+
+    /**
+     * Removes all the rays of the packet.
+     *
+     * @return the packet itself
+     */
+    public RayPacket clear() {
+        size = 0;
+        stackSize = 0;
+        return this;
+    }
+
+    /**
+     * Adds a ray to the packet, its record is prepared for a search without a maximal distance.
+     *
+     * @param ray the ray
+     * @return the packet itself
+     * @throws IllegalStateException if the packet is full
+     */
+    public RayPacket add(Ray ray) {
+        if (size == MAX_SIZE)
+            throw new IllegalStateException("The packet is full");
+        hits[size].reset(ray, Double.POSITIVE_INFINITY);
+        Point head = ray.getHead();
+        ox[size] = head.getX();
+        oy[size] = head.getY();
+        oz[size] = head.getZ();
+        invDx[size] = ray.getInvDx();
+        invDy[size] = ray.getInvDy();
+        invDz[size] = ray.getInvDz();
+        ++size;
+        return this;
+    }
+
+    /**
+     * Returns the amount of the rays of the packet.
+     *
+     * @return the amount of the rays
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the record of the closest intersection of a ray of the packet.
+     * The record must not be kept after the packet is cleared, use {@link HitRecord#toGeoPoint()} instead.
+     *
+     * @param i the index of the ray
+     * @return the record of the ray
+     * @throws IndexOutOfBoundsException if there is no such ray
+     */
+    public HitRecord get(int i) {
+        return hits[Objects.checkIndex(i, size)];
+    }
+
+    /**
+     * Returns the mask of all the rays of the packet.
+     *
+     * @return the mask
+     */
+    int allRays() {
+        return (1 << size) - 1;
+    }
+
+    /**
+     * Turns the counting of the intersection tests of the rays on or off (see
+     * {@link HitRecord#setCountingTests(boolean)}).
+     *
+     * @param counting true to count the intersection tests
+     */
+    public void setCountingTests(boolean counting) {
+        for (HitRecord hit : hits)
+            hit.setCountingTests(counting);
+    }
+
+    /**
+     * Marks the current top of the traversal stack, entries below it belong to an outer traversal.
+     *
+     * @return the current size of the stack
+     */
+    int stackBase() {
+        return stackSize;
+    }
+
+    /**
+     * Pushes a node and the rays that enter it to the traversal stack.
+     *
+     * @param node the node
+     * @param mask the rays
+     */
+    void push(int node, int mask) {
+        if (stackSize == stack.length)
+            stack = Arrays.copyOf(stack, 2 * stackSize);
+        stack[stackSize++] = (long) node << 32 | mask & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Pops an entry of the traversal stack, the stack must not be empty.
+     *
+     * @return the entry - the node in the high 32 bits and the mask of its rays in the low 32 bits
+     */
+    long pop() {
+        return stack[--stackSize];
+    }
+
+    /**
+     * Checks whether there are entries above a given base of the stack.
+     *
+     * @param base the base of the stack
+     * @return true if there are entries above the base
+     */
+    boolean hasNodes(int base) {
+        return stackSize > base;
+    }
+}
@@ -0,0 +1,85 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
+/**
+ * Scalar kernel of batches of primitives - the fallback when the vectorized kernel isn't available.
+ * It loops over the arrays of the batch with exactly the arithmetic of {@link Sphere} and
+ * {@link Triangle}, without their objects and virtual calls.
+ *
+ * @author Hadar Nagar & Elinoy Damari
+ */
+final class ScalarBatchKernel implements BatchKernel {
+
+    @Override
+    public void intersectSpheres(PrimitiveBatch batch, Ray ray, int from, int to, double[] t) {
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double dx = direction.getX(), dy = direction.getY(), dz = direction.getZ();
+        for (int i = from; i < to; ++i) {
+            double lx = batch.cx[i] - ox, ly = batch.cy[i] - oy, lz = batch.cz[i] - oz;
+            double radius = batch.radius[i];
+            if (isZero(lx) && isZero(ly) && isZero(lz)) {
+                t[i - from] = radius;
+                continue;
+            }
+            double tm = lx * dx + ly * dy + lz * dz;
+            double d = Math.sqrt(Math.abs(lx * lx + ly * ly + lz * lz - tm * tm));
+            if (alignZero(d - radius) >= 0) {
+                t[i - from] = 0;
+                continue;
+            }
+            double th = Math.sqrt(radius * radius - d * d);
+            double near = alignZero(tm - th);
+            t[i - from] = near <= 0 ? alignZero(tm + th) : near;
+        }
+    }
+
+    @Override
+    public void intersectTriangles(PrimitiveBatch batch, Ray ray, int from, int to, double maxDistance,
+                                   double[] t, double[] u, double[] v) {
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double dx = direction.getX(), dy = direction.getY(), dz = direction.getZ();
+        for (int i = from; i < to; ++i) {
+            int j = i - from;
+            t[j] = 0;
+            double e1x = batch.e1x[i], e1y = batch.e1y[i], e1z = batch.e1z[i];
+            double e2x = batch.e2x[i], e2y = batch.e2y[i], e2z = batch.e2z[i];
+            // p = d x e2
+            double px = dy * e2z - dz * e2y;
+            double py = dz * e2x - dx * e2z;
+            double pz = dx * e2y - dy * e2x;
+            double det = e1x * px + e1y * py + e1z * pz;
+            if (isZero(det))
+                continue;
+            double inverse = 1 / det;
+
+            double sx = ox - batch.v0x[i], sy = oy - batch.v0y[i], sz = oz - batch.v0z[i];
+            double ui = (sx * px + sy * py + sz * pz) * inverse;
+            if (alignZero(ui) <= 0 || alignZero(ui - 1) >= 0)
+                continue;
+            // q = s x e1
+            double qx = sy * e1z - sz * e1y;
+            double qy = sz * e1x - sx * e1z;
+            double qz = sx * e1y - sy * e1x;
+            double vi = (dx * qx + dy * qy + dz * qz) * inverse;
+            if (alignZero(vi) <= 0 || alignZero(ui + vi - 1) >= 0)
+                continue;
+
+            double ti = alignZero((e2x * qx + e2y * qy + e2z * qz) * inverse);
+            if (ti <= 0 || alignZero(ti - maxDistance) >= 0)
+                continue;
+            t[j] = ti;
+            u[j] = ui;
+            v[j] = vi;
+        }
+    }
+}
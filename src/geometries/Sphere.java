@@ -1,5 +1,6 @@
 package geometries;
 
+import primitives.MutableVector;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Util;
@@ -31,7 +32,7 @@ public class Sphere extends RadialGeometry{
 
     @Override
     public Vector getNormal(Point point) {
-        return (point.subtract(center)).normalize();
+        return new MutableVector().setDifference(point, center).normalize().toVector();
     }
 
     @Override
@@ -65,4 +66,34 @@ public class Sphere extends RadialGeometry{
 
     }
 
+    @Override
+    protected boolean findClosestIntersectionHelper(HitRecord hit) {
+        Point rayHead=hit.ray.getHead();
+        // the vector from the ray's head to the center is kept in numbers to avoid creating objects
+        double lx = center.getX() - rayHead.getX();
+        double ly = center.getY() - rayHead.getY();
+        double lz = center.getZ() - rayHead.getZ();
+        if (isZero(lx) && isZero(ly) && isZero(lz))
+            return hit.update(radius, this);
+
+        Vector rayDirection=hit.ray.getDirection();
+        double tm = lx * rayDirection.getX() + ly * rayDirection.getY() + lz * rayDirection.getZ();
+        double d =Math.sqrt(Math.abs(lx * lx + ly * ly + lz * lz - tm * tm));
+        if (alignZero(d-radius)>=0)
+            return false;
+
+        // the closer intersection point is in front of the ray's head unless the head is inside the sphere
+        double th = Math.sqrt(radius * radius - d * d);
+        double t = alignZero(tm - th);
+        if (t <= 0)
+            t = alignZero(tm + th);
+        return hit.update(t, this);
+    }
+
+    @Override
+    protected BoundingBox calcBoundingBox() {
+        return new BoundingBox(center.getX() - radius, center.getY() - radius, center.getZ() - radius,
+                center.getX() + radius, center.getY() + radius, center.getZ() + radius);
+    }
+
 }
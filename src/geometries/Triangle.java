@@ -2,10 +2,8 @@ package geometries;
 
 import primitives.Point;
 import primitives.Ray;
-import primitives.Util;
 import primitives.Vector;
 import static primitives.Util.*;
-import java.util.List;
 
 /**
  * Represents a triangle in three-dimensional space.
@@ -13,6 +11,12 @@ import java.util.List;
  * @author Hadar Nagar & Elinoy Damari
  */
 public class Triangle extends Polygon{
+    /** The first vertex */
+    final double v0x, v0y, v0z;
+    /** The edge from the first vertex to the second one */
+    final double e1x, e1y, e1z;
+    /** The edge from the first vertex to the third one */
+    final double e2x, e2y, e2z;
 
     /**
      * Constructs a triangle with the specified vertices.
@@ -20,31 +24,70 @@ public class Triangle extends Polygon{
      */
     public Triangle(Point... vertices) {
         super(vertices);
+        Point p0 = vertices[0];
+        v0x = p0.getX();
+        v0y = p0.getY();
+        v0z = p0.getZ();
+        e1x = vertices[1].getX() - v0x;
+        e1y = vertices[1].getY() - v0y;
+        e1z = vertices[1].getZ() - v0z;
+        e2x = vertices[2].getX() - v0x;
+        e2y = vertices[2].getY() - v0y;
+        e2z = vertices[2].getZ() - v0z;
     }
 
     @Override
-    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
-        List<GeoPoint> intersections=plane.findGeoIntersections(ray,maxDistance);
-        if(intersections==null)
-            return null;
-        intersections = List.of(new GeoPoint(this, intersections.get(0).point));
-        Point rayHead=ray.getHead();
-        Vector rayDiraction=ray.getDirection();
-        Vector v1= vertices.get(0).subtract(rayHead);
-        Vector v2= vertices.get(1).subtract(rayHead);
-        Vector v3= vertices.get(2).subtract(rayHead);
-        Vector n1=(v1.crossProduct(v2)).normalize();
-        Vector n2=(v2.crossProduct(v3)).normalize();
-        Vector n3=(v3.crossProduct(v1)).normalize();
-        double vn1=alignZero(rayDiraction.dotProduct(n1));
-        double vn2=alignZero(rayDiraction.dotProduct(n2));
-        double vn3=alignZero(rayDiraction.dotProduct(n3));
+    double findIntersectionDistance(Ray ray, double maxDistance) {
+        return intersect(ray, maxDistance, null);
+    }
+
+    @Override
+    protected boolean findClosestIntersectionHelper(HitRecord hit) {
+        // an intersection closer than the record's distance is always recorded
+        double t = intersect(hit.ray, hit.t, hit);
+        return t != 0 && hit.update(t, this);
+    }
+
+    /**
+     * M&ouml;ller&ndash;Trumbore intersection of a ray with the triangle, by the precomputed edges and
+     * without creating any object. The edges and the vertices of the triangle are not intersected.
+     *
+     * @param ray         the ray to intersect with the triangle
+     * @param maxDistance the maximal distance from the ray's head
+     * @param hit         record receiving the barycentric coordinates of the intersection, may be null
+     * @return the distance of the intersection, 0 if there is no intersection closer than the maximal distance
+     */
+    private double intersect(Ray ray, double maxDistance, HitRecord hit) {
+        Vector direction = ray.getDirection();
+        double dx = direction.getX(), dy = direction.getY(), dz = direction.getZ();
+        // p = d x e2
+        double px = dy * e2z - dz * e2y;
+        double py = dz * e2x - dx * e2z;
+        double pz = dx * e2y - dy * e2x;
+        double det = e1x * px + e1y * py + e1z * pz;
+        if (isZero(det)) // the ray is parallel to the triangle
+            return 0;
+        double inverse = 1 / det;
+
+        Point head = ray.getHead();
+        double sx = head.getX() - v0x, sy = head.getY() - v0y, sz = head.getZ() - v0z;
+        double u = (sx * px + sy * py + sz * pz) * inverse;
+        if (alignZero(u) <= 0 || alignZero(u - 1) >= 0)
+            return 0;
+        // q = s x e1
+        double qx = sy * e1z - sz * e1y;
+        double qy = sz * e1x - sx * e1z;
+        double qz = sx * e1y - sy * e1x;
+        double v = (dx * qx + dy * qy + dz * qz) * inverse;
+        if (alignZero(v) <= 0 || alignZero(u + v - 1) >= 0)
+            return 0;
 
-        if(isZero(vn1)||isZero(vn2)||isZero(vn3))
-            return null;
-        if((vn1>0&&vn2>0&&vn3>0)||(vn1<0&&vn2<0&&vn3<0))
-            return intersections;
-        return null;
+        double t = alignZero((e2x * qx + e2y * qy + e2z * qz) * inverse);
+        if (t <= 0 || alignZero(t - maxDistance) >= 0)
+            return 0;
+        if (hit != null)
+            hit.setBarycentric(u, v);
+        return t;
     }
 //@Override
 //public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
@@ -25,6 +25,15 @@ public class DirectionalLight extends Light implements LightSource{
         this.direction = direction.normalize();
     }
 
+    /**
+     * Returns the direction of the light.
+     *
+     * @return the normalized direction vector of the light
+     */
+    public Vector getDirection() {
+        return direction;
+    }
+
     /**
      * Returns the intensity of the light at a given point.
      * For a directional light, the intensity is constant and does not depend
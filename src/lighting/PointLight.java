@@ -73,6 +73,42 @@ public class PointLight extends Light implements LightSource {
         return this;
     }
 
+    /**
+     * Returns the position of the light.
+     *
+     * @return the position of the light in 3D space
+     */
+    public Point getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the constant attenuation factor.
+     *
+     * @return the constant attenuation factor
+     */
+    public double getkC() {
+        return kC;
+    }
+
+    /**
+     * Returns the linear attenuation factor.
+     *
+     * @return the linear attenuation factor
+     */
+    public double getkL() {
+        return kL;
+    }
+
+    /**
+     * Returns the quadratic attenuation factor.
+     *
+     * @return the quadratic attenuation factor
+     */
+    public double getkQ() {
+        return kQ;
+    }
+
     /**
      * Returns the intensity of the light at a given point. The intensity decreases
      * with the distance from the light source, according to the attenuation factors.
@@ -71,4 +71,22 @@ public class SpotLight extends PointLight {
         this.narrowness = narrowness;
         return this;
     }
+
+    /**
+     * Returns the direction of the light
+     *
+     * @return the normalized direction vector
+     */
+    public Vector getDirection() {
+        return direction;
+    }
+
+    /**
+     * Returns the narrowness of the beam
+     *
+     * @return the narrowness of the beam
+     */
+    public int getNarrowBeam() {
+        return narrowness;
+    }
 }
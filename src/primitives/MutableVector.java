@@ -0,0 +1,255 @@
+package primitives;
+
+/**
+ * A mutable 3-vector of primitive coordinates, used as scratch space by the hot paths of rendering
+ * (shading and intersections), where the immutable {@link Vector} would create a new vector and a new
+ * {@link Double3} for every operation.
+ *
+ * <p>
+ * The operations change the vector in place and return it, so they can be chained. They compute
+ * exactly the same arithmetic (in the same order) as the matching operations of {@link Point} and
+ * {@link Vector}, so replacing immutable vectors by a scratch vector doesn't change the results.
+ * Unlike {@link Vector}, a mutable vector may be the zero vector - it is checked only when it is
+ * normalized or converted to a {@link Vector}.
+ * </p>
+ *
+ * <p>
+ * A mutable vector must not be shared between threads, nor kept by the objects of a scene - it is meant
+ * to be created once by a method (or per ray) and reused for its calculations.
+ * </p>
+ *
+ * @author Hadar Nagar & Elinoy Damari
+ */
+public final class MutableVector {
+    /** The x-coordinate */
+    private double x;
+    /** The y-coordinate */
+    private double y;
+    /** The z-coordinate */
+    private double z;
+
+    /**
+     * Constructs the zero vector.
+     */
+    public MutableVector() {
+    }
+
+    /**
+     * Constructs a vector with the specified coordinates.
+     *
+     * @param x The x-coordinate of the vector.
+     * @param y The y-coordinate of the vector.
+     * @param z The z-coordinate of the vector.
+     */
+    public MutableVector(double x, double y, double z) {
+        set(x, y, z);
+    }
+
+    /**
+     * Constructs a vector with the coordinates of a point (or of a vector).
+     *
+     * @param p the point
+     */
+    public MutableVector(Point p) {
+        set(p);
+    }
+
+    /**
+     * @return the x-coordinate
+     */
+    public double getX() {
+        return x;
+    }
+
+    /**
+     * @return the y-coordinate
+     */
+    public double getY() {
+        return y;
+    }
+
+    /**
+     * @return the z-coordinate
+     */
+    public double getZ() {
+        return z;
+    }
+
+    /**
+     * Sets the coordinates of this vector.
+     *
+     * @param x The x-coordinate.
+     * @param y The y-coordinate.
+     * @param z The z-coordinate.
+     * @return this vector
+     */
+    public MutableVector set(double x, double y, double z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        return this;
+    }
+
+    /**
+     * Sets this vector to the coordinates of a point (or of a vector).
+     *
+     * @param p the point
+     * @return this vector
+     */
+    public MutableVector set(Point p) {
+        return set(p.xyz.d1, p.xyz.d2, p.xyz.d3);
+    }
+
+    /**
+     * Sets this vector to the coordinates of another mutable vector.
+     *
+     * @param v the other vector
+     * @return this vector
+     */
+    public MutableVector set(MutableVector v) {
+        return set(v.x, v.y, v.z);
+    }
+
+    /**
+     * Sets this vector to the vector from one point to another (like {@link Point#subtract(Point)}).
+     *
+     * @param to   the end point
+     * @param from the start point
+     * @return this vector
+     */
+    public MutableVector setDifference(Point to, Point from) {
+        return set(to.xyz.d1 - from.xyz.d1, to.xyz.d2 - from.xyz.d2, to.xyz.d3 - from.xyz.d3);
+    }
+
+    /**
+     * Adds a vector to this vector.
+     *
+     * @param v the vector to add
+     * @return this vector
+     */
+    public MutableVector add(Vector v) {
+        return set(x + v.xyz.d1, y + v.xyz.d2, z + v.xyz.d3);
+    }
+
+    /**
+     * Adds a vector to this vector.
+     *
+     * @param v the vector to add
+     * @return this vector
+     */
+    public MutableVector add(MutableVector v) {
+        return set(x + v.x, y + v.y, z + v.z);
+    }
+
+    /**
+     * Subtracts a scaled vector from this vector (this - v * scale).
+     *
+     * @param v     the vector
+     * @param scale the scale of the vector
+     * @return this vector
+     */
+    public MutableVector subtractScaled(Vector v, double scale) {
+        return set(x - v.xyz.d1 * scale, y - v.xyz.d2 * scale, z - v.xyz.d3 * scale);
+    }
+
+    /**
+     * Scales this vector by a scalar value.
+     *
+     * @param num the scalar value
+     * @return this vector
+     */
+    public MutableVector scale(double num) {
+        return set(x * num, y * num, z * num);
+    }
+
+    /**
+     * Computes the dot product of this vector with a vector.
+     *
+     * @param v the other vector
+     * @return the dot product
+     */
+    public double dotProduct(Vector v) {
+        return x * v.xyz.d1 + y * v.xyz.d2 + z * v.xyz.d3;
+    }
+
+    /**
+     * Computes the dot product of this vector with a vector.
+     *
+     * @param v the other vector
+     * @return the dot product
+     */
+    public double dotProduct(MutableVector v) {
+        return x * v.x + y * v.y + z * v.z;
+    }
+
+    /**
+     * Sets this vector to its cross product with a vector (this x v).
+     *
+     * @param v the other vector
+     * @return this vector
+     */
+    public MutableVector crossProduct(MutableVector v) {
+        return set(y * v.z - z * v.y, z * v.x - x * v.z, x * v.y - y * v.x);
+    }
+
+    /**
+     * @return the squared length of this vector
+     */
+    public double lengthSquared() {
+        return dotProduct(this);
+    }
+
+    /**
+     * @return the length of this vector
+     */
+    public double length() {
+        return Math.sqrt(lengthSquared());
+    }
+
+    /**
+     * Normalizes this vector (like {@link Vector#normalize()}).
+     *
+     * @return this vector
+     * @throws IllegalArgumentException if this is the zero vector
+     */
+    public MutableVector normalize() {
+        if (isZeroVector())
+            throw new IllegalArgumentException("The zero vector can't be normalized");
+        return scale(1 / length());
+    }
+
+    /**
+     * Checks whether this is the zero vector, by the same measure as {@link Vector}.
+     *
+     * @return true if all the coordinates are zero
+     */
+    public boolean isZeroVector() {
+        return Vector.isZeroVector(x, y, z);
+    }
+
+    /**
+     * Creates an immutable vector of the coordinates of this vector.
+     *
+     * @return the new vector
+     * @throws IllegalArgumentException if this is the zero vector
+     */
+    public Vector toVector() {
+        if (isZeroVector())
+            throw new IllegalArgumentException("x,y,z can't be 0");
+        return new Vector(x, y, z, false);
+    }
+
+    /**
+     * Creates a point of the coordinates of this vector.
+     *
+     * @return the new point
+     */
+    public Point toPoint() {
+        return new Point(x, y, z);
+    }
+
+    @Override
+    public String toString() {
+        return "(" + x + "," + y + "," + z + ")";
+    }
+}
@@ -76,11 +76,11 @@ public class Point {
     public Vector subtract(Point other){
         if(other==null)
             throw new NullPointerException("the other point is null");
-        /////////////////////////////////////////////////////////////////////////////////////////////////////////
-        if(xyz.equals(other.xyz))
+        // the difference is checked once, instead of comparing the points and checking the new vector
+        double x = xyz.d1 - other.xyz.d1, y = xyz.d2 - other.xyz.d2, z = xyz.d3 - other.xyz.d3;
+        if (Vector.isZeroVector(x, y, z))
             throw new IllegalArgumentException("Error: Subtraction of two equal vectors results a zero vector");
-        ////////////////////////////////////////////////////////////////////////////////////////////////////////
-        return new Vector(xyz.subtract(other.xyz));
+        return new Vector(x, y, z, false);
     }
 
     /**
@@ -92,6 +92,17 @@ public class Point {
         return new Point(xyz.add(v.xyz));
     }
 
+    /**
+     * Computes the point resulting from adding a scaled vector to this point (this + v * scale),
+     * without creating the scaled vector (so a scale that makes the vector zero is allowed).
+     * @param v The vector to add.
+     * @param scale The scale of the vector.
+     * @return The new point.
+     */
+    public Point addScaled(Vector v, double scale) {
+        return new Point(xyz.d1 + v.xyz.d1 * scale, xyz.d2 + v.xyz.d2 * scale, xyz.d3 + v.xyz.d3 * scale);
+    }
+
     /**
      * Computes the square of the distance between this point and another point.
      * @param other The other point.
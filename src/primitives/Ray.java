@@ -33,23 +33,88 @@ public class Ray {
     final Point head;
     /** The direction vector of the ray. */
     final Vector direction;
+    /** Reciprocals of the direction's components (1/dx, 1/dy, 1/dz), for the slab tests of boxes */
+    private final double invDx, invDy, invDz;
+    /** Sign bits of the direction - bit 0 (x), bit 1 (y) or bit 2 (z) is set if the reciprocal is negative */
+    private final int signs;
     private static final double DELTA = 0.1;
 
+    /** Sign bit of a negative x component of the direction */
+    public static final int NEGATIVE_X = 1;
+    /** Sign bit of a negative y component of the direction */
+    public static final int NEGATIVE_Y = 2;
+    /** Sign bit of a negative z component of the direction */
+    public static final int NEGATIVE_Z = 4;
+
     /**
      * Constructs a ray with the specified starting point and direction.
      * @param p The starting point (head) of the ray.
      * @param v The direction vector of the ray.
      */
     public Ray(Point p, Vector v){
-        head=p;
-        direction=v.normalize();
+        this(p, v.normalize(), true);
     }
 
+    /**
+     * Constructs a ray whose head is moved a little from a point along the normal at the point, to the
+     * side the direction points to (so the ray doesn't intersect the geometry of the point).
+     * @param p         the point
+     * @param v         the direction vector of the ray
+     * @param normalToP the normal at the point
+     */
     public Ray(Point p, Vector v, Vector normalToP){
-        direction=v.normalize();
-        double nv = v.dotProduct(normalToP);
-        head =  Util.isZero(nv) ? p :p.add(normalToP.scale(Util.alignZero(nv)<0? -DELTA:DELTA));
+        this(moveHead(p, v, normalToP), v.normalize(), true);
+    }
 
+    /**
+     * Constructs a ray of a direction that is already normalized - the direction is kept as is.
+     * @param head      the starting point (head) of the ray
+     * @param direction the normalized direction
+     * @param unit      marks the direction as normalized (always true)
+     */
+    private Ray(Point head, Vector direction, boolean unit) {
+        this.head = head;
+        this.direction = direction;
+        invDx = 1 / direction.xyz.d1;
+        invDy = 1 / direction.xyz.d2;
+        invDz = 1 / direction.xyz.d3;
+        signs = (invDx < 0 ? NEGATIVE_X : 0) | (invDy < 0 ? NEGATIVE_Y : 0) | (invDz < 0 ? NEGATIVE_Z : 0);
+    }
+
+    /**
+     * Constructs a ray of a direction that is already normalized (e.g. the direction of another ray),
+     * without normalizing it again.
+     * @param head          the starting point (head) of the ray
+     * @param unitDirection the direction, must be of length 1
+     * @return the ray
+     */
+    public static Ray ofUnit(Point head, Vector unitDirection) {
+        return new Ray(head, unitDirection, true);
+    }
+
+    /**
+     * Constructs a ray of a direction that is already normalized, whose head is moved a little from a point
+     * along the normal at the point (see {@link #Ray(Point, Vector, Vector)}), without normalizing the
+     * direction again.
+     * @param p             the point
+     * @param unitDirection the direction, must be of length 1
+     * @param normalToP     the normal at the point
+     * @return the ray
+     */
+    public static Ray ofUnit(Point p, Vector unitDirection, Vector normalToP) {
+        return new Ray(moveHead(p, unitDirection, normalToP), unitDirection, true);
+    }
+
+    /**
+     * Moves a point a little along the normal at the point, to the side a direction points to.
+     * @param p         the point
+     * @param v         the direction
+     * @param normalToP the normal at the point
+     * @return the moved point (the point itself if the direction is orthogonal to the normal)
+     */
+    private static Point moveHead(Point p, Vector v, Vector normalToP) {
+        double nv = v.dotProduct(normalToP);
+        return Util.isZero(nv) ? p : p.add(normalToP.scale(Util.alignZero(nv) < 0 ? -DELTA : DELTA));
     }
 
 
@@ -62,6 +127,53 @@ public class Ray {
         return direction;
     }
 
+    /**
+     * Returns the reciprocal of the direction's x component.
+     *
+     * @return 1 / dx (infinite if dx is zero)
+     */
+    public double getInvDx() {
+        return invDx;
+    }
+
+    /**
+     * Returns the reciprocal of the direction's y component.
+     *
+     * @return 1 / dy (infinite if dy is zero)
+     */
+    public double getInvDy() {
+        return invDy;
+    }
+
+    /**
+     * Returns the reciprocal of the direction's z component.
+     *
+     * @return 1 / dz (infinite if dz is zero)
+     */
+    public double getInvDz() {
+        return invDz;
+    }
+
+    /**
+     * Returns the sign bits of the direction - a combination of {@link #NEGATIVE_X}, {@link #NEGATIVE_Y}
+     * and {@link #NEGATIVE_Z}.
+     *
+     * @return the sign bits
+     */
+    public int getSigns() {
+        return signs;
+    }
+
+    /**
+     * Checks whether the direction is negative along an axis.
+     *
+     * @param axis the axis - 0 for x, 1 for y, 2 for z
+     * @return true if the reciprocal of the direction's component is negative
+     */
+    public boolean isNegative(int axis) {
+        return (signs & (1 << axis)) != 0;
+    }
+
     /**
      * Returns the starting point (head) of the ray.
      *
@@ -86,7 +198,7 @@ public class Ray {
     public Point getPoint(double t){
         if(Util.isZero(t))
             return head;
-        return  head.add(direction.scale(t));
+        return  head.addScaled(direction, t);
     }
 
     @Override
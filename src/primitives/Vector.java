@@ -40,8 +40,21 @@ public class Vector extends Point {
      * @throws IllegalArgumentException if any coordinate is equal to zero.
      */
     public Vector(double x,double y,double z){
-        super(x,y,z);
-        if(Double3.ZERO.equals(this.xyz))
+        this(x,y,z,true);
+    }
+
+    /**
+     * Constructs a vector with the specified coordinates, optionally without checking them.
+     * Used by the operations of the package whose result can't be the zero vector, to save the check.
+     * @param x The x-coordinate of the vector.
+     * @param y The y-coordinate of the vector.
+     * @param z The z-coordinate of the vector.
+     * @param checked whether to check the coordinates
+     * @throws IllegalArgumentException if checked and all the coordinates are equal to zero.
+     */
+    Vector(double x, double y, double z, boolean checked) {
+        super(x, y, z);
+        if (checked && isZeroVector(x, y, z))
             throw  new IllegalArgumentException("x,y,z can't be 0");
     }
 
@@ -51,20 +64,58 @@ public class Vector extends Point {
      * @throws IllegalArgumentException if the coordinates are equal to zero.
      */
     public Vector(Double3 xyz) {
+        this(xyz, true);
+    }
+
+    /**
+     * Constructs a vector from a {@link Double3} object, optionally without checking it.
+     * @param xyz The coordinates of the vector.
+     * @param checked whether to check the coordinates
+     * @throws IllegalArgumentException if checked and the coordinates are equal to zero.
+     */
+    Vector(Double3 xyz, boolean checked) {
         super(xyz);
-        if(Double3.ZERO.equals(xyz))
+        if (checked && isZeroVector(xyz.d1, xyz.d2, xyz.d3))
             throw  new IllegalArgumentException("can't be (0,0,0)");
     }
 
+    /**
+     * Creates a vector of coordinates that the caller knows are not all zero, without checking them.
+     * This is the explicitly unchecked construction path for the hot paths of rendering, where the
+     * coordinates are derived from vectors that can't become zero (e.g. the opposite of a vector).
+     * Passing the zero vector isn't detected and breaks the operations that rely on a non-zero length.
+     * @param x The x-coordinate of the vector.
+     * @param y The y-coordinate of the vector.
+     * @param z The z-coordinate of the vector.
+     * @return the new vector
+     */
+    public static Vector unchecked(double x, double y, double z) {
+        return new Vector(x, y, z, false);
+    }
+
+    /**
+     * Checks whether coordinates are of the zero vector - whether all of them are zero, up to the
+     * accuracy of {@link Util#isZero(double)} (the same measure as {@code Double3.ZERO.equals}).
+     * @param x The x-coordinate.
+     * @param y The y-coordinate.
+     * @param z The z-coordinate.
+     * @return true if all the coordinates are zero
+     */
+    static boolean isZeroVector(double x, double y, double z) {
+        return isZero(x) && isZero(y) && isZero(z);
+    }
+
     /**
      * Computes the vector resulting from adding another vector to this vector.
      * @param v The vector to add.
      * @return The new vector resulting from adding the specified vector to this vector.
      */
     public Vector add(Vector v){
-        if(this.equals(v.scale(-1)))
+        // the sum is checked once, instead of creating the opposite vector and comparing to it
+        double x = xyz.d1 + v.xyz.d1, y = xyz.d2 + v.xyz.d2, z = xyz.d3 + v.xyz.d3;
+        if (isZeroVector(x, y, z))
             throw new IllegalArgumentException("Adding opposite vectors gives the zero vector");
-        return new Vector(xyz.add(v.xyz));
+        return new Vector(x, y, z, false);
     }
 
     /**
@@ -127,7 +178,8 @@ public class Vector extends Point {
      * @return The normalized vector.
      */
     public Vector normalize(){
-        return scale(1/length()); //////////////////////////////////////////////////////////////////////
+        // a normalized vector is never the zero vector
+        return new Vector(xyz.scale(1/length()), false);
     }
 
     /**
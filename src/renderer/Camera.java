@@ -1,13 +1,13 @@
 package renderer;
 
 import primitives.*;
+import scene.CameraSettings;
+import scene.Scene;
 
 import java.util.LinkedList;
 import java.util.List;
 import java.util.MissingResourceException;
 
-import renderer.PixelManager;
-
 import static primitives.Util.isZero;
 
 /*
@@ -36,12 +36,21 @@ public class Camera implements Cloneable {
     private int antiAliasingFactor = 1;
 
     private boolean threads = false;
-    private PixelManager pixelManager;
     private double printInterval = 1;
     private int threadsCount = 0;//num of threads
+    private int tileSize = 16;//width and height of a rendering tile in pixels
+    private boolean virtualThreads = false;//render the tiles by virtual threads
+    private boolean collectStatistics = false;//collect statistics of the renderings
+    private RenderStatistics statistics = null;//statistics of the last rendering
+    private HeatMap.Metric heatMapMetric = null;//metric of the heat map output, null for no heat map
+    private HeatMap heatMap = null;//costs of the pixels of the last rendering
     //private Point centerPoint;
 
     private boolean useAdaptive=false;
+    private int packetSize = 1;//width and height of the blocks of pixels traced as ray packets, 1 for single rays
+
+    /** Width and height of the blocks of pixels sampled once by the coarse preview pass (1/16 of the pixels) */
+    private static final int PREVIEW_BLOCK = 4;
     /**
      * Private constructor to enforce the use of the builder for creating Camera instances.
      */
@@ -173,10 +182,10 @@ public class Camera implements Cloneable {
 
         double yI = -(i - (nY - 1d) / 2) * rY;
         double jX = (j - (nX - 1d) / 2) * rX;
-        Point pIJ = position.add(vTo.scale(distance));
+        Point pIJ = position.addScaled(vTo, distance);
 
-        if (yI != 0) pIJ = pIJ.add(vUp.scale(yI));
-        if (jX != 0) pIJ = pIJ.add(vRight.scale(jX));
+        if (yI != 0) pIJ = pIJ.addScaled(vUp, yI);
+        if (jX != 0) pIJ = pIJ.addScaled(vRight, jX);
         return pIJ;
     }
     public Ray constructRay(int nX, int nY, int j, int i) {
@@ -208,8 +217,8 @@ public class Camera implements Cloneable {
                 y = -(rowNumber - (antiAliasingFactor - 1d) / 2) * rY;
                 x = (colNumber - (antiAliasingFactor - 1d) / 2) * rX;
                 Point pIJ = centralPixel;
-                if (y != 0) pIJ = pIJ.add(vUp.scale(y));
-                if (x != 0) pIJ = pIJ.add(vRight.scale(x));
+                if (y != 0) pIJ = pIJ.addScaled(vUp, y);
+                if (x != 0) pIJ = pIJ.addScaled(vRight, x);
                 rays.add(new Ray(position, pIJ.subtract(position)));
             }
         }
@@ -225,6 +234,7 @@ public class Camera implements Cloneable {
 
         /**
          * Sets number of threads in builder pattern.
+         * 0 renders in the calling thread, a negative number uses all the available cores.
          *
          * @param threadsCount
          * @return Camera that results
@@ -234,6 +244,77 @@ public class Camera implements Cloneable {
             return this;
         }
 
+        /**
+         * Sets the size of the tiles the image is divided into for multi-threaded rendering.
+         *
+         * @param tileSize width and height of a tile in pixels
+         * @return the builder instance.
+         * @throws IllegalArgumentException if the tile size is not positive.
+         */
+        public Builder setTileSize(int tileSize) {
+            if (tileSize <= 0)
+                throw new IllegalArgumentException("tile size should be positive");
+            camera.tileSize = tileSize;
+            return this;
+        }
+
+        /**
+         * Sets whether the tiles are rendered by virtual threads (a thread per tile) instead of a pool
+         * of platform threads. The number of threads set by {@link #setMultiThreading(int)} bounds the
+         * amount of the tiles rendered at the same time.
+         *
+         * @param virtualThreads true to render by virtual threads
+         * @return the builder instance.
+         */
+        public Builder setVirtualThreads(boolean virtualThreads) {
+            camera.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        /**
+         * Sets whether the camera collects statistics of its renderings (rays, intersection tests,
+         * recursion depths and times), see {@link Camera#getStatistics()}.
+         *
+         * @param collectStatistics true to collect the statistics
+         * @return the builder instance.
+         */
+        public Builder setStatistics(boolean collectStatistics) {
+            camera.collectStatistics = collectStatistics;
+            return this;
+        }
+
+        /**
+         * Sets the heat map output - the cost of every pixel of the renderings is recorded (see
+         * {@link Camera#getHeatMap()}), and a metric of the costs is written with the image as
+         * &lt;image name&gt;_heatmap.png (false colors) and &lt;image name&gt;_heatmap.raw (floats).
+         *
+         * @param metric the metric written with the image, null for no heat map
+         * @return the builder instance.
+         */
+        public Builder setHeatMap(HeatMap.Metric metric) {
+            camera.heatMapMetric = metric;
+            return this;
+        }
+
+        /**
+         * Sets the packet tracing of {@link Camera#renderImage()} - the primary rays of each block of
+         * packetSize x packetSize pixels (all their antialiasing samples) are traced together as ray
+         * packets (see {@link RayTracerBase#tracePacket(Ray[])}), the colors are the same as by single rays.
+         * Packets are used by multi-threaded rendering only (the packets follow the pixels of the tiles, while
+         * the calling thread samples its pixels in another order), and not by adaptive super-sampling, nor
+         * when a heat map is recorded (its costs are of single pixels).
+         *
+         * @param packetSize width and height of the blocks of pixels - 2 or 4, or 1 for single rays
+         * @return the builder instance.
+         * @throws IllegalArgumentException if the packet size is not 1, 2 or 4.
+         */
+        public Builder setPacketSize(int packetSize) {
+            if (packetSize != 1 && packetSize != 2 && packetSize != 4)
+                throw new IllegalArgumentException("packet size should be 1, 2 or 4");
+            camera.packetSize = packetSize;
+            return this;
+        }
+
         public Builder setAdaptive(boolean adaptive) {
             camera.useAdaptive = adaptive;
             return this;
@@ -266,6 +347,28 @@ public class Camera implements Cloneable {
             return this;
         }
 
+        /**
+         * Sets the camera to render a scene - a simple ray tracer of the frozen scene (see
+         * {@link Scene#freeze()}, so later changes of the scene are not rendered), and if the scene has
+         * camera settings (e.g. a scene loaded from a scene file) - the location, the direction, the view
+         * plane and an image writer (named after the scene) of the settings.
+         *
+         * @param scene the scene to render
+         * @return the builder instance.
+         * @throws IllegalArgumentException if the camera settings of the scene are illegal
+         */
+        public Builder setScene(Scene scene) {
+            setRayTracer(new SimpleRayTracer(scene.freeze()));
+            CameraSettings settings = scene.camera;
+            if (settings != null)
+                setLocation(settings.location())
+                        .setDirection(settings.to(), settings.up())
+                        .setVpDistance(settings.distance())
+                        .setVpSize(settings.height(), settings.width())
+                        .setImageWriter(new ImageWriter(scene.name, settings.nX(), settings.nY()));
+            return this;
+        }
+
         /**
          * Sets the ImageWriter for the camera.
          *
@@ -398,66 +501,289 @@ public class Camera implements Cloneable {
      * Renders the image by casting rays through each pixel.
      */
     public Camera renderImage() {
-       // pixelManager = new PixelManager(imageWriter.getNy(), imageWriter.getNx(), printInterval);
-        PixelManager.initialize(imageWriter.getNy(), imageWriter.getNx(), printInterval);
-        if (threadsCount == 0) {
-            for (int i = 0; i < imageWriter.getNy(); i++)
-                for (int j = 0; j < imageWriter.getNx(); j++) {
+        long start = startStatistics();
+        if (packetSize > 1 && threadsCount != 0 && !useAdaptive && heatMap == null)
+            // the first pixel of each block renders the whole block
+            forEachPixel((col, row) -> {
+                if (col % packetSize == 0 && row % packetSize == 0)
+                    renderPacket(col, row);
+            }, printInterval);
+        else if (threadsCount == 0)
+            forEachPixel((col, row) -> imageWriter.writePixel(col, row, castRay(col, row)), 0);
+        else
+            // Render the tiles of the image in parallel, idle threads steal tiles from the busy ones
+            forEachPixel(this::renderPixel, printInterval);
+        endPhase("render", start);
+        return this;
+    }
 
-                    this.imageWriter.writePixel(j, i, castRay(j, i));
-                }
+    /**
+     * Returns the statistics of the last rendering of the camera (including the writing of its image).
+     *
+     * @return the statistics, or null if the camera doesn't collect statistics (nor a heat map) or didn't render yet
+     */
+    public RenderStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Returns the costs of the pixels of the last rendering of the camera.
+     *
+     * @return the heat map, or null if the camera doesn't record a heat map or didn't render yet
+     */
+    public HeatMap getHeatMap() {
+        return heatMap;
+    }
+
+    /**
+     * Starts collecting the statistics and the heat map of a new rendering (if the camera collects them).
+     * The heat map is based on the counters of the statistics, so they are collected for it as well.
+     *
+     * @return the start time of the rendering
+     */
+    private long startStatistics() {
+        heatMap = heatMapMetric == null ? null : new HeatMap(imageWriter.getNx(), imageWriter.getNy());
+        statistics = collectStatistics || heatMap != null ? new RenderStatistics() : null;
+        return System.nanoTime();
+    }
+
+    /**
+     * Adds the wall time of a phase to the statistics of the rendering.
+     *
+     * @param phase the name of the phase
+     * @param start the start time of the phase
+     */
+    private void endPhase(String phase, long start) {
+        if (statistics != null)
+            statistics.addPhase(phase, System.nanoTime() - start);
+    }
+    /**
+     * Renders the image progressively and writes it to the image writer.<br/>
+     * The first pass traces a single ray in each block of 4x4 pixels (a coarse preview), the second
+     * pass completes the rays through the centers of all the other pixels, and each of the next passes
+     * adds one antialiasing sample to each pixel, up to the square of the antialiasing factor.
+     * Every pass only adds samples - the samples of the previous passes are kept in the frame buffer.
+     * The listener gets the frame buffer after each pass and may stop the rendering.
+     *
+     * @param listener listener of the passes
+     * @return the camera itself
+     */
+    public Camera renderProgressive(ProgressListener listener) {
+        return renderProgressive(listener, RenderBudget.unlimited());
+    }
+
+    /**
+     * Renders the best image achievable within a budget (a deadline and/or a cancellation token)
+     * and writes it to the image writer.
+     *
+     * @param budget the budget of the rendering
+     * @return the camera itself
+     * @see #renderProgressive(ProgressListener, RenderBudget)
+     */
+    public Camera renderImage(RenderBudget budget) {
+        return renderProgressive((pass, frame) -> true, budget);
+    }
+
+    /**
+     * Renders the image progressively within a budget (see {@link #renderProgressive(ProgressListener)}).<br/>
+     * When the budget is over the rendering stops in the middle of the current pass, so the amount of
+     * the samples of the pixels is lowered as the deadline approaches. The pixels that the pass didn't
+     * reach keep the samples of the previous passes (or the preview color of their block), so no pixel
+     * is left black. The coarse preview pass is always completed.
+     *
+     * @param listener listener of the passes
+     * @param budget   the budget of the rendering
+     * @return the camera itself
+     */
+    public Camera renderProgressive(ProgressListener listener, RenderBudget budget) {
+        long start = startStatistics();
+        renderPasses(listener, budget);
+        endPhase("render", start);
+        return this;
+    }
+
+    /**
+     * Renders the passes of progressive rendering (see {@link #renderProgressive(ProgressListener, RenderBudget)}).
+     *
+     * @param listener listener of the passes
+     * @param budget   the budget of the rendering
+     */
+    private void renderPasses(ProgressListener listener, RenderBudget budget) {
+        int nX = imageWriter.getNx();
+        int nY = imageWriter.getNy();
+        FrameBuffer frame = new FrameBuffer(nX, nY, PREVIEW_BLOCK);
+
+        // coarse pass - the center of the corner pixel of each block
+        long start = System.nanoTime();
+        forEachPixel((col, row) -> {
+            if (col % PREVIEW_BLOCK == 0 && row % PREVIEW_BLOCK == 0)
+                frame.addSample(col, row, rayTracer.traceRay(constructRay(nX, nY, col, row)));
+        }, 0);
+        endPhase("preview pass", start);
+        boolean go = listener.passDone(0, frame) && !budget.isExhausted();
+
+        // full resolution pass - the centers of the rest of the pixels
+        if (go) {
+            start = System.nanoTime();
+            forEachPixel((col, row) -> {
+                if (frame.getSamples(col, row) == 0 && !budget.isExhausted())
+                    frame.addSample(col, row, rayTracer.traceRay(constructRay(nX, nY, col, row)));
+            }, 0);
+            endPhase("full resolution pass", start);
+            go = listener.passDone(1, frame) && !budget.isExhausted();
         }
-//        else { // see further... option 2
-//            var threads = new LinkedList<Thread>(); // list of threads
-//            while (threadsCount-- > 0) // add appropriate number of threads
-//                threads.add(new Thread(() -> { // add a thread with its code
-//                    PixelManager pixel; // current pixel(row,col)
-//                    // allocate pixel(row,col) in loop until there are no more pixels
-//                    while ( pixelManager.nextPixel())
-//                        // cast ray through pixel (and color it – inside castRay)
-//                        this.imageWriter.writePixel(pixelManager.row, pixelManager.col, castRay(pixelManager.row, pixelManager.col));
-//                    // castRay(imageWriter.getNx(), imageWriter.getNy(), pixel.col(), pixel.row());
-//                }));
-//            // start all the threads
-//            for (var thread : threads)
-//                thread.start();
-//            // wait until all the threads have finished
-//            try {
-//                for (var thread : threads)
-//                    thread.join();
-//            } catch (InterruptedException ignore) {
-//            }
-    //    }
-
-                else {
-            // Render the image using adaptive super-sampling
-            // Create multiple threads to process the pixels in parallel
-
-            while (threadsCount-- > 0) {
-                new Thread(() -> {
-                    // Iterate over each pixel in the image
-                    for (PixelManager pixel=new PixelManager(); pixel.nextPixel(); PixelManager.pixelDone()) {
-                        // Apply adaptive super-sampling to determine the pixel color
-                        if (useAdaptive){
-                            Color pixelColorAdaptive = SuperSampling(imageWriter.getNx(), imageWriter.getNy(), pixel.col, pixel.row, antiAliasingFactor, false);
-                            imageWriter.writePixel(pixel.col, pixel.row, pixelColorAdaptive);
-                    }
-                        else{
-                        // Construct rays for the current pixel and trace them using the ray tracer
-                        List<Ray> rays = constructRays(imageWriter.getNx(), imageWriter.getNy(), pixel.col, pixel.row);
-                        Color pixelColor = rayTracer.traceRays(rays);
-                            imageWriter.writePixel(pixel.col, pixel.row, pixelColor);
-                        }
-
-                    }
-                }).start();
+
+        // antialiasing passes - a low discrepancy (Halton) sample in each pixel per pass
+        int maxSamples = antiAliasingFactor * antiAliasingFactor;
+        for (int sample = 1; go && sample < maxSamples; ++sample) {
+            double dx = halton(sample, 2) - 0.5;
+            double dy = halton(sample, 3) - 0.5;
+            start = System.nanoTime();
+            forEachPixel((col, row) -> {
+                if (!budget.isExhausted())
+                    frame.addSample(col, row, rayTracer.traceRay(constructSampleRay(nX, nY, col, row, dx, dy)));
+            }, 0);
+            endPhase("antialiasing passes", start);
+            go = listener.passDone(sample + 1, frame) && !budget.isExhausted();
+        }
+
+        frame.writeTo(imageWriter);
+    }
+
+    /**
+     * Runs a task on every pixel of the image - in the calling thread, or by the tiles scheduler
+     * if multi-threading is set. The statistics of the rendering (if collected) are set to the ray tracer
+     * in the rendering thread for each pixel only, so they don't outlive the rendering nor mix with
+     * another rendering through the same ray tracer. The costs of the tasks are added to the heat map
+     * (if recorded).
+     *
+     * @param task     the task of a single pixel
+     * @param interval progress print time interval in seconds, 0 if printing is not required
+     */
+    private void forEachPixel(TileScheduler.PixelRenderer task, double interval) {
+        RenderStatistics renderStatistics = statistics;
+        HeatMap renderHeatMap = heatMap;
+        TileScheduler.PixelRenderer renderer = renderStatistics == null ? task : (col, row) -> {
+            RenderStatistics previous = rayTracer.setStatistics(renderStatistics);
+            try {
+                if (renderHeatMap == null) {
+                    task.renderPixel(col, row);
+                    return;
+                }
+                long rays = renderStatistics.threadRays();
+                long tests = renderStatistics.threadIntersectionTests();
+                long start = System.nanoTime();
+                task.renderPixel(col, row);
+                renderHeatMap.add(col, row, renderStatistics.threadRays() - rays,
+                        renderStatistics.threadIntersectionTests() - tests, System.nanoTime() - start);
+            } finally {
+                rayTracer.setStatistics(previous);
             }
-            // Wait for all the threads to finish processing the pixels
-            PixelManager.waitToFinish();
+        };
+        int nX = imageWriter.getNx();
+        int nY = imageWriter.getNy();
+        if (threadsCount == 0) {
+            for (int row = 0; row < nY; ++row)
+                for (int col = 0; col < nX; ++col)
+                    renderer.renderPixel(col, row);
+            return;
         }
+        int parallelism = threadsCount > 0 ? threadsCount : Runtime.getRuntime().availableProcessors();
+        TileScheduler scheduler = new TileScheduler(nX, nY, tileSize, new PixelManager(nY, nX, interval));
+        if (virtualThreads)
+            scheduler.renderVirtual(parallelism, renderer);
+        else
+            scheduler.render(parallelism, renderer);
+    }
 
-        return this;
+    /**
+     * Constructs a ray through a point inside a pixel.
+     *
+     * @param nX  number of pixels in the X direction.
+     * @param nY  number of pixels in the Y direction.
+     * @param j   pixel index in the X direction.
+     * @param i   pixel index in the Y direction.
+     * @param dx  offset from the pixel's center to the right, in pixel widths (-0.5..0.5)
+     * @param dy  offset from the pixel's center downwards, in pixel heights (-0.5..0.5)
+     * @return a Ray from the camera through the point
+     */
+    private Ray constructSampleRay(int nX, int nY, int j, int i, double dx, double dy) {
+        Point pIJ = findPixelLocation(nX, nY, j, i);
+        double x = dx * width / nX;
+        double y = -dy * height / nY;
+        if (!isZero(x)) pIJ = pIJ.addScaled(vRight, x);
+        if (!isZero(y)) pIJ = pIJ.addScaled(vUp, y);
+        return new Ray(position, pIJ.subtract(position));
+    }
+
+    /**
+     * Calculates an element of the Halton low discrepancy sequence.
+     *
+     * @param index the index of the element (positive)
+     * @param base  the base of the sequence (a prime number)
+     * @return the element, in the range 0..1
+     */
+    private static double halton(int index, int base) {
+        double result = 0;
+        double fraction = 1;
+        while (index > 0) {
+            fraction /= base;
+            result += fraction * (index % base);
+            index /= base;
+        }
+        return result;
     }
+
+    /**
+     * Renders a single pixel in multi-threaded rendering and writes it to the image.
+     *
+     * @param col the pixel's column
+     * @param row the pixel's row
+     */
+    private void renderPixel(int col, int row) {
+        // Apply adaptive super-sampling to determine the pixel color
+        if (useAdaptive) {
+            Color pixelColorAdaptive = SuperSampling(imageWriter.getNx(), imageWriter.getNy(), col, row, antiAliasingFactor, false);
+            imageWriter.writePixel(col, row, pixelColorAdaptive);
+        } else {
+            // Construct rays for the current pixel and trace them using the ray tracer
+            List<Ray> rays = constructRays(imageWriter.getNx(), imageWriter.getNy(), col, row);
+            Color pixelColor = rayTracer.traceRays(rays);
+            imageWriter.writePixel(col, row, pixelColor);
+        }
+    }
+
+    /**
+     * Renders a block of pixels by ray packets and writes it to the image. The samples of each pixel are
+     * averaged in the order of {@link #constructRays(int, int, int, int)}, as by {@link #renderPixel(int, int)}.
+     *
+     * @param col0 the column of the first pixel of the block
+     * @param row0 the row of the first pixel of the block
+     */
+    private void renderPacket(int col0, int row0) {
+        int nX = imageWriter.getNx();
+        int nY = imageWriter.getNy();
+        int col1 = Math.min(col0 + packetSize, nX);
+        int row1 = Math.min(row0 + packetSize, nY);
+        int samples = antiAliasingFactor * antiAliasingFactor;
+        Ray[] rays = new Ray[(col1 - col0) * (row1 - row0) * samples];
+        int index = 0;
+        for (int row = row0; row < row1; ++row)
+            for (int col = col0; col < col1; ++col)
+                for (Ray ray : constructRays(nX, nY, col, row))
+                    rays[index++] = ray;
+
+        Color[] colors = rayTracer.tracePacket(rays);
+        index = 0;
+        for (int row = row0; row < row1; ++row)
+            for (int col = col0; col < col1; ++col) {
+                Color color = Color.BLACK;
+                for (int sample = 0; sample < samples; ++sample)
+                    color = color.add(colors[index++]);
+                imageWriter.writePixel(col, row, color.reduce(samples));
+            }
+    }
+
     private Color SuperSampling(int nX, int nY, int j, int i,  int numOfRays, boolean adaptiveAlising)  {
         // Get the right and up vectors of the camera
         Vector Vright = vRight;
@@ -515,7 +841,11 @@ public class Camera implements Cloneable {
      * Writes the image to the output.
      */
     public void writeToImage() {
+        long start = System.nanoTime();
         imageWriter.writeToImage();
+        if (heatMap != null)
+            heatMap.writeToImage(imageWriter.getImageName() + "_heatmap", heatMapMetric);
+        endPhase("write", start);
     }
 
 //    private Color castRay(int j, int i) {
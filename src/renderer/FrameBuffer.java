@@ -0,0 +1,111 @@
+package renderer;
+
+import primitives.Color;
+
+/**
+ * Frame buffer of progressive rendering.<br/>
+ * The buffer accumulates the samples traced for each pixel, so every pass of the
+ * rendering only adds its new samples to the samples of the previous passes.
+ * A pixel that wasn't sampled yet (during the coarse preview pass) shows the color
+ * of the sampled pixel at the corner of its block.
+ *
+ * @author Hadar Nagar & Elinoy Damari
+ */
+public class FrameBuffer {
+    /** Amount of the pixel columns */
+    private final int nX;
+    /** Amount of the pixel rows */
+    private final int nY;
+    /** Width and height of a block of pixels of the coarse pass */
+    private final int blockSize;
+    /** Sum of the sampled colors of each pixel */
+    private final Color[] sums;
+    /** Amount of the samples of each pixel */
+    private final int[] samples;
+
+    /**
+     * Constructs an empty frame buffer
+     *
+     * @param nX        amount of the pixel columns
+     * @param nY        amount of the pixel rows
+     * @param blockSize width and height of a block of pixels of the coarse pass
+     */
+    FrameBuffer(int nX, int nY, int blockSize) {
+        this.nX = nX;
+        this.nY = nY;
+        this.blockSize = blockSize;
+        sums = new Color[nX * nY];
+        samples = new int[nX * nY];
+    }
+
+    /**
+     * Returns the amount of the pixel columns
+     *
+     * @return the amount of the pixel columns
+     */
+    public int getNx() {
+        return nX;
+    }
+
+    /**
+     * Returns the amount of the pixel rows
+     *
+     * @return the amount of the pixel rows
+     */
+    public int getNy() {
+        return nY;
+    }
+
+    /**
+     * Adds a sample to a pixel - a pixel must not be sampled by several threads at the same time
+     *
+     * @param col   the pixel's column
+     * @param row   the pixel's row
+     * @param color the sampled color
+     */
+    void addSample(int col, int row, Color color) {
+        int index = row * nX + col;
+        sums[index] = samples[index] == 0 ? color : sums[index].add(color);
+        ++samples[index];
+    }
+
+    /**
+     * Returns the amount of the samples of a pixel
+     *
+     * @param col the pixel's column
+     * @param row the pixel's row
+     * @return the amount of the samples
+     */
+    public int getSamples(int col, int row) {
+        return samples[row * nX + col];
+    }
+
+    /**
+     * Returns the color of a pixel - the average of its samples, or the preview color of its
+     * block if the pixel wasn't sampled yet
+     *
+     * @param col the pixel's column
+     * @param row the pixel's row
+     * @return the color of the pixel, black if neither the pixel nor its block were sampled
+     */
+    public Color getColor(int col, int row) {
+        int index = row * nX + col;
+        if (samples[index] == 0) {
+            index = (row - row % blockSize) * nX + col - col % blockSize;
+            if (samples[index] == 0)
+                return Color.BLACK;
+        }
+        return samples[index] == 1 ? sums[index] : sums[index].reduce(samples[index]);
+    }
+
+    /**
+     * Writes the current colors of all the pixels to an image
+     *
+     * @param imageWriter the image writer
+     */
+    public void writeTo(ImageWriter imageWriter) {
+        for (int row = 0; row < nY; ++row)
+            for (int col = 0; col < nX; ++col)
+                imageWriter.writePixel(col, row, getColor(col, row));
+    }
+}
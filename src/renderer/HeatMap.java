@@ -0,0 +1,175 @@
+package renderer;
+
+import primitives.Color;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Per-pixel cost of a rendering - the rays, the intersection tests and the time spent on each pixel.<br/>
+ * The costs show which parts of the scene (e.g. transparent objects, many light sources) make the
+ * rendering slow. A metric of the costs can be written as a false-color image and as a raw buffer of floats.
+ * <p>
+ * Each pixel is rendered by a single thread in each pass, and the passes are separated by the joins of
+ * their threads, so the costs are updated without synchronization.
+ * </p>
+ *
+ * @author Hadar Nagar & Elinoy Damari
+ */
+public class HeatMap {
+    /**
+     * Metrics of the cost of a pixel
+     */
+    public enum Metric {
+        /** Amount of the traced rays of all the types */
+        RAYS,
+        /** Amount of the intersection tests of the geometries */
+        INTERSECTION_TESTS,
+        /** Time of the rendering of the pixel in nanoseconds */
+        NANOS
+    }
+
+    /** Stops of the false-color scale - black, blue, red, yellow, white */
+    private static final double[][] SCALE = {
+            {0, 0, 0}, {0, 0, 255}, {255, 0, 0}, {255, 255, 0}, {255, 255, 255}};
+
+    private final int nX;
+    private final int nY;
+    /** Costs of the pixels by the metric, row by row */
+    private final long[][] costs = new long[Metric.values().length][];
+
+    /**
+     * Constructs an empty heat map
+     *
+     * @param nX amount of pixels by width
+     * @param nY amount of pixels by height
+     */
+    HeatMap(int nX, int nY) {
+        this.nX = nX;
+        this.nY = nY;
+        for (int i = 0; i < costs.length; ++i)
+            costs[i] = new long[nX * nY];
+    }
+
+    /**
+     * Adds cost to a pixel
+     *
+     * @param col   column of the pixel
+     * @param row   row of the pixel
+     * @param rays  amount of the traced rays
+     * @param tests amount of the intersection tests
+     * @param nanos rendering time in nanoseconds
+     */
+    void add(int col, int row, long rays, long tests, long nanos) {
+        int index = row * nX + col;
+        costs[Metric.RAYS.ordinal()][index] += rays;
+        costs[Metric.INTERSECTION_TESTS.ordinal()][index] += tests;
+        costs[Metric.NANOS.ordinal()][index] += nanos;
+    }
+
+    /**
+     * Returns the cost of a pixel
+     *
+     * @param metric the metric of the cost
+     * @param col    column of the pixel
+     * @param row    row of the pixel
+     * @return the cost of the pixel
+     */
+    public long getCost(Metric metric, int col, int row) {
+        return costs[metric.ordinal()][row * nX + col];
+    }
+
+    /**
+     * Returns the highest cost of a pixel
+     *
+     * @param metric the metric of the cost
+     * @return the highest cost
+     */
+    public long getMaxCost(Metric metric) {
+        long max = 0;
+        for (long cost : costs[metric.ordinal()])
+            max = Math.max(max, cost);
+        return max;
+    }
+
+    /**
+     * Returns the width of the heat map
+     *
+     * @return the amount of horizontal pixels
+     */
+    public int getNx() {
+        return nX;
+    }
+
+    /**
+     * Returns the height of the heat map
+     *
+     * @return the amount of vertical pixels
+     */
+    public int getNy() {
+        return nY;
+    }
+
+    /**
+     * Returns the false color of a cost - from black (no cost) through blue, red and yellow to white
+     * (the highest cost)
+     *
+     * @param cost the cost
+     * @param max  the highest cost
+     * @return the color of the cost
+     */
+    static Color falseColor(long cost, long max) {
+        if (max == 0)
+            return Color.BLACK;
+        double position = (double) cost / max * (SCALE.length - 1);
+        int stop = Math.min((int) position, SCALE.length - 2);
+        double fraction = position - stop;
+        double[] from = SCALE[stop];
+        double[] to = SCALE[stop + 1];
+        return new Color(from[0] + (to[0] - from[0]) * fraction,
+                from[1] + (to[1] - from[1]) * fraction,
+                from[2] + (to[2] - from[2]) * fraction);
+    }
+
+    /**
+     * Writes a metric of the costs as a false-color png image and as a raw buffer of floats
+     * (little-endian, row by row, without a header) in the folder of the images.
+     * The false colors are scaled by the highest cost.
+     *
+     * @param name   name of the files, not including the extensions '.png' and '.raw'
+     * @param metric the metric of the cost
+     */
+    public void writeToImage(String name, Metric metric) {
+        long max = getMaxCost(metric);
+        ImageWriter imageWriter = new ImageWriter(name, nX, nY);
+        for (int row = 0; row < nY; ++row)
+            for (int col = 0; col < nX; ++col)
+                imageWriter.writePixel(col, row, falseColor(getCost(metric, col, row), max));
+        imageWriter.writeToImage();
+        writeRaw(Path.of(ImageWriter.FOLDER_PATH, name + ".raw"), metric);
+    }
+
+    /**
+     * Writes a metric of the costs as a raw buffer of floats (little-endian, row by row, without a header)
+     *
+     * @param file   the file to write
+     * @param metric the metric of the cost
+     */
+    public void writeRaw(Path file, Metric metric) {
+        ByteBuffer buffer = ByteBuffer.allocate(nX * nY * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (long cost : costs[metric.ordinal()])
+            buffer.putFloat(cost);
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error - can't write " + file, e);
+        }
+    }
+}
@@ -32,7 +32,7 @@ public class ImageWriter {
      * Directory path for the image file generation - relative to the user
      * directory
      */
-    private static final String FOLDER_PATH = System.getProperty("user.dir") + "/images";
+    static final String FOLDER_PATH = System.getProperty("user.dir") + "/images";
 
     /**
      * Image generation buffer (the matrix of the pixels)
@@ -84,6 +84,15 @@ public class ImageWriter {
         return nX;
     }
 
+    /**
+     * Image file name, not including the file extension '.png'
+     *
+     * @return the name of the image
+     */
+    public String getImageName() {
+        return imageName;
+    }
+
     // ***************** Operations ******************** //
 
     /**
@@ -0,0 +1,21 @@
+package renderer;
+
+/**
+ * Listener of progressive rendering - it is notified after each pass of the rendering
+ * and decides whether the rendering should go on.
+ *
+ * @author Hadar Nagar & Elinoy Damari
+ */
+@FunctionalInterface
+public interface ProgressListener {
+    /**
+     * Called by the rendering thread after each pass. The frame buffer must not be kept
+     * by the listener, it's updated by the next passes.
+     *
+     * @param pass  number of the pass: 0 for the coarse preview, 1 for the full resolution,
+     *              and the number of the samples per pixel for the antialiasing passes after it
+     * @param frame the frame buffer after the pass
+     * @return true to continue the rendering, false to stop it
+     */
+    boolean passDone(int pass, FrameBuffer frame);
+}
@@ -2,10 +2,12 @@
 
 package renderer;
 
+import geometries.HitRecord;
 import primitives.Color;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
+import scene.FrozenScene;
 import scene.Scene;
 
 import java.util.List;
@@ -16,8 +18,16 @@ import java.util.List;
  */
 public abstract class RayTracerBase {
 
-    /** The scene to be rendered by the ray tracer. */
+    /** The scene to be rendered by the ray tracer, null if a frozen scene is rendered. */
     protected Scene scene;
+    /** The frozen scene to be rendered by the ray tracer, null if a (live) scene is rendered. */
+    protected final FrozenScene frozen;
+
+    /**
+     * Statistics of the rendering each thread currently renders a pixel of - kept per thread, so renderings
+     * sharing the ray tracer don't mix their statistics. Not set if the statistics are not collected.
+     */
+    private final ThreadLocal<RenderStatistics> statistics = new ThreadLocal<>();
 
     /**
      * Constructs a RayTracerBase with the specified scene.
@@ -26,6 +36,17 @@ public abstract class RayTracerBase {
      */
     public RayTracerBase(Scene scene) {
         this.scene = scene;
+        this.frozen = null;
+    }
+
+    /**
+     * Constructs a RayTracerBase of a frozen scene (see {@link Scene#freeze()}).
+     *
+     * @param scene the frozen scene to be rendered.
+     */
+    public RayTracerBase(FrozenScene scene) {
+        this.scene = null;
+        this.frozen = scene;
     }
 
     /**
@@ -36,6 +57,48 @@ public abstract class RayTracerBase {
      * @return the color resulting from tracing the ray.
      */
     public abstract Color traceRay(Ray ray);
+
+    /**
+     * Traces a packet of coherent rays (e.g. the rays through a block of pixels) and returns their colors.
+     * The default implementation traces the rays one by one, ray tracers may find the closest
+     * intersections of the rays together - the colors must be the same as by {@link #traceRay(Ray)}.
+     *
+     * @param rays the rays to be traced.
+     * @return the colors of the rays, in the order of the rays.
+     */
+    public Color[] tracePacket(Ray[] rays) {
+        Color[] colors = new Color[rays.length];
+        for (int i = 0; i < rays.length; ++i)
+            colors[i] = traceRay(rays[i]);
+        return colors;
+    }
+
+    /**
+     * Sets the statistics collected by the ray tracer in the current thread, and turns the counting of the
+     * intersection tests of the thread on or off accordingly.
+     *
+     * @param statistics the statistics of the rendering, or null to stop collecting statistics.
+     * @return the statistics the thread collected before, null if it didn't collect statistics.
+     */
+    RenderStatistics setStatistics(RenderStatistics statistics) {
+        RenderStatistics previous = this.statistics.get();
+        if (statistics == null)
+            this.statistics.remove();
+        else
+            this.statistics.set(statistics);
+        HitRecord.local().setCountingTests(statistics != null);
+        return previous;
+    }
+
+    /**
+     * Returns the statistics collected by the ray tracer in the current thread.
+     *
+     * @return the statistics of the rendering, null if the statistics are not collected.
+     */
+    protected RenderStatistics statistics() {
+        return statistics.get();
+    }
+
     public abstract Color traceRays(List<Ray> rays);
     public abstract Color AdaptiveSuperSamplingRec(Point centerP, double Width, double Height, double minWidth, double minHeight, Point cameraLoc, Vector Vright, Vector Vup, List<Point> prePoints);
     public abstract Color RegularSuperSampling(Point centerP, double Width, double Height, double minWidth, double minHeight, Point cameraLoc, Vector Vright, Vector Vup, List<Point> prePoints);
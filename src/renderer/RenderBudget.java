@@ -0,0 +1,74 @@
+package renderer;
+
+import java.time.Duration;
+
+/**
+ * Budget of a rendering - a deadline and/or a cancellation token.<br/>
+ * The rendering threads check the budget cooperatively (between pixels), so a budget
+ * may be cancelled from any thread while the rendering goes on.
+ *
+ * @author Hadar Nagar & Elinoy Damari
+ */
+public class RenderBudget {
+    /** Start time of the budget (by {@link System#nanoTime()}) */
+    private final long start = System.nanoTime();
+    /** Length of the budget in nanoseconds, Long.MAX_VALUE if there's no deadline */
+    private final long nanos;
+    /** Flag of cancelled budget */
+    private volatile boolean cancelled = false;
+
+    /**
+     * Constructs a budget starting now
+     *
+     * @param nanos length of the budget in nanoseconds, Long.MAX_VALUE for no deadline
+     */
+    private RenderBudget(long nanos) {
+        this.nanos = nanos;
+    }
+
+    /**
+     * Creates a budget without a deadline - it ends only when it's cancelled
+     *
+     * @return the budget
+     */
+    public static RenderBudget unlimited() {
+        return new RenderBudget(Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a budget of a given time starting now (it may also be cancelled before its deadline)
+     *
+     * @param time the time of the rendering
+     * @return the budget
+     */
+    public static RenderBudget of(Duration time) {
+        if (time.isNegative())
+            throw new IllegalArgumentException("Time budget must not be negative");
+        return new RenderBudget(time.compareTo(Duration.ofNanos(Long.MAX_VALUE)) >= 0 ? Long.MAX_VALUE : time.toNanos());
+    }
+
+    /**
+     * Cancels the rendering - the rendering stops as soon as possible
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Checks whether the budget was cancelled
+     *
+     * @return true if the budget was cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Checks whether the budget is over - it was cancelled or its deadline has passed
+     *
+     * @return true if the rendering should stop
+     */
+    public boolean isExhausted() {
+        return cancelled || nanos != Long.MAX_VALUE && System.nanoTime() - start >= nanos;
+    }
+}
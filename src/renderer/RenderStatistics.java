@@ -0,0 +1,202 @@
+package renderer;
+
+import geometries.HitRecord;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of a rendering - counters of the traced rays, the intersection tests, the recursion
+ * depths and the early terminations of the recursion, and the wall time of the rendering phases.<br/>
+ * The counters are striped ({@link LongAdder}), so the rendering threads update them without contention.
+ * The intersection tests are counted by each thread in its own hit record and added to the statistics
+ * once per primary ray.
+ *
+ * @author Hadar Nagar & Elinoy Damari
+ */
+public class RenderStatistics {
+    /**
+     * Types of the traced rays
+     */
+    public enum RayType {
+        /** Rays from the camera */
+        PRIMARY,
+        /** Rays from an intersection towards a light source */
+        SHADOW,
+        /** Reflected rays */
+        REFLECTION,
+        /** Refracted (transparency) rays */
+        REFRACTION
+    }
+
+    /** Size of the histogram of the recursion depths, deeper calculations are counted in the last bin */
+    private static final int DEPTHS = 32;
+
+    /** Counters of the rays by their type */
+    private final LongAdder[] rays = new LongAdder[RayType.values().length];
+    /** Counter of the recursion branches stopped because their contribution was negligible */
+    private final LongAdder earlyTerminations = new LongAdder();
+    /** Histogram of the recursion depths of the color calculations */
+    private final LongAdder[] depths = new LongAdder[DEPTHS];
+    /** Counters of the intersection tests by the type of the tested geometry */
+    private final Map<String, LongAdder> intersectionTests = new ConcurrentHashMap<>();
+    /** Wall time of the rendering phases in nanoseconds, by the order of the phases */
+    private final Map<String, Long> phases = Collections.synchronizedMap(new LinkedHashMap<>());
+    /** Running counters of the rays and the intersection tests of each thread, for the costs of the pixels */
+    private final ThreadLocal<long[]> threadCounters = ThreadLocal.withInitial(() -> new long[2]);
+
+    /**
+     * Constructs empty statistics
+     */
+    RenderStatistics() {
+        for (int i = 0; i < rays.length; ++i)
+            rays[i] = new LongAdder();
+        for (int i = 0; i < depths.length; ++i)
+            depths[i] = new LongAdder();
+    }
+
+    /**
+     * Counts a traced ray
+     *
+     * @param type the type of the ray
+     */
+    void countRay(RayType type) {
+        rays[type.ordinal()].increment();
+        ++threadCounters.get()[0];
+    }
+
+    /**
+     * Counts a recursion branch stopped because its contribution was negligible
+     */
+    void countEarlyTermination() {
+        earlyTerminations.increment();
+    }
+
+    /**
+     * Counts a color calculation in a recursion depth
+     *
+     * @param depth the recursion depth (0 for the intersections of the primary rays)
+     */
+    void countDepth(int depth) {
+        depths[Math.min(depth, depths.length - 1)].increment();
+    }
+
+    /**
+     * Adds the intersection tests counted by a hit record (and resets its counters)
+     *
+     * @param hit the hit record of the current thread
+     */
+    void addIntersectionTests(HitRecord hit) {
+        long[] counters = threadCounters.get();
+        hit.drainTests((type, count) -> {
+            intersectionTests.computeIfAbsent(type.getSimpleName(), name -> new LongAdder()).add(count);
+            counters[1] += count;
+        });
+    }
+
+    /**
+     * Returns the amount of the rays traced by the current thread so far
+     *
+     * @return the amount of the rays
+     */
+    long threadRays() {
+        return threadCounters.get()[0];
+    }
+
+    /**
+     * Returns the amount of the intersection tests of the current thread so far
+     * (up to the last primary ray it completed)
+     *
+     * @return the amount of the intersection tests
+     */
+    long threadIntersectionTests() {
+        return threadCounters.get()[1];
+    }
+
+    /**
+     * Adds wall time to a rendering phase
+     *
+     * @param phase the name of the phase
+     * @param nanos the time in nanoseconds
+     */
+    void addPhase(String phase, long nanos) {
+        phases.merge(phase, nanos, Long::sum);
+    }
+
+    /**
+     * Returns the amount of the traced rays of a type
+     *
+     * @param type the type of the rays
+     * @return the amount of the rays
+     */
+    public long getRays(RayType type) {
+        return rays[type.ordinal()].sum();
+    }
+
+    /**
+     * Returns the amount of the recursion branches stopped because their contribution was negligible
+     *
+     * @return the amount of the early terminations
+     */
+    public long getEarlyTerminations() {
+        return earlyTerminations.sum();
+    }
+
+    /**
+     * Returns the histogram of the recursion depths of the color calculations
+     *
+     * @return amount of the color calculations in each recursion depth, up to the deepest one
+     */
+    public long[] getDepthHistogram() {
+        long[] histogram = new long[depths.length];
+        int size = 0;
+        for (int i = 0; i < histogram.length; ++i)
+            if ((histogram[i] = depths[i].sum()) != 0)
+                size = i + 1;
+        return Arrays.copyOf(histogram, size);
+    }
+
+    /**
+     * Returns the amount of the intersection tests by the type of the tested geometry
+     *
+     * @return map from the name of the geometry type to the amount of its tests
+     */
+    public Map<String, Long> getIntersectionTests() {
+        Map<String, Long> result = new TreeMap<>();
+        intersectionTests.forEach((type, count) -> result.put(type, count.sum()));
+        return result;
+    }
+
+    /**
+     * Returns the wall time of the rendering phases
+     *
+     * @return map from the name of the phase to its time, by the order of the phases
+     */
+    public Map<String, Duration> getPhaseTimes() {
+        Map<String, Duration> result = new LinkedHashMap<>();
+        synchronized (phases) {
+            phases.forEach((phase, nanos) -> result.put(phase, Duration.ofNanos(nanos)));
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("RenderStatistics{rays=");
+        Map<RayType, Long> raysByType = new LinkedHashMap<>();
+        for (RayType type : RayType.values())
+            raysByType.put(type, getRays(type));
+        return builder.append(raysByType)
+                .append(", earlyTerminations=").append(getEarlyTerminations())
+                .append(", depths=").append(Arrays.toString(getDepthHistogram()))
+                .append(", intersectionTests=").append(getIntersectionTests())
+                .append(", phases=").append(getPhaseTimes())
+                .append('}').toString();
+    }
+}
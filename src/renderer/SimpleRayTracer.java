@@ -4,9 +4,12 @@
 
 package renderer;
 
+import geometries.Geometries;
 import geometries.Geometry;
 import lighting.LightSource;
 import primitives.*;
+import scene.FrozenScene;
+import scene.FrozenScene.Shading;
 import scene.Scene;
 
 import java.util.ArrayList;
@@ -14,7 +17,10 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
 
+import geometries.HitRecord;
+import geometries.RayPacket;
 import geometries.Intersectable.GeoPoint;
+import renderer.RenderStatistics.RayType;
 
 /**
  * The SimpleRayTracer class extends RayTracerBase and provides a basic implementation
@@ -31,6 +37,15 @@ public class SimpleRayTracer extends  RayTracerBase {
     public SimpleRayTracer(Scene scene) {
         super(scene);
     }
+
+    /**
+     * Constructs a SimpleRayTracer of a frozen scene (see {@link Scene#freeze()}).
+     *
+     * @param scene the frozen scene to be rendered.
+     */
+    public SimpleRayTracer(FrozenScene scene) {
+        super(scene);
+    }
     private static final double DELTA = 0.1;
     private static final int MAX_CALC_COLOR_LEVEL = 10;
     private static final double MIN_CALC_COLOR_K = 0.001;
@@ -39,12 +54,55 @@ public class SimpleRayTracer extends  RayTracerBase {
 
     @Override
     public Color traceRay(Ray ray) {
+        RenderStatistics statistics = statistics();
+        if (statistics != null)
+            statistics.countRay(RayType.PRIMARY);
        // return traceRay(ray, NUM_SAMPLES);
-        GeoPoint intersectionPoint = scene.geometries.findClosestIntersection(ray);
-        return intersectionPoint == null
-                ? scene.backGround
+        GeoPoint intersectionPoint = geometries().findClosestIntersection(ray);
+        Color color = intersectionPoint == null
+                ? background()
                 : calcColor(intersectionPoint, ray);
         //findGeoIntersections
+        if (statistics != null)
+            statistics.addIntersectionTests(HitRecord.local());
+        return color;
+    }
+
+    /**
+     * Traces the rays in packets of up to {@link RayPacket#MAX_SIZE} rays - the closest intersections of
+     * the rays of a packet are found together, then each ray is shaded alone (the reflected, refracted
+     * and shadow rays diverge, so they are traced one by one).
+     *
+     * @param rays the rays to be traced.
+     * @return the colors of the rays, in the order of the rays.
+     */
+    @Override
+    public Color[] tracePacket(Ray[] rays) {
+        Color[] colors = new Color[rays.length];
+        RenderStatistics statistics = statistics();
+        RayPacket packet = RayPacket.local();
+        for (int from = 0; from < rays.length; from += RayPacket.MAX_SIZE) {
+            int to = Math.min(from + RayPacket.MAX_SIZE, rays.length);
+            packet.clear();
+            for (int i = from; i < to; ++i)
+                packet.add(rays[i]);
+            packet.setCountingTests(statistics != null);
+            geometries().findClosestIntersections(packet);
+            for (int i = from; i < to; ++i) {
+                HitRecord hit = packet.get(i - from);
+                if (statistics != null) {
+                    statistics.countRay(RayType.PRIMARY);
+                    statistics.addIntersectionTests(hit);
+                }
+                GeoPoint intersectionPoint = hit.toGeoPoint();
+                colors[i] = intersectionPoint == null
+                        ? background()
+                        : calcColor(intersectionPoint, rays[i]);
+                if (statistics != null)
+                    statistics.addIntersectionTests(HitRecord.local());
+            }
+        }
+        return colors;
     }
 
     @Override
@@ -187,12 +245,12 @@ public class SimpleRayTracer extends  RayTracerBase {
         List<Ray> rays = targetArea.constructRayBeamGrid();
 
         for (Ray sampleRay : rays) {
-            GeoPoint intersectionPoint = scene.geometries.findClosestIntersection(sampleRay);
+            GeoPoint intersectionPoint = geometries().findClosestIntersection(sampleRay);
                if (intersectionPoint != null) {
                 color = color.add(calcColor(intersectionPoint, sampleRay));
             }
              else {
-                color = color.add(scene.backGround);
+                color = color.add(background());
             }
 
         }
@@ -242,7 +300,7 @@ public class SimpleRayTracer extends  RayTracerBase {
 //
 //        return color.reduce(rays.size());
     // return antiAlising(intersection,ray);
-       return scene.ambientLight.getIntensity()
+       return ambient()
                .add(calcColor(intersection, ray, MAX_CALC_COLOR_LEVEL, Double3.ONE));
     }
 
@@ -252,21 +310,21 @@ public class SimpleRayTracer extends  RayTracerBase {
         TargetArea targetArea=new TargetArea(ray,0.35);
         List<Ray> rays = targetArea.constructRayBeamGrid();
         for (Ray sampleRay : rays) {
-            GeoPoint intersectionPoint = scene.geometries.findClosestIntersection(sampleRay);
+            GeoPoint intersectionPoint = geometries().findClosestIntersection(sampleRay);
             if (intersectionPoint != null) {
                 color = color.add(calcColor(intersection, sampleRay, MAX_CALC_COLOR_LEVEL, Double3.ONE));
 //                color = scene.ambientLight.getIntensity()
 //                        .add(color.add(calcColor(intersection, ray, MAX_CALC_COLOR_LEVEL, Double3.ONE)));
             }
             else {
-                color = color.add(scene.backGround);
+                color = color.add(background());
 //                color = scene.ambientLight.getIntensity()
 //                        .add(color.add(scene.backGround));
             }
 
         }
 
-        return scene.ambientLight.getIntensity().add(color.reduce(rays.size()));
+        return ambient().add(color.reduce(rays.size()));
     }
 
     private Color antiAlising(GeoPoint gp, Ray ray,int level,Double3 k){
@@ -275,55 +333,115 @@ public class SimpleRayTracer extends  RayTracerBase {
         TargetArea targetArea=new TargetArea(ray,NUM_SAMPLES);
         List<Ray> rays = targetArea.constructRayBeamGrid();
         for (Ray sampleRay : rays) {
-            GeoPoint intersectionPoint = scene.geometries.findClosestIntersection(sampleRay);
+            GeoPoint intersectionPoint = geometries().findClosestIntersection(sampleRay);
             if (intersectionPoint != null) {
                 color = color.add(calcColor(intersectionPoint, ray, MAX_CALC_COLOR_LEVEL, Double3.ONE));
 //                color = scene.ambientLight.getIntensity()
 //                        .add(color.add(calcColor(intersection, ray, MAX_CALC_COLOR_LEVEL, Double3.ONE)));
             }
             else {
-                color = color.add(scene.backGround);
+                color = color.add(background());
 //                color = scene.ambientLight.getIntensity()
 //                        .add(color.add(scene.backGround));
             }
 
         }
 
-        return scene.ambientLight.getIntensity().add(color.reduce(rays.size()));
+        return ambient().add(color.reduce(rays.size()));
+    }
+
+
+    /**
+     * Returns the geometries of the rendered scene.
+     *
+     * @return the geometries
+     */
+    private Geometries geometries() {
+        return frozen != null ? frozen.geometries : scene.geometries;
     }
 
+    /**
+     * Returns the background color of the rendered scene.
+     *
+     * @return the background color
+     */
+    private Color background() {
+        return frozen != null ? frozen.background : scene.backGround;
+    }
+
+    /**
+     * Returns the intensity of the ambient light of the rendered scene.
+     *
+     * @return the intensity of the ambient light
+     */
+    private Color ambient() {
+        return frozen != null ? frozen.ambient : scene.ambientLight.getIntensity();
+    }
 
     private Color calcColor(GeoPoint gp, Ray ray,int level,Double3 k){
-        Color color=calcLocalEffects(gp, ray,k);
+        RenderStatistics statistics = statistics();
+        if (statistics != null)
+            statistics.countDepth(MAX_CALC_COLOR_LEVEL - level);
+        Shading shading = frozen != null ? frozen.getShading(gp.geometry) : Shading.of(gp.geometry);
+        Color color=calcLocalEffects(gp, ray,k,shading);
 
-        return 1==level?color:color.add(calcGlobalEffects(gp,ray,level,k));
+        return 1==level?color:color.add(calcGlobalEffects(gp,ray,level,k,shading));
 
     }
 
-    private Color calcGlobalEffects(GeoPoint gp, Ray ray, int level, Double3 k) {
-        Material material=gp.geometry.getMaterial();
-        return calcGlobalEffect(constructRefractedRay(gp,ray),material.kT,level,k)
-                .add(calcGlobalEffect(constructReflectedRay(gp,ray),material.kR,level,k));
+    /**
+     * Calculates the effects of the refracted and the reflected rays. The ray of a zero
+     * coefficient is not constructed at all.
+     *
+     * @param gp      the point
+     * @param ray     the ray that hit the point
+     * @param level   the remaining recursion level
+     * @param k       the accumulated attenuation
+     * @param shading the shading constants of the geometry of the point
+     * @return the color of the global effects
+     */
+    private Color calcGlobalEffects(GeoPoint gp, Ray ray, int level, Double3 k, Shading shading) {
+        Color color = Color.BLACK;
+        if (shading.transparent())
+            color = calcGlobalEffect(constructRefractedRay(gp,ray),shading.kT(),level,k,RayType.REFRACTION);
+        if (shading.reflective())
+            color = color.add(calcGlobalEffect(constructReflectedRay(gp,ray),shading.kR(),level,k,RayType.REFLECTION));
+        return color;
     }
 
+    /**
+     * Constructs the reflected ray at a point: r = v - 2(v*n)n, computed in place.
+     *
+     * @param gp  the point
+     * @param ray the ray that hit the point
+     * @return the reflected ray
+     */
     private Ray constructReflectedRay(GeoPoint gp, Ray ray) {
-        Vector normal=gp.geometry.getNormal(gp.point);
-        return new Ray( gp.point, ray.getDirection().subtract(normal.scale(2*ray.getDirection().dotProduct(normal))), normal);
+        Vector normal=gp.getNormal();
+        Vector v = ray.getDirection();
+        MutableVector r = new MutableVector(v).subtractScaled(normal, 2 * v.dotProduct(normal));
+        return new Ray( gp.point, r.toVector(), normal);
     }
 
     private Ray constructRefractedRay(GeoPoint gp, Ray ray) {
-        Vector normal=gp.geometry.getNormal(gp.point);
-        return new Ray( gp.point, ray.getDirection(), normal);
+        Vector normal=gp.getNormal();
+        return Ray.ofUnit( gp.point, ray.getDirection(), normal);
     }
 
-    private Color calcGlobalEffect( Ray ray,Double3 kX, int level, Double3 k) {
+    private Color calcGlobalEffect( Ray ray,Double3 kX, int level, Double3 k, RayType type) {
         Double3 kKx=kX.product(k);
+        RenderStatistics statistics = statistics();
 //        double nv= Util.alignZero(n.dotProduct(v));
 //        if (nv==0)
 //            return color;
-        if(kKx.lowerThan(MIN_CALC_COLOR_K))
+        if(kKx.lowerThan(MIN_CALC_COLOR_K)) {
+            if (statistics != null && !kX.equals(Double3.ZERO))
+                statistics.countEarlyTermination();
             return Color.BLACK;
-        GeoPoint gp=scene.geometries.findClosestIntersection(ray);
+        }
+        if (statistics != null)
+            statistics.countRay(type);
+        GeoPoint gp=geometries().findClosestIntersection(ray);
 //        if(gp==null)
 //            return Color.BLACK;//scene.background.scale(kx)
 
@@ -331,37 +449,88 @@ public class SimpleRayTracer extends  RayTracerBase {
     }
 
 
-    private Color calcLocalEffects(GeoPoint gp, Ray ray,Double3 k){
-        Color color = gp.geometry.getEmission();
-        Vector n=gp.geometry.getNormal(gp.point);
+    /**
+     * Calculates the emission of a point and the effects of the light sources on it.
+     *
+     * @param gp      the point
+     * @param ray     the ray that hit the point
+     * @param k       the accumulated attenuation
+     * @param shading the shading constants of the geometry of the point
+     * @return the color of the local effects
+     */
+    private Color calcLocalEffects(GeoPoint gp, Ray ray,Double3 k,Shading shading){
+        Color color = shading.emission();
+        Vector n=gp.getNormal();
         Vector v=ray.getDirection();
         double nv= Util.alignZero(n.dotProduct(v));
         if (nv==0)
             return color;
-        Material material=gp.geometry.getMaterial();
-        for(LightSource lightSource:scene.lights){
-
-            Vector l=lightSource.getL(gp.point);
-            double nl=Util.alignZero(n.dotProduct(l));
-            if(Util.alignZero(nl*nv)>0){
-                Double3 ktr = transperency(gp, lightSource, l, n,nl);
-                if (!(ktr.product(k).lowerThan(MIN_CALC_COLOR_K))) {
-                    Color il = lightSource.getIntensity(gp.point).scale(ktr);
-                    color = color.add(il.scale(calcDiffusive(material, nl)), il.scale(calcSpecular(material, n, l, nl, v)));
-                }
+        MutableVector scratch = new MutableVector(); // reused by the specular effects of all the lights
+        if (frozen != null) {
+            // indexed loop over the array of the snapshot - no iterator
+            List<LightSource> lights = frozen.lights;
+            for (int i = 0, size = lights.size(); i < size; ++i)
+                color = calcLightEffect(gp, lights.get(i), n, v, nv, k, shading, scratch, color);
+        } else
+            for(LightSource lightSource:scene.lights)
+                color = calcLightEffect(gp, lightSource, n, v, nv, k, shading, scratch, color);
+        return color;
+    }
+
+    /**
+     * Adds the effect of a light source on a point.
+     *
+     * @param gp          the point
+     * @param lightSource the light source
+     * @param n           the normal at the point
+     * @param v           direction of the ray that hit the point
+     * @param nv          dot product of the normal and the ray's direction
+     * @param k           the accumulated attenuation
+     * @param shading     the shading constants of the geometry of the point
+     * @param scratch     a scratch vector for the calculations
+     * @param color       the color so far
+     * @return the color with the effect of the light source
+     */
+    private Color calcLightEffect(GeoPoint gp, LightSource lightSource, Vector n, Vector v, double nv, Double3 k,
+                                  Shading shading, MutableVector scratch, Color color) {
+        Vector l=lightSource.getL(gp.point);
+        double nl=Util.alignZero(n.dotProduct(l));
+        if(Util.alignZero(nl*nv)>0){
+            Double3 ktr = transperency(gp, lightSource, l, n,nl);
+            if (!(ktr.product(k).lowerThan(MIN_CALC_COLOR_K))) {
+                Color il = lightSource.getIntensity(gp.point).scale(ktr);
+                color = color.add(il.scale(calcDiffusive(shading, nl)), il.scale(calcSpecular(shading, n, l, nl, v, scratch)));
+            } else {
+                RenderStatistics statistics = statistics();
+                if (statistics != null)
+                    statistics.countEarlyTermination();
             }
         }
         return color;
     }
-    private Double3 calcDiffusive(Material mat, double nl) {
-        return mat.kD.scale(nl>0?nl:-nl);
+
+    private Double3 calcDiffusive(Shading shading, double nl) {
+        return shading.kD().scale(nl>0?nl:-nl);
     }
 
-    private Double3 calcSpecular(Material material, Vector normal, Vector lightDir, double cosAngle, Vector rayDir) {
-        Vector r = lightDir.subtract(normal.scale(2 * cosAngle));
-        double coefficient = -rayDir.dotProduct(r);
+    /**
+     * Calculates the specular effect of a light: kS * max(0, -v*r)^nShininess where r = l - 2(n*l)n.
+     * The reflection of the light's direction is computed in a scratch vector.
+     *
+     * @param shading  the shading constants of the geometry
+     * @param normal   the normal at the point
+     * @param lightDir the direction of the light
+     * @param cosAngle dot product of the normal and the light's direction
+     * @param rayDir   the direction of the ray that hit the point
+     * @param scratch  the scratch vector
+     * @return the specular coefficient
+     */
+    private Double3 calcSpecular(Shading shading, Vector normal, Vector lightDir, double cosAngle, Vector rayDir,
+                                 MutableVector scratch) {
+        MutableVector r = scratch.set(lightDir).subtractScaled(normal, 2 * cosAngle);
+        double coefficient = -r.dotProduct(rayDir);
         coefficient = Util.alignZero(coefficient) > 0 ? coefficient : 0;
-        return material.kS.scale(Math.pow(coefficient, material.nShininess));
+        return shading.kS().scale(Math.pow(coefficient, shading.nShininess()));
 
     }
 
@@ -370,7 +539,7 @@ public class SimpleRayTracer extends  RayTracerBase {
         Vector deltaVector=n.scale(Util.alignZero(nl)<0?DELTA:-DELTA);
         Point point=gp.point.add(deltaVector);
         Ray lightRay=new Ray(point,lightDirection);
-        GeoPoint intersectionPoint=scene.geometries.findClosestIntersection(lightRay);
+        GeoPoint intersectionPoint=geometries().findClosestIntersection(lightRay);
         if(intersectionPoint==null)
             return true;
         if(intersectionPoint.point.distance(point)<light.getDistance(point))
@@ -378,20 +547,25 @@ public class SimpleRayTracer extends  RayTracerBase {
         return true;
 
     }
-        private Double3 transperency(GeoPoint gp,LightSource light, Vector l, Vector n,double nl){
-            Ray lightRay = new Ray( gp.point, l.scale(-1),n);
-            List<GeoPoint> intersections = scene.geometries.findGeoIntersections(lightRay, light.getDistance(gp.point));
-          //  GeoPoint intersectionPoint=scene.geometries.findClosestIntersection(lightRay);
-
-            Double3 ktr = Double3.ONE;
-            if (intersections == null)
-                return ktr;
-            for (GeoPoint intersection : intersections)
-                if(intersection.point.distance(gp.point)<light.getDistance(gp.point))
-                  ktr = ktr.product(intersection.geometry.getMaterial().kT);
-            return ktr;
-
-
+    /**
+     * Calculates the transparency of the geometries between a point and a light source.
+     * Uses the any-hit query of the geometries, which stops at the first opaque geometry
+     * (or when the transparency becomes negligible) instead of finding all the blocking geometries.
+     *
+     * @param gp    the point
+     * @param light the light source
+     * @param l     the direction of the light
+     * @param n     the normal at the point
+     * @param nl    dot product of the normal and the light's direction
+     * @return the transparency coefficient
+     */
+    private Double3 transperency(GeoPoint gp,LightSource light, Vector l, Vector n,double nl){
+        RenderStatistics statistics = statistics();
+        if (statistics != null)
+            statistics.countRay(RayType.SHADOW);
+        // the directions of the lights are normalized, and the opposite of a vector is never zero
+        Ray lightRay = Ray.ofUnit( gp.point, Vector.unchecked(-l.getX(), -l.getY(), -l.getZ()),n);
+        return geometries().findTransparency(lightRay, light.getDistance(gp.point), MIN_CALC_COLOR_K);
     }
 
 
@@ -0,0 +1,188 @@
+package renderer;
+
+import java.io.Serial;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Tile scheduler for multi-threaded rendering.<br/>
+ * The image is divided into square tiles which are rendered by a fork-join pool.
+ * The range of the tiles is split recursively between the workers, and a worker that
+ * finishes its tiles steals work from the others - there is no shared lock and no
+ * shared pixel counter, so the rendering scales with the amount of cores.<br/>
+ * Alternatively, each tile may be rendered by its own virtual thread, while a semaphore bounds
+ * the amount of the tiles rendered at the same time - useful when many cameras render in one JVM.
+ *
+ * @author Hadar Nagar & Elinoy Damari
+ */
+class TileScheduler {
+    /**
+     * Renderer of a single pixel, called by the worker threads
+     */
+    @FunctionalInterface
+    interface PixelRenderer {
+        /**
+         * Renders a single pixel (and writes it to the image)
+         *
+         * @param col the pixel's column
+         * @param row the pixel's row
+         */
+        void renderPixel(int col, int row);
+    }
+
+    /** Amount of the pixel columns */
+    private final int nX;
+    /** Amount of the pixel rows */
+    private final int nY;
+    /** Width and height of a tile in pixels */
+    private final int tileSize;
+    /** Amount of the tiles in each row of tiles */
+    private final int tilesX;
+    /** Total amount of the tiles */
+    private final int tiles;
+    /** Progress of the render */
+    private final PixelManager pixelManager;
+
+    /**
+     * Constructs a scheduler of an image
+     *
+     * @param nX           amount of the pixel columns
+     * @param nY           amount of the pixel rows
+     * @param tileSize     width and height of a tile in pixels
+     * @param pixelManager progress of the render
+     */
+    TileScheduler(int nX, int nY, int tileSize, PixelManager pixelManager) {
+        if (tileSize <= 0)
+            throw new IllegalArgumentException("Tile size must be positive");
+        this.nX = nX;
+        this.nY = nY;
+        this.tileSize = tileSize;
+        this.pixelManager = pixelManager;
+        tilesX = (nX + tileSize - 1) / tileSize;
+        tiles = tilesX * ((nY + tileSize - 1) / tileSize);
+    }
+
+    /**
+     * Returns the total amount of the tiles
+     *
+     * @return the amount of the tiles
+     */
+    int getTiles() {
+        return tiles;
+    }
+
+    /**
+     * Renders all the tiles by a new fork-join pool and waits for the rendering to finish.
+     *
+     * @param parallelism the amount of the worker threads
+     * @param renderer    renderer of a single pixel
+     */
+    void render(int parallelism, PixelRenderer renderer) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            ForkJoinTask<Void> task = pool.submit(new TileTask(0, tiles, renderer));
+            pixelManager.waitToFinish(task);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Renders all the tiles by virtual threads (a thread per tile) and waits for the rendering to finish.
+     * At most {@code parallelism} tiles are rendered at the same time, so the carrier threads aren't
+     * oversubscribed by a single render. When a tile fails or the calling thread is interrupted, the tiles
+     * that haven't started are skipped and the exception is thrown to the caller.
+     *
+     * @param parallelism the maximal amount of the tiles rendered at the same time
+     * @param renderer    renderer of a single pixel
+     */
+    void renderVirtual(int parallelism, PixelRenderer renderer) {
+        Semaphore permits = new Semaphore(parallelism);
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[tiles];
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletableFuture<Void> failure = new CompletableFuture<>();
+            for (int i = 0; i < tiles; ++i) {
+                int tile = i;
+                futures[i] = CompletableFuture.runAsync(() -> {
+                    permits.acquireUninterruptibly();
+                    try {
+                        if (!failure.isDone())
+                            renderTile(tile, renderer);
+                    } catch (RuntimeException | Error e) {
+                        failure.completeExceptionally(e);
+                        throw e;
+                    } finally {
+                        permits.release();
+                    }
+                }, executor);
+            }
+            try {
+                pixelManager.waitToFinish(CompletableFuture.anyOf(CompletableFuture.allOf(futures), failure));
+            } finally {
+                // an interrupted wait leaves the tiles running, so the tiles that haven't started are skipped
+                failure.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Renders a single tile
+     *
+     * @param tile     index of the tile (row by row)
+     * @param renderer renderer of a single pixel
+     */
+    void renderTile(int tile, PixelRenderer renderer) {
+        int col0 = tile % tilesX * tileSize;
+        int row0 = tile / tilesX * tileSize;
+        int col1 = Math.min(col0 + tileSize, nX);
+        int row1 = Math.min(row0 + tileSize, nY);
+        for (int row = row0; row < row1; ++row)
+            for (int col = col0; col < col1; ++col)
+                renderer.renderPixel(col, row);
+        pixelManager.pixelsDone((row1 - row0) * (col1 - col0));
+    }
+
+    /**
+     * Fork-join task of a range of tiles - the range is split in halves until a single tile is left
+     */
+    private class TileTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        /** First tile of the range */
+        private final int from;
+        /** End of the range (exclusive) */
+        private final int to;
+        /** Renderer of a single pixel (a task is never serialized) */
+        private final transient PixelRenderer renderer;
+
+        /**
+         * Constructs a task of a range of tiles
+         *
+         * @param from     first tile of the range
+         * @param to       end of the range (exclusive)
+         * @param renderer renderer of a single pixel
+         */
+        TileTask(int from, int to, PixelRenderer renderer) {
+            this.from = from;
+            this.to = to;
+            this.renderer = renderer;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (from < to)
+                    renderTile(from, renderer);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new TileTask(from, middle, renderer), new TileTask(middle, to, renderer));
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package scene;
+
+import primitives.Point;
+import primitives.Vector;
+
+/**
+ * Settings of the camera of a scene, as described in a scene file
+ * (see {@link SceneLoader}). The renderer builds its camera from them.
+ *
+ * @param location the position of the camera
+ * @param to       the direction the camera looks at
+ * @param up       the up direction of the camera, orthogonal to the direction it looks at
+ * @param distance distance of the view plane from the camera
+ * @param width    width of the view plane
+ * @param height   height of the view plane
+ * @param nX       width of the image in pixels
+ * @param nY       height of the image in pixels
+ * @author Hadar Nagar & Elinoy Damari
+ */
+public record CameraSettings(Point location, Vector to, Vector up, double distance, double width, double height,
+                             int nX, int nY) {
+}
@@ -0,0 +1,114 @@
+package scene;
+
+import geometries.Geometries;
+import geometries.Geometry;
+import geometries.Intersectable;
+import lighting.LightSource;
+import primitives.Color;
+import primitives.Double3;
+import primitives.Material;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of a scene, optimized for rendering (see {@link Scene#freeze()}).<br/>
+ * The lights are kept in an array backed list, the geometries in a collection of their own with a built
+ * bounding volume hierarchy, and the shading constants of every geometry (its emission and a copy of its
+ * material coefficients) are computed once. Changing the scene after it was frozen doesn't change the
+ * snapshot, so one snapshot can be shared by many threads and cameras.
+ * <p>
+ * Note: the geometries themselves (and nested collections of geometries) are shared with the scene,
+ * so they must not be changed while the snapshot is rendered.
+ * </p>
+ *
+ * @author Hadar Nagar & Elinoy Damari
+ */
+public final class FrozenScene {
+    /** The name of the scene */
+    public final String name;
+    /** The background color of the scene */
+    public final Color background;
+    /** The intensity of the ambient light of the scene */
+    public final Color ambient;
+    /** The camera of the scene, null if the scene doesn't define one */
+    public final CameraSettings camera;
+    /** The geometries of the scene, with a built hierarchy */
+    public final Geometries geometries;
+    /** The light sources of the scene, an unmodifiable list backed by an array (fast indexed access) */
+    public final List<LightSource> lights;
+
+    /** The shading constants of the geometries */
+    private final Map<Geometry, Shading> shadings = new IdentityHashMap<>();
+
+    /**
+     * Shading constants of a geometry - its emission and its material coefficients, with flags of the
+     * coefficients that are not zero (so the rays of zero coefficients are never constructed).
+     *
+     * @param emission    the emission color
+     * @param kD          the diffuse coefficient
+     * @param kS          the specular coefficient
+     * @param nShininess  the shininess
+     * @param kT          the transparency coefficient
+     * @param kR          the reflection coefficient
+     * @param transparent whether the transparency coefficient isn't zero
+     * @param reflective  whether the reflection coefficient isn't zero
+     */
+    public record Shading(Color emission, Double3 kD, Double3 kS, int nShininess, Double3 kT, Double3 kR,
+                          boolean transparent, boolean reflective) {
+        /**
+         * Computes the current shading constants of a geometry.
+         *
+         * @param geometry the geometry
+         * @return its shading constants
+         */
+        public static Shading of(Geometry geometry) {
+            Material material = geometry.getMaterial();
+            return new Shading(geometry.getEmission(), material.kD, material.kS, material.nShininess,
+                    material.kT, material.kR, !material.kT.equals(Double3.ZERO), !material.kR.equals(Double3.ZERO));
+        }
+    }
+
+    /**
+     * Takes a snapshot of a scene.
+     *
+     * @param scene the scene
+     */
+    FrozenScene(Scene scene) {
+        name = scene.name;
+        background = scene.backGround;
+        ambient = scene.ambientLight.getIntensity();
+        camera = scene.camera;
+        lights = List.copyOf(scene.lights);
+        List<Intersectable> shapes = scene.geometries.getGeometries();
+        // not registered in the nested collections of the scene, so their later changes don't reach it
+        geometries = Geometries.snapshotOf(shapes.toArray(new Intersectable[0])).buildBVH();
+        addShadings(shapes);
+    }
+
+    /**
+     * Computes the shading constants of geometries, and of the geometries of nested collections.
+     *
+     * @param shapes the geometries
+     */
+    private void addShadings(List<Intersectable> shapes) {
+        for (Intersectable shape : shapes)
+            if (shape instanceof Geometry geometry)
+                shadings.computeIfAbsent(geometry, Shading::of);
+            else if (shape instanceof Geometries nested)
+                addShadings(nested.getGeometries());
+    }
+
+    /**
+     * Returns the shading constants of a geometry of the scene.
+     *
+     * @param geometry the geometry
+     * @return its shading constants as they were when the scene was frozen (for a geometry that was
+     * added to a nested collection afterwards - its current constants)
+     */
+    public Shading getShading(Geometry geometry) {
+        Shading shading = shadings.get(geometry);
+        return shading != null ? shading : Shading.of(geometry);
+    }
+}
@@ -0,0 +1,388 @@
+package scene;
+
+import geometries.Mesh;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Importer of Wavefront OBJ models into a {@link Mesh}.<br/>
+ * The file is memory mapped and parsed in one pass straight from its bytes - the coordinates and
+ * the indices are parsed in place and appended to growing primitive arrays, without a String per
+ * line or per number, so large models load quickly and with little garbage.
+ * <p>
+ * Supported records: {@code v} (vertices, an optional w is ignored), {@code vn} (normals) and
+ * {@code f} (faces of 3 or more vertices, triangulated as a fan, with indices of the forms
+ * {@code v}, {@code v/vt}, {@code v//vn} and {@code v/vt/vn}, negative indices are relative to the
+ * end of the list). All the other records (texture coordinates, groups, materials, smoothing...) are
+ * ignored. If all the faces give normals, the normals are set as the vertex normals of the mesh -
+ * a vertex shared by corners of different normals gets the normal of its last corner.
+ * </p>
+ *
+ * @author Hadar Nagar & Elinoy Damari
+ */
+public class ObjImporter {
+    /** Initial capacity of the arrays */
+    private static final int INITIAL_CAPACITY = 1024;
+    /** Exact powers of 10 (as doubles) for the fast parsing of numbers */
+    private static final double[] POWERS_OF_10 = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    /** Largest mantissa represented exactly by a double */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /** The content of the file */
+    private final ByteBuffer buffer;
+    /** Position of the parser in the content */
+    private int position;
+    /** Number of the current line, for the error messages */
+    private int line = 1;
+
+    /** Coordinates of the vertices */
+    private double[] vertices = new double[3 * INITIAL_CAPACITY];
+    /** Amount of the vertices */
+    private int verticesCount = 0;
+    /** Coordinates of the normals */
+    private double[] normals = new double[3 * INITIAL_CAPACITY];
+    /** Amount of the normals */
+    private int normalsCount = 0;
+    /** Vertex indices of the triangles */
+    private int[] faces = new int[3 * INITIAL_CAPACITY];
+    /** Normal indices of the corners of the triangles, -1 for a corner without a normal */
+    private int[] cornerNormals = new int[3 * INITIAL_CAPACITY];
+    /** Amount of the corners of the triangles */
+    private int cornersCount = 0;
+    /** Whether all the corners have normals */
+    private boolean allNormals = true;
+
+    /**
+     * Constructs a parser of content
+     *
+     * @param buffer the content
+     */
+    private ObjImporter(ByteBuffer buffer) {
+        this.buffer = buffer;
+        position = buffer.position();
+    }
+
+    /**
+     * Imports an OBJ file as a mesh.
+     *
+     * @param file the OBJ file
+     * @return the mesh of the model
+     * @throws IOException              if the file can't be read
+     * @throws IllegalArgumentException if the file isn't a correct OBJ model (the message tells the line)
+     */
+    public static Mesh importMesh(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("The file " + file + " is larger than 2GB");
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return importMesh(buffer);
+        }
+    }
+
+    /**
+     * Imports OBJ content as a mesh.
+     *
+     * @param buffer the content of an OBJ file (from its position to its limit)
+     * @return the mesh of the model
+     * @throws IllegalArgumentException if the content isn't a correct OBJ model (the message tells the line)
+     */
+    static Mesh importMesh(ByteBuffer buffer) {
+        return new ObjImporter(buffer).parse();
+    }
+
+    /**
+     * Parses the content
+     *
+     * @return the mesh of the model
+     */
+    private Mesh parse() {
+        int limit = buffer.limit();
+        while (position < limit) {
+            skipSpaces();
+            if (position >= limit)
+                break;
+            byte first = buffer.get(position);
+            byte second = position + 1 < limit ? buffer.get(position + 1) : (byte) '\n';
+            if (first == 'v' && isSpace(second)) {
+                ++position;
+                parseVertex();
+            } else if (first == 'v' && second == 'n' && position + 2 < limit && isSpace(buffer.get(position + 2))) {
+                position += 2;
+                parseNormal();
+            } else if (first == 'f' && isSpace(second)) {
+                ++position;
+                parseFace();
+            }
+            skipLine();
+        }
+
+        Mesh mesh = new Mesh(Arrays.copyOf(vertices, 3 * verticesCount), Arrays.copyOf(faces, cornersCount));
+        if (allNormals && cornersCount > 0)
+            mesh.setVertexNormals(vertexNormals());
+        return mesh;
+    }
+
+    /**
+     * Parses the coordinates of a vertex
+     */
+    private void parseVertex() {
+        if (3 * verticesCount + 3 > vertices.length)
+            vertices = Arrays.copyOf(vertices, 2 * vertices.length);
+        for (int i = 0; i < 3; ++i)
+            vertices[3 * verticesCount + i] = parseNumber();
+        ++verticesCount;
+    }
+
+    /**
+     * Parses the coordinates of a normal
+     */
+    private void parseNormal() {
+        if (3 * normalsCount + 3 > normals.length)
+            normals = Arrays.copyOf(normals, 2 * normals.length);
+        for (int i = 0; i < 3; ++i)
+            normals[3 * normalsCount + i] = parseNumber();
+        ++normalsCount;
+    }
+
+    /**
+     * Parses a face and adds its triangles (a fan around its first vertex)
+     */
+    private void parseFace() {
+        int firstVertex = 0, firstNormal = 0, previousVertex = 0, previousNormal = 0;
+        int corners = 0;
+        while (true) {
+            skipSpaces();
+            if (isEndOfLine())
+                break;
+            int vertex = parseIndex(verticesCount, "vertex");
+            int normal = -1;
+            if (position < buffer.limit() && buffer.get(position) == '/') {
+                ++position;
+                if (position < buffer.limit() && buffer.get(position) != '/' && !isSpace(buffer.get(position)))
+                    parseIndex(Integer.MAX_VALUE, "texture"); // texture coordinates are ignored
+                if (position < buffer.limit() && buffer.get(position) == '/') {
+                    ++position;
+                    normal = parseIndex(normalsCount, "normal");
+                }
+            }
+            if (corners == 0) {
+                firstVertex = vertex;
+                firstNormal = normal;
+            } else if (corners >= 2)
+                addTriangle(firstVertex, firstNormal, previousVertex, previousNormal, vertex, normal);
+            previousVertex = vertex;
+            previousNormal = normal;
+            ++corners;
+        }
+        if (corners < 3)
+            throw error("A face must have at least 3 vertices");
+    }
+
+    /**
+     * Adds a triangle
+     *
+     * @param v1 first vertex
+     * @param n1 normal of the first vertex, -1 if none
+     * @param v2 second vertex
+     * @param n2 normal of the second vertex, -1 if none
+     * @param v3 third vertex
+     * @param n3 normal of the third vertex, -1 if none
+     */
+    private void addTriangle(int v1, int n1, int v2, int n2, int v3, int n3) {
+        if (cornersCount + 3 > faces.length) {
+            faces = Arrays.copyOf(faces, 2 * faces.length);
+            cornerNormals = Arrays.copyOf(cornerNormals, faces.length);
+        }
+        faces[cornersCount] = v1;
+        faces[cornersCount + 1] = v2;
+        faces[cornersCount + 2] = v3;
+        cornerNormals[cornersCount] = n1;
+        cornerNormals[cornersCount + 1] = n2;
+        cornerNormals[cornersCount + 2] = n3;
+        cornersCount += 3;
+        allNormals &= n1 >= 0 && n2 >= 0 && n3 >= 0;
+    }
+
+    /**
+     * Builds the vertex normals from the normals of the corners
+     *
+     * @return the coordinates of the normals of the vertices
+     */
+    private double[] vertexNormals() {
+        double[] result = new double[3 * verticesCount];
+        for (int i = 0; i < cornersCount; ++i)
+            System.arraycopy(normals, 3 * cornerNormals[i], result, 3 * faces[i], 3);
+        return result;
+    }
+
+    /**
+     * Parses a 1-based (or negative - relative to the end) index
+     *
+     * @param count amount of the indexed elements so far
+     * @param name  name of the indexed elements, for the error message
+     * @return the 0-based index
+     */
+    private int parseIndex(int count, String name) {
+        boolean negative = position < buffer.limit() && buffer.get(position) == '-';
+        if (negative)
+            ++position;
+        int start = position;
+        long value = 0;
+        while (position < buffer.limit() && isDigit(buffer.get(position))) {
+            value = value * 10 + buffer.get(position++) - '0';
+            if (value > Integer.MAX_VALUE)
+                throw error("Too large " + name + " index");
+        }
+        if (position == start)
+            throw error("Missing " + name + " index");
+        long index = negative ? count - value : value - 1;
+        if (index < 0 || index >= count)
+            throw error("The " + name + " index " + (negative ? -value : value) + " is out of range");
+        return (int) index;
+    }
+
+    /**
+     * Parses a decimal number - exactly, like {@link Double#parseDouble(String)}. Numbers of up to
+     * 15 significant digits and small exponents (the usual numbers of OBJ files) are parsed in place,
+     * others are passed to {@link Double#parseDouble(String)}.
+     *
+     * @return the number
+     */
+    private double parseNumber() {
+        skipSpaces();
+        int start = position;
+        int limit = buffer.limit();
+        boolean negative = false;
+        if (position < limit && (buffer.get(position) == '-' || buffer.get(position) == '+'))
+            negative = buffer.get(position++) == '-';
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean any = false;
+        boolean truncated = false; // too many digits, parsed by the slow path
+        while (position < limit && isDigit(buffer.get(position))) {
+            any = true;
+            if (mantissa < MAX_EXACT_MANTISSA / 10) {
+                mantissa = mantissa * 10 + buffer.get(position) - '0';
+                if (mantissa != 0) ++digits;
+            } else
+                truncated = true;
+            ++position;
+        }
+        if (position < limit && buffer.get(position) == '.') {
+            ++position;
+            while (position < limit && isDigit(buffer.get(position))) {
+                any = true;
+                if (mantissa < MAX_EXACT_MANTISSA / 10) {
+                    mantissa = mantissa * 10 + buffer.get(position) - '0';
+                    if (mantissa != 0) ++digits;
+                    --exponent;
+                } else
+                    truncated = true;
+                ++position;
+            }
+        }
+        if (!any)
+            throw error("Missing number");
+        boolean exact = !truncated && digits <= 15;
+        if (position < limit && (buffer.get(position) == 'e' || buffer.get(position) == 'E')) {
+            ++position;
+            boolean negativeExponent = false;
+            if (position < limit && (buffer.get(position) == '-' || buffer.get(position) == '+'))
+                negativeExponent = buffer.get(position++) == '-';
+            int value = 0;
+            int exponentStart = position;
+            while (position < limit && isDigit(buffer.get(position))) {
+                if (value < 10000) value = value * 10 + buffer.get(position) - '0';
+                ++position;
+            }
+            if (position == exponentStart)
+                throw error("Missing exponent");
+            exponent += negativeExponent ? -value : value;
+        }
+        if (position < limit && !isSpace(buffer.get(position)))
+            throw error("Illegal number");
+
+        double value;
+        if (exact && exponent >= -22 && exponent <= 22)
+            // the mantissa and the power of 10 are exact, so the result is rounded correctly
+            value = exponent < 0 ? mantissa / POWERS_OF_10[-exponent] : mantissa * POWERS_OF_10[exponent];
+        else {
+            byte[] bytes = new byte[position - start];
+            buffer.get(start, bytes);
+            return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Skips spaces and tabs (not the end of the line)
+     */
+    private void skipSpaces() {
+        while (position < buffer.limit() && (buffer.get(position) == ' ' || buffer.get(position) == '\t'))
+            ++position;
+    }
+
+    /**
+     * Skips the rest of the current line, including its end
+     */
+    private void skipLine() {
+        while (position < buffer.limit() && buffer.get(position) != '\n')
+            ++position;
+        if (position < buffer.limit()) {
+            ++position;
+            ++line;
+        }
+    }
+
+    /**
+     * Checks whether the parser is at the end of the line (or at a comment, or at the end of the content)
+     *
+     * @return true at the end of the line
+     */
+    private boolean isEndOfLine() {
+        if (position >= buffer.limit())
+            return true;
+        byte b = buffer.get(position);
+        return b == '\n' || b == '\r' || b == '#';
+    }
+
+    /**
+     * Checks whether a byte separates tokens
+     *
+     * @param b the byte
+     * @return true for a space, a tab or an end of a line
+     */
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    /**
+     * Checks whether a byte is a decimal digit
+     *
+     * @param b the byte
+     * @return true for a digit
+     */
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    /**
+     * Creates an exception of malformed content at the current line
+     *
+     * @param message the problem
+     * @return the exception
+     */
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("OBJ line " + line + ": " + message);
+    }
+}
@@ -25,6 +25,8 @@ public class Scene {
     /** The geometries contained in the scene. */
     public Geometries geometries=new Geometries();
     public List<LightSource> lights=new LinkedList<>();
+    /** The camera of a scene loaded from a scene file, null if the scene doesn't define one. */
+    public CameraSettings camera=null;
 
     public Scene setLights(List<LightSource> lights) {
         this.lights = lights;
@@ -62,6 +64,28 @@ public class Scene {
         return this;
     }
 
+    /**
+     * Sets the camera settings of the scene.
+     *
+     * @param camera the camera settings, null for none.
+     * @return the scene instance.
+     */
+    public Scene setCamera(CameraSettings camera) {
+        this.camera = camera;
+        return this;
+    }
+
+    /**
+     * Freezes the scene - takes an immutable snapshot of it for rendering: the lights are turned into an
+     * array, a bounding volume hierarchy is built over the geometries and the shading constants of the
+     * geometries are computed. Later changes of the scene don't change the snapshot.
+     *
+     * @return the snapshot of the scene
+     */
+    public FrozenScene freeze() {
+        return new FrozenScene(this);
+    }
+
     /**
      * Sets the background color for the scene.
      *
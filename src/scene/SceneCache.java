@@ -0,0 +1,350 @@
+package scene;
+
+import geometries.Geometries;
+import geometries.GeometryCodec;
+import lighting.AmbientLight;
+import lighting.DirectionalLight;
+import lighting.LightSource;
+import lighting.PointLight;
+import lighting.SpotLight;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Cache of loaded scenes in a compact binary format, for a fast start of repeated renders.<br/>
+ * A cached scene is stored together with its built acceleration structures (the bounding volume
+ * hierarchies of its geometries and of its meshes), so loading it is a pass over a memory mapped file
+ * that copies the stored arrays - nothing is parsed and no hierarchy is built again.
+ * <p>
+ * The cached scenes are kept in a directory, each in a file named after the SHA-256 hash of the directory
+ * and the content of its scene file (the files of the meshes are relative to the directory). A cached
+ * scene also records the size and the modification time of every file its scene file refers to (the
+ * files of the meshes), and it's loaded again from the scene file if one of them was changed.
+ * </p>
+ *
+ * @author Hadar Nagar & Elinoy Damari
+ */
+public class SceneCache {
+    /** Identifies the files of cached scenes ("RTSC") */
+    private static final int MAGIC = 0x52545343;
+    /** Version of the format, a cached scene of another version is loaded again */
+    private static final int VERSION = 1;
+    /** Extension of the files of cached scenes */
+    private static final String EXTENSION = ".scene";
+
+    /** Tag of a point light */
+    private static final byte POINT_LIGHT = 0;
+    /** Tag of a spot light */
+    private static final byte SPOT_LIGHT = 1;
+    /** Tag of a directional light */
+    private static final byte DIRECTIONAL_LIGHT = 2;
+
+    /** Don't let anyone instantiate this class */
+    private SceneCache() {
+    }
+
+    /**
+     * Loads a scene file through the cache: the cached scene of the file's content is read if it's
+     * up to date, otherwise the scene file is loaded (see {@link SceneLoader}) and cached.
+     *
+     * @param file      the scene file
+     * @param directory the directory of the cached scenes (created if missing)
+     * @return the scene
+     * @throws IOException              if a file can't be read or the cached scene can't be written
+     * @throws IllegalArgumentException if the scene file isn't a correct scene file
+     */
+    public static Scene load(Path file, Path directory) throws IOException {
+        byte[] description = Files.readAllBytes(file);
+        Path sceneDirectory = file.toAbsolutePath().normalize().getParent();
+        Path cached = directory.resolve(key(description, sceneDirectory) + EXTENSION);
+        if (Files.isRegularFile(cached))
+            try {
+                Scene scene = read(cached, true);
+                if (scene != null)
+                    return scene;
+            } catch (IllegalArgumentException e) {
+                // a corrupted cached scene is replaced, like an outdated one
+            }
+
+        List<Path> files = new ArrayList<>();
+        Scene scene = SceneLoader.load(new ByteArrayInputStream(description), sceneDirectory, files);
+        Files.createDirectories(directory);
+        // written aside and moved into place, so a concurrent reader never sees a partial file
+        Path temporary = Files.createTempFile(directory, "scene", ".tmp");
+        try {
+            write(scene, files, temporary);
+            try {
+                Files.move(temporary, cached, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, cached, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        return scene;
+    }
+
+    /**
+     * Writes a scene to a file of the binary format.
+     *
+     * @param scene the scene
+     * @param file  the file
+     * @throws IOException              if the file can't be written
+     * @throws IllegalArgumentException if the scene has a geometry or a light that can't be encoded
+     */
+    public static void write(Scene scene, Path file) throws IOException {
+        write(scene, List.of(), file);
+    }
+
+    /**
+     * Reads a scene from a file of the binary format, by memory mapping the file.
+     *
+     * @param file the file
+     * @return the scene
+     * @throws IOException              if the file can't be read
+     * @throws IllegalArgumentException if the file isn't of a scene of the binary format
+     */
+    public static Scene read(Path file) throws IOException {
+        return read(file, false);
+    }
+
+    /**
+     * Calculates the key of the cached scene of a scene file. The same content in another directory refers
+     * to other files of meshes, so the directory is a part of the key.
+     *
+     * @param description the content of the scene file
+     * @param directory   the absolute directory of the scene file
+     * @return the hexadecimal SHA-256 hash of the directory and the content
+     */
+    static String key(byte[] description, Path directory) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(directory.toString().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0); // separates the directory from the content
+            return HexFormat.of().formatHex(digest.digest(description));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is missing", e); // every Java platform must support it
+        }
+    }
+
+    /**
+     * Writes a scene to a file of the binary format.
+     *
+     * @param scene the scene
+     * @param files the files the scene refers to
+     * @param file  the file
+     * @throws IOException if the file can't be written
+     */
+    private static void write(Scene scene, List<Path> files, Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(files.size());
+            for (Path dependency : files) {
+                writeString(dependency.toAbsolutePath().toString(), out);
+                out.writeLong(Files.size(dependency));
+                out.writeLong(Files.getLastModifiedTime(dependency).toMillis());
+            }
+
+            writeString(scene.name, out);
+            GeometryCodec.writeColor(scene.backGround, out);
+            GeometryCodec.writeColor(scene.ambientLight.getIntensity(), out);
+            CameraSettings camera = scene.camera;
+            out.writeBoolean(camera != null);
+            if (camera != null) {
+                GeometryCodec.writePoint(camera.location(), out);
+                GeometryCodec.writeVector(camera.to(), out);
+                GeometryCodec.writeVector(camera.up(), out);
+                out.writeDouble(camera.distance());
+                out.writeDouble(camera.width());
+                out.writeDouble(camera.height());
+                out.writeInt(camera.nX());
+                out.writeInt(camera.nY());
+            }
+            out.writeInt(scene.lights.size());
+            for (LightSource light : scene.lights)
+                writeLight(light, out);
+            GeometryCodec.write(scene.geometries, out);
+        }
+    }
+
+    /**
+     * Encodes a light source.
+     *
+     * @param light the light source
+     * @param out   the stream to write to
+     * @throws IOException              if the stream can't be written
+     * @throws IllegalArgumentException if the light source is of an unknown type
+     */
+    private static void writeLight(LightSource light, DataOutputStream out) throws IOException {
+        switch (light) {
+            case SpotLight spot -> {
+                out.writeByte(SPOT_LIGHT);
+                writePointLight(spot, out);
+                GeometryCodec.writeVector(spot.getDirection(), out);
+                out.writeInt(spot.getNarrowBeam());
+            }
+            case PointLight point -> {
+                out.writeByte(POINT_LIGHT);
+                writePointLight(point, out);
+            }
+            case DirectionalLight directional -> {
+                out.writeByte(DIRECTIONAL_LIGHT);
+                GeometryCodec.writeColor(directional.getIntensity(), out);
+                GeometryCodec.writeVector(directional.getDirection(), out);
+            }
+            default -> throw new IllegalArgumentException("Can't encode a light of " + light.getClass().getName());
+        }
+    }
+
+    /**
+     * Encodes the fields of a point light.
+     *
+     * @param light the point light
+     * @param out   the stream to write to
+     * @throws IOException if the stream can't be written
+     */
+    private static void writePointLight(PointLight light, DataOutputStream out) throws IOException {
+        GeometryCodec.writeColor(light.getIntensity(), out);
+        GeometryCodec.writePoint(light.getPosition(), out);
+        out.writeDouble(light.getkC());
+        out.writeDouble(light.getkL());
+        out.writeDouble(light.getkQ());
+    }
+
+    /**
+     * Reads a scene from a file of the binary format.
+     *
+     * @param file  the file
+     * @param check whether to check the format and the files the scene refers to, and return null
+     *              instead of the scene if the file is of another version or of a changed file
+     * @return the scene, or null if the checked file isn't up to date
+     * @throws IOException              if the file can't be read
+     * @throws IllegalArgumentException if the file isn't of a scene of the binary format
+     */
+    private static Scene read(Path file, boolean check) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("The file " + file + " is larger than 2GB");
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            try {
+                if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                    if (check)
+                        return null;
+                    throw new IllegalArgumentException("The file " + file + " isn't of a scene of this version");
+                }
+                int dependencies = buffer.getInt();
+                for (int i = 0; i < dependencies; ++i) {
+                    Path dependency = Path.of(readString(buffer));
+                    long dependencySize = buffer.getLong(), modified = buffer.getLong();
+                    if (check && (!Files.isRegularFile(dependency) || Files.size(dependency) != dependencySize
+                            || Files.getLastModifiedTime(dependency).toMillis() != modified))
+                        return null;
+                }
+                return readScene(buffer);
+            } catch (BufferUnderflowException e) {
+                throw new IllegalArgumentException("The file " + file + " is truncated", e);
+            }
+        }
+    }
+
+    /**
+     * Decodes a scene.
+     *
+     * @param buffer the buffer to read from
+     * @return the scene
+     */
+    private static Scene readScene(ByteBuffer buffer) {
+        Scene scene = new Scene(readString(buffer))
+                .setBackGround(GeometryCodec.readColor(buffer))
+                .setAmbientLight(new AmbientLight(GeometryCodec.readColor(buffer), 1));
+        if (buffer.get() != 0)
+            scene.setCamera(new CameraSettings(GeometryCodec.readPoint(buffer), GeometryCodec.readVector(buffer),
+                    GeometryCodec.readVector(buffer), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+                    buffer.getInt(), buffer.getInt()));
+        int lightsCount = buffer.getInt();
+        List<LightSource> lights = new LinkedList<>();
+        for (int i = 0; i < lightsCount; ++i)
+            lights.add(readLight(buffer));
+        scene.setLights(lights);
+        if (!(GeometryCodec.read(buffer) instanceof Geometries geometries))
+            throw new IllegalArgumentException("The geometries of the scene must be a collection");
+        return scene.setGeometries(geometries);
+    }
+
+    /**
+     * Decodes a light source.
+     *
+     * @param buffer the buffer to read from
+     * @return the light source
+     */
+    private static LightSource readLight(ByteBuffer buffer) {
+        byte tag = buffer.get();
+        return switch (tag) {
+            case POINT_LIGHT -> readPointLight(buffer);
+            case SPOT_LIGHT -> {
+                PointLight point = readPointLight(buffer);
+                yield new SpotLight(point.getIntensity(), point.getPosition(), GeometryCodec.readVector(buffer))
+                        .setkC(point.getkC()).setkL(point.getkL()).setkQ(point.getkQ())
+                        .setNarrowBeam(buffer.getInt());
+            }
+            case DIRECTIONAL_LIGHT -> new DirectionalLight(GeometryCodec.readColor(buffer), GeometryCodec.readVector(buffer));
+            default -> throw new IllegalArgumentException("Unknown light tag " + tag);
+        };
+    }
+
+    /**
+     * Decodes the fields of a point light.
+     *
+     * @param buffer the buffer to read from
+     * @return the point light
+     */
+    private static PointLight readPointLight(ByteBuffer buffer) {
+        return new PointLight(GeometryCodec.readColor(buffer), GeometryCodec.readPoint(buffer))
+                .setkC(buffer.getDouble()).setkL(buffer.getDouble()).setkQ(buffer.getDouble());
+    }
+
+    /**
+     * Encodes a string - the amount of its UTF-8 bytes and then the bytes.
+     *
+     * @param value the string
+     * @param out   the stream to write to
+     * @throws IOException if the stream can't be written
+     */
+    private static void writeString(String value, DataOutputStream out) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Decodes a string.
+     *
+     * @param buffer the buffer to read from
+     * @return the string
+     * @throws IllegalArgumentException if the amount of bytes is illegal
+     */
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining())
+            throw new IllegalArgumentException("Illegal string length " + length);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,427 @@
+package scene;
+
+import geometries.*;
+import lighting.AmbientLight;
+import lighting.DirectionalLight;
+import lighting.PointLight;
+import lighting.SpotLight;
+import primitives.*;
+
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loader of scene files - XML descriptions of the camera, the lights and the geometries of a scene.<br/>
+ * The file is read by a streaming (StAX) parser, element by element, and every element is turned into
+ * its object immediately - no document tree is built, so the loading is linear in the size of the file
+ * and its memory is only the memory of the scene itself.
+ * <p>
+ * The format (all the elements but {@code scene} are optional, triples are 3 numbers separated by spaces):
+ * </p>
+ * <pre>{@code
+ * <scene name="name" background="r g b">
+ *   <camera location="x y z" to="x y z" up="x y z" distance="d" width="w" height="h" resolution="nX nY"/>
+ *   <ambientLight color="r g b" k="k or kr kg kb"/>
+ *   <lights>
+ *     <pointLight color="r g b" position="x y z" kC="1" kL="0" kQ="0"/>
+ *     <spotLight color="r g b" position="x y z" direction="x y z" kC="1" kL="0" kQ="0" narrowBeam="1"/>
+ *     <directionalLight color="r g b" direction="x y z"/>
+ *   </lights>
+ *   <geometries bvh="true">
+ *     <sphere center="x y z" radius="r"/>
+ *     <plane point="x y z" normal="x y z"/>
+ *     <triangle p0="x y z" p1="x y z" p2="x y z"/>
+ *     <polygon vertices="x y z, x y z, x y z, ..."/>
+ *     <tube radius="r" head="x y z" direction="x y z"/>
+ *     <cylinder radius="r" height="h" head="x y z" direction="x y z"/>
+ *     <mesh file="model.obj" precision="double"/>
+ *   </geometries>
+ * </scene>
+ * }</pre>
+ * Every geometry may have the attributes {@code emission="r g b"}, {@code kD}, {@code kS}, {@code kT} and
+ * {@code kR} (a number or a triple) and {@code shininess}. The files of the meshes are Wavefront OBJ files
+ * (see {@link ObjImporter}), relative to the directory of the scene file; with {@code precision="float"} a mesh
+ * is stored in floats (see {@link Mesh#toFloatStorage()}). With {@code bvh="true"} a bounding
+ * volume hierarchy is built over the geometries once they are all loaded.
+ *
+ * @author Hadar Nagar & Elinoy Damari
+ */
+public class SceneLoader {
+    /** The streaming parser */
+    private final XMLStreamReader reader;
+    /** Directory of the scene file, for the files of the meshes */
+    private final Path directory;
+    /** The files the scene refers to (the files of the meshes), collected while loading */
+    private final List<Path> files;
+
+    /**
+     * Constructs a loader
+     *
+     * @param reader    the streaming parser of the file
+     * @param directory directory of the scene file
+     * @param files     list to collect the files the scene refers to
+     */
+    private SceneLoader(XMLStreamReader reader, Path directory, List<Path> files) {
+        this.reader = reader;
+        this.directory = directory;
+        this.files = files;
+    }
+
+    /**
+     * Loads a scene file.
+     *
+     * @param file the scene file
+     * @return the scene
+     * @throws IOException              if the file (or a file of a mesh) can't be read
+     * @throws IllegalArgumentException if the file isn't a correct scene file (the message tells the line)
+     */
+    public static Scene load(Path file) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            Path directory = file.toAbsolutePath().getParent();
+            return load(in, directory);
+        }
+    }
+
+    /**
+     * Loads a scene from a stream of a scene file.
+     *
+     * @param in        the stream of the scene file
+     * @param directory the directory the files of the meshes are relative to
+     * @return the scene
+     * @throws IOException              if a file of a mesh can't be read
+     * @throws IllegalArgumentException if the content isn't a correct scene file (the message tells the line)
+     */
+    public static Scene load(InputStream in, Path directory) throws IOException {
+        return load(in, directory, new ArrayList<>());
+    }
+
+    /**
+     * Loads a scene from a stream of a scene file, collecting the files it refers to.
+     *
+     * @param in        the stream of the scene file
+     * @param directory the directory the files of the meshes are relative to
+     * @param files     list to add the files the scene refers to (the files of the meshes)
+     * @return the scene
+     * @throws IOException              if a file of a mesh can't be read
+     * @throws IllegalArgumentException if the content isn't a correct scene file (the message tells the line)
+     */
+    static Scene load(InputStream in, Path directory, List<Path> files) throws IOException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        // scene files come from outside - no document types and no external entities
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XMLStreamReader reader = null;
+        try {
+            reader = factory.createXMLStreamReader(in);
+            return new SceneLoader(reader, directory, files).parse();
+        } catch (XMLStreamException e) {
+            Location location = e.getLocation();
+            throw new IllegalArgumentException("Scene file line " + (location == null ? "?" : location.getLineNumber())
+                    + ": malformed XML", e);
+        } finally {
+            if (reader != null)
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // nothing to release
+                }
+        }
+    }
+
+    /**
+     * Parses the file, element by element
+     *
+     * @return the scene
+     * @throws XMLStreamException if the XML is malformed
+     * @throws IOException        if a file of a mesh can't be read
+     */
+    private Scene parse() throws XMLStreamException, IOException {
+        Scene scene = null;
+        Geometries geometries = null;
+        boolean bvh = false;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals("geometries")) {
+                geometries = null;
+                continue;
+            }
+            if (event != XMLStreamConstants.START_ELEMENT)
+                continue;
+            String element = reader.getLocalName();
+            if (scene == null) {
+                if (!element.equals("scene"))
+                    throw error("The root element must be scene");
+                scene = new Scene(attribute("name", "scene"));
+                String background = reader.getAttributeValue(null, "background");
+                if (background != null)
+                    scene.setBackGround(color(background, "background"));
+                continue;
+            }
+            switch (element) {
+                case "camera" -> scene.setCamera(camera());
+                case "ambientLight" -> scene.setAmbientLight(
+                        new AmbientLight(color(attribute("color"), "color"), coefficient(attribute("k"), "k")));
+                case "lights" -> { }
+                case "pointLight" -> scene.lights.add(attenuation(
+                        new PointLight(color(attribute("color"), "color"), point("position"))));
+                case "spotLight" -> {
+                    SpotLight light = new SpotLight(color(attribute("color"), "color"), point("position"),
+                            vector("direction"));
+                    attenuation(light);
+                    String narrowBeam = reader.getAttributeValue(null, "narrowBeam");
+                    if (narrowBeam != null)
+                        light.setNarrowBeam((int) number(narrowBeam, "narrowBeam"));
+                    scene.lights.add(light);
+                }
+                case "directionalLight" -> scene.lights.add(
+                        new DirectionalLight(color(attribute("color"), "color"), vector("direction")));
+                case "geometries" -> {
+                    geometries = scene.geometries;
+                    bvh |= Boolean.parseBoolean(reader.getAttributeValue(null, "bvh"));
+                }
+                default -> {
+                    if (geometries == null)
+                        throw error("Unknown element " + element);
+                    geometries.add(material(geometry(element)));
+                }
+            }
+        }
+        if (scene == null)
+            throw error("Missing scene element");
+        if (bvh)
+            scene.geometries.buildBVH();
+        return scene;
+    }
+
+    /**
+     * Creates the camera settings of the current element
+     *
+     * @return the camera settings
+     */
+    private CameraSettings camera() {
+        double[] resolution = numbers(attribute("resolution"), 2, "resolution");
+        return new CameraSettings(point("location"), vector("to"), vector("up"),
+                number(attribute("distance"), "distance"), number(attribute("width"), "width"),
+                number(attribute("height"), "height"), (int) resolution[0], (int) resolution[1]);
+    }
+
+    /**
+     * Creates the geometry of the current element
+     *
+     * @param element name of the element
+     * @return the geometry
+     * @throws IOException if the file of a mesh can't be read
+     */
+    private Geometry geometry(String element) throws IOException {
+        try {
+            return switch (element) {
+                case "sphere" -> new Sphere(number(attribute("radius"), "radius"), point("center"));
+                case "plane" -> new Plane(point("point"), vector("normal"));
+                case "triangle" -> new Triangle(point("p0"), point("p1"), point("p2"));
+                case "polygon" -> {
+                    String[] vertices = attribute("vertices").split(",");
+                    Point[] points = new Point[vertices.length];
+                    for (int i = 0; i < vertices.length; ++i)
+                        points[i] = toPoint(numbers(vertices[i], 3, "vertices"));
+                    yield new Polygon(points);
+                }
+                case "tube" -> new Tube(number(attribute("radius"), "radius"), new Ray(point("head"), vector("direction")));
+                case "cylinder" -> new Cylinder(number(attribute("height"), "height"),
+                        new Ray(point("head"), vector("direction")), number(attribute("radius"), "radius"));
+                case "mesh" -> {
+                    Path file = directory.resolve(attribute("file"));
+                    files.add(file);
+                    yield switch (attribute("precision", "double")) {
+                        case "double" -> ObjImporter.importMesh(file);
+                        case "float" -> ObjImporter.importMesh(file).toFloatStorage();
+                        default -> throw error("Illegal precision " + attribute("precision"));
+                    };
+                }
+                default -> throw error("Unknown geometry " + element);
+            };
+        } catch (IllegalArgumentException e) {
+            if (e.getMessage() != null && e.getMessage().startsWith("Scene file line"))
+                throw e;
+            throw error(element + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sets the emission and the material of a geometry by the attributes of the current element
+     *
+     * @param geometry the geometry
+     * @return the geometry
+     */
+    private Geometry material(Geometry geometry) {
+        String emission = reader.getAttributeValue(null, "emission");
+        if (emission != null)
+            geometry.setEmission(color(emission, "emission"));
+        Material material = new Material();
+        String value;
+        if ((value = reader.getAttributeValue(null, "kD")) != null) material.setKd(coefficient(value, "kD"));
+        if ((value = reader.getAttributeValue(null, "kS")) != null) material.setKs(coefficient(value, "kS"));
+        if ((value = reader.getAttributeValue(null, "kT")) != null) material.setKT(coefficient(value, "kT"));
+        if ((value = reader.getAttributeValue(null, "kR")) != null) material.setKR(coefficient(value, "kR"));
+        if ((value = reader.getAttributeValue(null, "shininess")) != null)
+            material.setNShininess((int) number(value, "shininess"));
+        return geometry.setMaterial(material);
+    }
+
+    /**
+     * Sets the attenuation factors of a point light by the attributes of the current element
+     *
+     * @param light the light
+     * @return the light
+     */
+    private PointLight attenuation(PointLight light) {
+        String value;
+        if ((value = reader.getAttributeValue(null, "kC")) != null) light.setkC(number(value, "kC"));
+        if ((value = reader.getAttributeValue(null, "kL")) != null) light.setkL(number(value, "kL"));
+        if ((value = reader.getAttributeValue(null, "kQ")) != null) light.setkQ(number(value, "kQ"));
+        return light;
+    }
+
+    /**
+     * Returns a required attribute of the current element
+     *
+     * @param name name of the attribute
+     * @return the value of the attribute
+     */
+    private String attribute(String name) {
+        String value = reader.getAttributeValue(null, name);
+        if (value == null)
+            throw error("Missing attribute " + name + " of " + reader.getLocalName());
+        return value;
+    }
+
+    /**
+     * Returns an optional attribute of the current element
+     *
+     * @param name         name of the attribute
+     * @param defaultValue the value of a missing attribute
+     * @return the value of the attribute
+     */
+    private String attribute(String name, String defaultValue) {
+        String value = reader.getAttributeValue(null, name);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * Parses a point attribute of the current element
+     *
+     * @param name name of the attribute
+     * @return the point
+     */
+    private Point point(String name) {
+        return toPoint(numbers(attribute(name), 3, name));
+    }
+
+    /**
+     * Parses a vector attribute of the current element
+     *
+     * @param name name of the attribute
+     * @return the vector
+     */
+    private Vector vector(String name) {
+        double[] xyz = numbers(attribute(name), 3, name);
+        try {
+            return new Vector(xyz[0], xyz[1], xyz[2]);
+        } catch (IllegalArgumentException e) {
+            throw error("The vector " + name + " can't be zero");
+        }
+    }
+
+    /**
+     * Parses a color
+     *
+     * @param value the value of the attribute
+     * @param name  name of the attribute
+     * @return the color
+     */
+    private Color color(String value, String name) {
+        double[] rgb = numbers(value, 3, name);
+        try {
+            return new Color(rgb[0], rgb[1], rgb[2]);
+        } catch (IllegalArgumentException e) {
+            throw error("The color " + name + " can't be negative");
+        }
+    }
+
+    /**
+     * Parses a coefficient - a number or a triple
+     *
+     * @param value the value of the attribute
+     * @param name  name of the attribute
+     * @return the coefficient
+     */
+    private Double3 coefficient(String value, String name) {
+        String trimmed = value.trim();
+        if (trimmed.indexOf(' ') < 0 && trimmed.indexOf('\t') < 0)
+            return new Double3(number(trimmed, name));
+        double[] numbers = numbers(trimmed, 3, name);
+        return new Double3(numbers[0], numbers[1], numbers[2]);
+    }
+
+    /**
+     * Parses numbers separated by spaces
+     *
+     * @param value the value of the attribute
+     * @param count the amount of the numbers
+     * @param name  name of the attribute
+     * @return the numbers
+     */
+    private double[] numbers(String value, int count, String name) {
+        String[] parts = value.trim().split("\\s+");
+        if (parts.length != count)
+            throw error("The attribute " + name + " must have " + count + " numbers");
+        double[] numbers = new double[count];
+        for (int i = 0; i < count; ++i)
+            numbers[i] = number(parts[i], name);
+        return numbers;
+    }
+
+    /**
+     * Parses a number
+     *
+     * @param value the value of the attribute
+     * @param name  name of the attribute
+     * @return the number
+     */
+    private double number(String value, String name) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw error("Illegal number in the attribute " + name + ": " + value);
+        }
+    }
+
+    /**
+     * Creates a point from its coordinates
+     *
+     * @param xyz the coordinates
+     * @return the point
+     */
+    private static Point toPoint(double[] xyz) {
+        return new Point(xyz[0], xyz[1], xyz[2]);
+    }
+
+    /**
+     * Creates an exception of malformed content at the current line
+     *
+     * @param message the problem
+     * @return the exception
+     */
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Scene file line " + reader.getLocation().getLineNumber() + ": " + message);
+    }
+}
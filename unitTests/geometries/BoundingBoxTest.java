@@ -0,0 +1,106 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing bounding boxes
+ * @author Hadar Nagar & Elinoy Damari
+ */
+class BoundingBoxTest {
+
+    private final double DELTA = 0.000001;
+
+    @Test
+    void testGetBoundingBox() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Box of a sphere
+        BoundingBox box = new Sphere(2d, new Point(1, 2, 3)).getBoundingBox();
+        assertEquals(-1, box.getMin(0), DELTA, "Wrong sphere box");
+        assertEquals(5, box.getMax(2), DELTA, "Wrong sphere box");
+
+        // TC02: Box of a triangle
+        box = new Triangle(new Point(0, 0, 1), new Point(1, 0, 1), new Point(0, 2, 1)).getBoundingBox();
+        assertEquals(0, box.getMin(1), DELTA, "Wrong triangle box");
+        assertEquals(2, box.getMax(1), DELTA, "Wrong triangle box");
+        assertEquals(1, box.getMin(2), DELTA, "Wrong triangle box");
+        assertEquals(1, box.getMax(2), DELTA, "Wrong triangle box");
+
+        // TC03: Box of a cylinder along the y axis
+        box = new Cylinder(5, new Ray(new Point(1, 1, 1), new Vector(0, 1, 0)), 1).getBoundingBox();
+        assertEquals(0, box.getMin(0), DELTA, "Wrong cylinder box");
+        assertEquals(1, box.getMin(1), DELTA, "Wrong cylinder box");
+        assertEquals(6, box.getMax(1), DELTA, "Wrong cylinder box");
+        assertEquals(2, box.getMax(2), DELTA, "Wrong cylinder box");
+
+        // TC04: Box of a collection is the union of the boxes of its geometries
+        box = new Geometries(new Sphere(1d, new Point(0, 0, 0)),
+                new Geometries(new Sphere(1d, new Point(10, 0, 0)))).getBoundingBox();
+        assertEquals(-1, box.getMin(0), DELTA, "Wrong geometries box");
+        assertEquals(11, box.getMax(0), DELTA, "Wrong geometries box");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: Infinite shapes
+        assertTrue(new Plane(Point.ZERO, new Vector(0, 0, 1)).getBoundingBox().isInfinite(), "Plane must be infinite");
+        assertTrue(new Tube(1, new Ray(Point.ZERO, new Vector(0, 0, 1))).getBoundingBox().isInfinite(),
+                "Tube must be infinite");
+        assertTrue(new Geometries(new Sphere(1d, Point.ZERO), new Plane(Point.ZERO, new Vector(0, 0, 1)))
+                .getBoundingBox().isInfinite(), "Geometries with a plane must be infinite");
+
+        // TC11: Empty collection
+        assertTrue(new Geometries().getBoundingBox().isEmpty(), "Empty geometries must have an empty box");
+    }
+
+    @Test
+    void testIntersects() {
+        BoundingBox box = new BoundingBox(0, 0, 0, 1, 1, 1);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray crosses the box
+        assertTrue(box.intersects(new Ray(new Point(-1, 0.5, 0.5), new Vector(1, 0.1, 0)), Double.POSITIVE_INFINITY),
+                "Ray crosses the box");
+
+        // TC02: Ray misses the box
+        assertFalse(box.intersects(new Ray(new Point(-1, 0.5, 0.5), new Vector(1, 2, 0)), Double.POSITIVE_INFINITY),
+                "Ray misses the box");
+
+        // TC03: Ray starts after the box
+        assertFalse(box.intersects(new Ray(new Point(2, 0.5, 0.5), new Vector(1, 0, 0)), Double.POSITIVE_INFINITY),
+                "Ray starts after the box");
+
+        // TC04: Ray starts inside the box
+        assertTrue(box.intersects(new Ray(new Point(0.5, 0.5, 0.5), new Vector(1, 1, 1)), Double.POSITIVE_INFINITY),
+                "Ray starts inside the box");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: The box is farther than the maximal distance
+        assertFalse(box.intersects(new Ray(new Point(-5, 0.5, 0.5), new Vector(1, 0, 0)), 4),
+                "The box is farther than the maximal distance");
+
+        // TC11: Ray parallel to an axis and on the face of the box
+        assertTrue(box.intersects(new Ray(new Point(-1, 0, 0.5), new Vector(1, 0, 0)), Double.POSITIVE_INFINITY),
+                "Ray on the face of the box");
+
+        // TC12: Empty and infinite boxes
+        Ray ray = new Ray(Point.ZERO, new Vector(1, 0, 0));
+        assertFalse(BoundingBox.EMPTY.intersects(ray, Double.POSITIVE_INFINITY), "Nothing intersects an empty box");
+        assertTrue(BoundingBox.INFINITE.intersects(ray, 1), "Everything intersects an infinite box");
+    }
+
+    @Test
+    void testGeometriesRejection() {
+        Geometries group = new Geometries(new Sphere(1d, new Point(10, 10, 0)), new Sphere(1d, new Point(12, 10, 0)));
+        Geometries geos = new Geometries(group, new Sphere(1d, new Point(0, 0, -5)));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray misses the nested group's box - only the other sphere is found
+        assertEquals(2, geos.findIntersections(new Ray(Point.ZERO, new Vector(0, 0, -1))).size(),
+                "Wrong number of intersections");
+
+        // TC02: Ray crosses the nested group's box
+        assertEquals(4, geos.findIntersections(new Ray(new Point(0, 10, 0), new Vector(1, 0, 0))).size(),
+                "Wrong number of intersections");
+    }
+}
@@ -44,4 +44,167 @@ class GeometriesTests {
         result = geos.findIntersections(new Ray(new Point(0, 2, 0), new Vector(1, 0, 0)));
         assertEquals(4, result.size(), "There should be four intersections");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testBuildBVH() {
+        Geometries geos = new Geometries(new Plane(new Point(0, 0, -50), new Vector(0, 0, 1)));
+        for (int i = 0; i < 10; ++i)
+            for (int j = 0; j < 10; ++j) {
+                geos.add(new Sphere(1d, new Point(i * 5, j * 5, 0)));
+                geos.add(new Triangle(new Point(i * 5, j * 5, 10), new Point(i * 5 + 2, j * 5, 10),
+                        new Point(i * 5, j * 5 + 2, 10)));
+            }
+        List<Ray> rays = List.of(
+                new Ray(new Point(0, 0, 100), new Vector(0, 0, -1)),
+                new Ray(new Point(0.5, 0.5, 100), new Vector(0, 0, -1)),
+                new Ray(new Point(-10, 0, 0), new Vector(1, 0, 0)),
+                new Ray(new Point(-10, -10, 20), new Vector(1, 1, -0.1)),
+                new Ray(new Point(100, 100, 100), new Vector(1, 1, 1)));
+        List<Integer> expected = rays.stream().map(ray -> {
+            List<Point> result = geos.findIntersections(ray);
+            return result == null ? 0 : result.size();
+        }).toList();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The hierarchy finds the same intersections as the linear search
+        geos.buildBVH();
+        for (int i = 0; i < rays.size(); ++i) {
+            List<Point> result = geos.findIntersections(rays.get(i));
+            assertEquals(expected.get(i), result == null ? 0 : result.size(),
+                    "Wrong number of intersections through the BVH");
+        }
+        assertEquals(3, expected.get(0), "There should be three intersections");
+        assertEquals(20, expected.get(2), "The ray should cross ten spheres");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: Intersections beyond the maximal distance are ignored by the hierarchy
+        assertEquals(1, geos.findGeoIntersections(rays.get(1), 95).size(), "Only the triangle is closer than 95");
+
+        // TC11: Geometries added after the build are found as well
+        geos.add(new Sphere(1d, new Point(0, 0, 50)));
+        assertEquals(5, geos.findIntersections(rays.get(0)).size(), "There should be five intersections");
+
+        // TC12: A deep unbalanced hierarchy (spheres at exponentially growing distances) is fully traversed
+        Geometries deep = new Geometries();
+        for (int i = 0; i < 100; ++i)
+            deep.add(new Sphere(1d, new Point(Math.pow(13, i), 0, 0)));
+        deep.buildBVH();
+        Ray ray = new Ray(new Point(-10, 0, 0), new Vector(1, 0, 0));
+        assertTrue(deep.findIntersections(ray).contains(new Point(0, 0, 0)), "The first sphere must be intersected");
+        assertEquals(new Point(0, 0, 0), deep.findClosestIntersection(ray).point, "Wrong closest intersection");
+    }
+
+    @Test
+    void testAdd() {
+        Geometries nested = new Geometries(new Sphere(1d, new Point(0, 0, 0)));
+        Geometries geos = new Geometries(nested, new Sphere(1d, new Point(10, 0, 0)));
+        Geometries outer = new Geometries(geos).buildBVH();
+        Ray ray = new Ray(new Point(30, 50, 0), new Vector(0, -1, 0));
+        assertNull(outer.findIntersections(ray), "The ray must miss the geometries");
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A geometry added to a nested collection after the boxes of its containing collections were
+        // calculated is found through them
+        nested.add(new Sphere(1d, new Point(30, 0, 0)));
+        assertEquals(2, outer.findIntersections(ray).size(), "The added sphere must be intersected");
+        assertEquals(new Point(30, 1, 0), outer.findClosestIntersection(ray).point, "Wrong closest intersection");
+        assertEquals(Double3.ZERO, outer.findTransparency(ray, 100, 0.001), "The added sphere must block the light");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: A geometry added to a nested collection after the hierarchy of the containing collection was
+        // built again
+        outer.buildBVH();
+        nested.add(new Sphere(1d, new Point(60, 0, 0)));
+        Ray far = new Ray(new Point(60, 50, 0), new Vector(0, -1, 0));
+        assertEquals(new Point(60, 1, 0), outer.findClosestIntersection(far).point, "Wrong closest intersection");
+    }
+
+    @Test
+    void testFindClosestIntersection() {
+        Sphere far = new Sphere(1d, new Point(10, 0, 0));
+        Sphere near = new Sphere(1d, new Point(5, 0, 0));
+        Triangle triangle = new Triangle(new Point(7, -1, -1), new Point(7, 1, -1), new Point(7, 0, 2));
+        Plane plane = new Plane(new Point(20, 0, 0), new Vector(1, 0, 0));
+        Geometries geos = new Geometries(far, plane, triangle, near);
+        Ray ray = new Ray(Point.ZERO, new Vector(1, 0, 0));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The closest of several geometries (not the first one in the collection)
+        Intersectable.GeoPoint result = geos.findClosestIntersection(ray);
+        assertSame(near, result.geometry, "Wrong closest geometry");
+        assertEquals(new Point(4, 0, 0), result.point, "Wrong closest point");
+
+        // TC02: The same result through the hierarchy
+        geos.buildBVH();
+        result = geos.findClosestIntersection(ray);
+        assertSame(near, result.geometry, "Wrong closest geometry through the BVH");
+        assertEquals(new Point(4, 0, 0), result.point, "Wrong closest point through the BVH");
+
+        // TC03: Ray starts inside the near sphere - the triangle is closer than the sphere's far side
+        result = geos.findClosestIntersection(new Ray(new Point(6.5, 0, 0), new Vector(1, 0, 0)));
+        assertSame(triangle, result.geometry, "Wrong closest geometry");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: All the intersections are beyond the maximal distance
+        assertNull(geos.findClosestIntersection(ray, 3), "There shouldn't be any intersection");
+
+        // TC11: Only the unbounded plane is hit
+        result = geos.findClosestIntersection(new Ray(new Point(0, 5, 0), new Vector(1, 0, 0)));
+        assertSame(plane, result.geometry, "The plane should be hit");
+    }
+
+    @Test
+    void testFindTransparency() {
+        Geometry glass = new Sphere(1d, new Point(5, 0, 0)).setMaterial(new Material().setKT(0.5));
+        Geometry wall = new Plane(new Point(10, 0, 0), new Vector(1, 0, 0));
+        Geometries geos = new Geometries(glass, wall);
+        Ray ray = new Ray(Point.ZERO, new Vector(1, 0, 0));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray crosses a transparent sphere only (two intersections)
+        assertEquals(new Double3(0.25), geos.findTransparency(ray, 8, 0.001), "Wrong transparency");
+
+        // TC02: An opaque geometry blocks the light completely
+        assertTrue(geos.findTransparency(ray, 20, 0.001).lowerThan(0.001), "The wall should block the light");
+
+        // TC03: The same through the hierarchy
+        geos.buildBVH();
+        assertEquals(new Double3(0.25), geos.findTransparency(ray, 8, 0.001), "Wrong transparency through the BVH");
+        assertTrue(geos.findTransparency(ray, 20, 0.001).lowerThan(0.001), "The wall should block the light");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: Nothing between the head and the light
+        assertEquals(Double3.ONE, geos.findTransparency(ray, 3, 0.001), "Nothing should block the light");
+
+        // TC11: The search stops when the transparency is lower than the minimum
+        assertEquals(new Double3(0.5), geos.findTransparency(ray, 8, 0.6), "The search should stop at the first point");
+    }
+
+    @Test
+    void testHitRecord() {
+        Sphere near = new Sphere(1d, new Point(5, 0, 0));
+        Geometries geos = new Geometries(new Sphere(1d, new Point(10, 0, 0)), near,
+                new Triangle(new Point(20, -1, -1), new Point(20, 1, -1), new Point(20, 0, 2))).buildBVH();
+        Ray ray = new Ray(Point.ZERO, new Vector(1, 0, 0));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The record holds the closest intersection and its normal
+        HitRecord hit = HitRecord.local().reset(ray, Double.POSITIVE_INFINITY);
+        assertTrue(geos.findClosestIntersection(hit), "An intersection should be found");
+        assertSame(near, hit.getGeometry(), "Wrong intersected geometry");
+        assertEquals(4, hit.getT(), 0.000001, "Wrong distance");
+        assertEquals(new Point(4, 0, 0), hit.getPoint(), "Wrong point");
+        assertEquals(new Vector(-1, 0, 0), hit.getNormal(), "Wrong normal");
+
+        // TC02: The record is reused by the next query of the thread
+        assertFalse(geos.findClosestIntersection(HitRecord.local().reset(ray, 3)), "No intersection closer than 3");
+        assertFalse(hit.isFound(), "The record should have been reset");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: A farther intersection doesn't replace the recorded one
+        hit.reset(ray, Double.POSITIVE_INFINITY);
+        assertTrue(hit.update(4, near), "The first intersection should be recorded");
+        assertFalse(hit.update(9, near), "A farther intersection must not be recorded");
+        assertFalse(hit.update(-1, near), "An intersection behind the head must not be recorded");
+    }
+}
@@ -0,0 +1,134 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing the binary encoding of geometries
+ * @author Hadar Nagar & Elinoy Damari
+ */
+class GeometryCodecTest {
+
+    /**
+     * Encodes a geometry and decodes it back
+     *
+     * @param geometry the geometry
+     * @return the decoded geometry
+     * @throws IOException never - the geometry is encoded in memory
+     */
+    private static Intersectable roundTrip(Intersectable geometry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            GeometryCodec.write(geometry, out);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        Intersectable result = GeometryCodec.read(buffer);
+        assertFalse(buffer.hasRemaining(), "The whole encoding must be decoded");
+        return result;
+    }
+
+    @Test
+    void testRoundTrip() throws IOException {
+        Mesh mesh = new Mesh(new double[]{4, 0, 0, 5, 0, 0, 5, 1, 0, 4, 1, 0}, new int[]{0, 1, 2, 0, 2, 3})
+                .setVertexNormals(new double[]{0, 0, 1, 0, 0, 1, 0, 0, 1, 0, 0, 1});
+        Geometries inner = new Geometries(new Sphere(0.5, new Point(-4, 0, 0)),
+                new Triangle(new Point(-2, 0, 0), new Point(-1, 0, 0), new Point(-2, 1, 0)));
+        Geometries geometries = new Geometries(
+                new Sphere(1, new Point(0, 0, -2)).setEmission(new Color(10, 20, 30))
+                        .setMaterial(new Material().setKd(0.5).setKs(new Double3(0.1, 0.2, 0.3))
+                                .setNShininess(40).setKT(0.25).setKR(0.75)),
+                new Plane(new Point(0, 0, -10), new Vector(0, 0, 1)),
+                new Polygon(new Point(2, 0, 0), new Point(3, 0, 0), new Point(3, 1, 0), new Point(2, 1, 0)),
+                new Tube(0.2, new Ray(new Point(0, 3, 0), new Vector(1, 0, 0))),
+                new Cylinder(1, new Ray(new Point(0, -3, 0), new Vector(0, 0, 1)), 0.3),
+                mesh, inner.buildBVH()).buildBVH();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The decoded geometries have the same intersections, materials and hierarchies
+        Geometries result = (Geometries) roundTrip(geometries);
+        assertEquals(geometries.geometries.size(), result.geometries.size(), "Wrong amount of geometries");
+        assertNotNull(result.bvh, "The hierarchy must be decoded");
+        assertArrayEquals(geometries.bvh.nodes.bounds, result.bvh.nodes.bounds, "Wrong nodes");
+        assertEquals(2, result.bvh.unbounded.length, "The plane and the tube must stay unbounded");
+        Mesh resultMesh = (Mesh) result.geometries.get(5);
+        assertArrayEquals(mesh.faces, resultMesh.faces, "Wrong faces");
+        assertArrayEquals(mesh.nodes.offsets, resultMesh.nodes.offsets, "Wrong nodes of the mesh");
+
+        Random random = new Random(5);
+        for (int i = 0; i < 300; ++i) {
+            Ray ray = new Ray(new Point(10 * random.nextDouble() - 5, 10 * random.nextDouble() - 5, 5),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -1));
+            GeoPoint expected = geometries.findClosestIntersection(ray);
+            GeoPoint actual = result.findClosestIntersection(ray);
+            assertEquals(expected.point, actual.point, "Wrong intersection");
+            assertEquals(expected.getNormal(), actual.getNormal(), "Wrong normal");
+            assertEquals(expected.geometry.getClass(), actual.geometry.getClass(), "Wrong geometry");
+        }
+        Geometry sphere = (Geometry) result.geometries.get(0);
+        assertEquals(new Double3(10, 20, 30), sphere.getEmission().getRgb(), "Wrong emission");
+        Material material = sphere.getMaterial();
+        assertEquals(new Double3(0.1, 0.2, 0.3), material.kS, "Wrong material");
+        assertEquals(40, material.nShininess, "Wrong shininess");
+        assertEquals(new Double3(0.75), material.kR, "Wrong reflection");
+
+        // TC02: A mesh stored in floats keeps its storage, hierarchy and normals
+        Mesh floats = (Mesh) roundTrip(mesh.toFloatStorage());
+        assertTrue(floats.isFloatStorage(), "The mesh must stay stored in floats");
+        assertArrayEquals(mesh.toFloatStorage().nodes.floatBounds, floats.nodes.floatBounds, "Wrong nodes of the mesh");
+        assertEquals(new Vector(0, 0, 1), floats.findClosestIntersection(
+                new Ray(new Point(4.7, 0.2, 1), new Vector(0, 0.1, -1))).getNormal(), "Wrong normal");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: An empty collection without a hierarchy
+        Geometries empty = (Geometries) roundTrip(new Geometries());
+        assertTrue(empty.geometries.isEmpty(), "Wrong empty collection");
+        assertNull(empty.bvh, "An empty collection has no hierarchy");
+    }
+
+    @Test
+    void testErrors() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            GeometryCodec.write(new Geometries(new Sphere(1, Point.ZERO), new Sphere(1, new Point(3, 0, 0))).buildBVH(),
+                    out);
+        }
+        byte[] encoded = bytes.toByteArray();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Truncated content
+        assertThrows(IllegalArgumentException.class,
+                () -> GeometryCodec.read(ByteBuffer.wrap(Arrays.copyOf(encoded, encoded.length - 5))),
+                "Truncated content must throw");
+        // TC02: An unknown geometry
+        assertThrows(IllegalArgumentException.class, () -> GeometryCodec.read(ByteBuffer.wrap(new byte[]{99})),
+                "An unknown geometry must throw");
+        // TC03: A geometry that isn't of the package
+        assertThrows(IllegalArgumentException.class, () -> GeometryCodec.write(new Intersectable() {
+            @Override
+            protected java.util.List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+                return null;
+            }
+
+            @Override
+            protected BoundingBox calcBoundingBox() {
+                return BoundingBox.INFINITE;
+            }
+        }, new DataOutputStream(new ByteArrayOutputStream())), "A foreign geometry must throw");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: A huge amount of geometries
+        assertThrows(IllegalArgumentException.class,
+                () -> GeometryCodec.read(ByteBuffer.wrap(new byte[]{0, 0x7f, 0, 0, 0})),
+                "An amount larger than the content must throw");
+    }
+}
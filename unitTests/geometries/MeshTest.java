@@ -0,0 +1,219 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import geometries.Intersectable.GeoPoint;
+import primitives.*;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing indexed triangle meshes
+ * @author Hadar Nagar & Elinoy Damari
+ */
+class MeshTest {
+    /** A unit square on the plane z=0, made of two faces */
+    private final Mesh square = new Mesh(new double[]{0, 0, 0, 1, 0, 0, 1, 1, 0, 0, 1, 0}, new int[]{0, 1, 2, 0, 2, 3});
+
+    /**
+     * Creates a grid of n x n squares (2 faces each) on the plane z=0, raised in a bump at its middle
+     *
+     * @param n the amount of the squares along each side
+     * @return the coordinates of the vertices and the indices of the faces
+     */
+    private static Object[] grid(int n) {
+        double[] vertices = new double[3 * (n + 1) * (n + 1)];
+        for (int i = 0; i <= n; ++i)
+            for (int j = 0; j <= n; ++j) {
+                int v = 3 * (i * (n + 1) + j);
+                vertices[v] = j;
+                vertices[v + 1] = i;
+                vertices[v + 2] = Math.exp(-((j - n / 2d) * (j - n / 2d) + (i - n / 2d) * (i - n / 2d)) / n);
+            }
+        int[] faces = new int[6 * n * n];
+        for (int i = 0, f = 0; i < n; ++i)
+            for (int j = 0; j < n; ++j) {
+                int v = i * (n + 1) + j;
+                faces[f++] = v;
+                faces[f++] = v + 1;
+                faces[f++] = v + n + 2;
+                faces[f++] = v;
+                faces[f++] = v + n + 2;
+                faces[f++] = v + n + 1;
+            }
+        return new Object[]{vertices, faces};
+    }
+
+    @Test
+    void testConstructor() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A correct mesh
+        assertEquals(2, square.getFacesCount(), "Wrong amount of faces");
+        // TC02: Partial vertex
+        assertThrows(IllegalArgumentException.class, () -> new Mesh(new double[]{0, 0, 0, 1}, new int[]{}),
+                "A partial vertex must throw");
+        // TC03: Partial face
+        assertThrows(IllegalArgumentException.class, () -> new Mesh(new double[]{0, 0, 0}, new int[]{0, 0}),
+                "A partial face must throw");
+        // TC04: A face of a missing vertex
+        assertThrows(IllegalArgumentException.class, () -> new Mesh(new double[]{0, 0, 0}, new int[]{0, 0, 1}),
+                "A missing vertex must throw");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: An empty mesh has no intersections
+        Mesh empty = new Mesh(new double[0], new int[0]);
+        assertTrue(empty.getBoundingBox().isEmpty(), "An empty mesh must have an empty box");
+        assertNull(empty.findIntersections(new Ray(new Point(0, 0, 1), new Vector(0, 0, -1))),
+                "An empty mesh must not be intersected");
+    }
+
+    @Test
+    void testGetNormal() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The normal of a face
+        assertEquals(new Vector(0, 0, 1), square.getNormal(new Point(0.7, 0.2, 0)), "Wrong normal");
+        // TC02: The normal of an intersection
+        assertEquals(new Vector(0, 0, 1),
+                square.findClosestIntersection(new Ray(new Point(0.2, 0.7, 1), new Vector(0, 0, -1))).getNormal(),
+                "Wrong normal of the intersection");
+        // TC03: Interpolated vertex normals
+        Mesh smooth = new Mesh(new double[]{0, 0, 0, 1, 0, 0, 0, 1, 0}, new int[]{0, 1, 2})
+                .setVertexNormals(new double[]{0, 0, 1, 1, 0, 0, 0, 0, 1});
+        GeoPoint gp = smooth.findClosestIntersection(new Ray(new Point(0.5, 0.25, 1), new Vector(0, 0, -1)));
+        assertEquals(new Vector(1, 0, 1).normalize(), gp.getNormal(), "Wrong interpolated normal");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: A point out of the mesh
+        assertThrows(IllegalArgumentException.class, () -> square.getNormal(new Point(2, 2, 0)),
+                "A point out of the mesh must throw");
+    }
+
+    @Test
+    void testFindIntersections() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The ray crosses a face
+        List<Point> result = square.findIntersections(new Ray(new Point(0.7, 0.2, 1), new Vector(0, 0, -1)));
+        assertEquals(List.of(new Point(0.7, 0.2, 0)), result, "Wrong intersection");
+        // TC02: The ray misses the mesh
+        assertNull(square.findIntersections(new Ray(new Point(2, 0.2, 1), new Vector(0, 0, -1))),
+                "The ray must miss the mesh");
+        // TC03: The mesh is too far
+        assertNull(square.findGeoIntersections(new Ray(new Point(0.7, 0.2, 1), new Vector(0, 0, -1)), 0.5),
+                "The mesh is farther than the distance");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: The ray crosses the edge shared by the faces
+        assertNull(square.findIntersections(new Ray(new Point(0.5, 0.5, 1), new Vector(0, 0, -1))),
+                "The edges are not intersected");
+        // TC11: The ray crosses a vertex
+        assertNull(square.findIntersections(new Ray(new Point(1, 0, 1), new Vector(0, 0, -1))),
+                "The vertices are not intersected");
+    }
+
+    @Test
+    void testFindClosestIntersection() {
+        Object[] grid = grid(40);
+        double[] vertices = (double[]) grid[0];
+        int[] faces = (int[]) grid[1];
+        Mesh mesh = new Mesh(vertices, faces);
+        Geometries triangles = new Geometries();
+        for (int f = 0; f < faces.length; f += 3) {
+            Point[] points = new Point[3];
+            for (int k = 0; k < 3; ++k)
+                points[k] = new Point(vertices[3 * faces[f + k]], vertices[3 * faces[f + k] + 1],
+                        vertices[3 * faces[f + k] + 2]);
+            triangles.add(new Triangle(points));
+        }
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The mesh finds the same closest intersections as its faces
+        Random random = new Random(7);
+        for (int i = 0; i < 200; ++i) {
+            Point head = new Point(40 * random.nextDouble(), 40 * random.nextDouble(), 5);
+            Ray ray = new Ray(head, new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -1));
+            GeoPoint expected = triangles.findClosestIntersection(ray);
+            GeoPoint result = mesh.findClosestIntersection(ray);
+            if (expected == null)
+                assertNull(result, "The ray must miss the mesh");
+            else {
+                assertEquals(expected.point, result.point, "Wrong closest intersection");
+                assertEquals(expected.getNormal(), result.getNormal(), "Wrong normal");
+            }
+        }
+        // TC02: A ray crossing the bump finds all its intersections
+        Ray ray = new Ray(new Point(0.3, 20.3, 0.5), new Vector(1, 0, 0));
+        assertEquals(triangles.findIntersections(ray).size(), mesh.findIntersections(ray).size(),
+                "Wrong amount of intersections");
+    }
+
+    @Test
+    void testFindTransparency() {
+        Ray ray = new Ray(new Point(0.7, 0.2, -1), new Vector(0, 0, 1));
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: An opaque mesh blocks the light
+        assertEquals(Double3.ZERO, square.findTransparency(ray, 5, 0.001), "The light must be blocked");
+        // TC02: A transparent mesh
+        Mesh glass = new Mesh(new double[]{0, 0, 0, 1, 0, 0, 1, 1, 0}, new int[]{0, 1, 2});
+        glass.setMaterial(new Material().setKT(0.5));
+        assertEquals(new Double3(0.5), glass.findTransparency(ray, 5, 0.001), "Wrong transparency");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: The light source is before the mesh
+        assertEquals(Double3.ONE, square.findTransparency(ray, 0.5, 0.001), "The light must not be blocked");
+    }
+
+    @Test
+    void testToFloatStorage() {
+        Object[] grid = grid(40);
+        double[] vertices = (double[]) grid[0];
+        Mesh mesh = new Mesh(vertices, (int[]) grid[1]);
+        mesh.setMaterial(new Material().setKd(0.5));
+        Mesh floats = mesh.toFloatStorage();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The float mesh finds the closest intersections of the mesh, up to the rounding of its vertices
+        Random random = new Random(8);
+        for (int i = 0; i < 200; ++i) {
+            Point head = new Point(40 * random.nextDouble(), 40 * random.nextDouble(), 5);
+            Ray ray = new Ray(head, new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -1));
+            GeoPoint expected = mesh.findClosestIntersection(ray);
+            GeoPoint result = floats.findClosestIntersection(ray);
+            if (expected == null)
+                assertNull(result, "The ray must miss the mesh");
+            else {
+                assertEquals(0, expected.point.distance(result.point), 1e-5, "Wrong closest intersection");
+                assertEquals(1, expected.getNormal().dotProduct(result.getNormal()), 1e-5, "Wrong normal");
+            }
+        }
+        // TC02: The copy is stored in floats and keeps the material
+        assertTrue(floats.isFloatStorage(), "The copy must be stored in floats");
+        assertFalse(mesh.isFloatStorage(), "The mesh must stay stored in doubles");
+        assertSame(mesh.getMaterial(), floats.getMaterial(), "Wrong material");
+        assertSame(floats, floats.toFloatStorage(), "A float mesh is already stored in floats");
+        // TC03: A mesh constructed of floats
+        Mesh floatSquare = new Mesh(new float[]{0, 0, 0, 1, 0, 0, 1, 1, 0, 0, 1, 0}, new int[]{0, 1, 2, 0, 2, 3});
+        assertEquals(List.of(new Point(0.7, 0.2, 0)),
+                floatSquare.findIntersections(new Ray(new Point(0.7, 0.2, 1), new Vector(0, 0, -1))),
+                "Wrong intersection");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: A ray through the shared edge of two faces doesn't slip between them
+        Ray diagonal = new Ray(new Point(0.5, 0.5, 1), new Vector(0, 0, -1));
+        assertNull(square.findIntersections(diagonal), "The edges of a double mesh are not intersected");
+        assertEquals(new Point(0.5, 0.5, 0), floatSquare.findClosestIntersection(diagonal).point,
+                "The ray must hit the float mesh");
+        // TC11: Rays through the vertices of a mesh far from the origin, whose vertices aren't floats -
+        // the boxes of the hierarchy must contain the rounded vertices
+        double[] far = vertices.clone();
+        for (int i = 0; i < far.length; ++i)
+            far[i] += 1000.1;
+        Mesh farFloats = new Mesh(far, (int[]) grid[1]).toFloatStorage();
+        for (int v = 0; v < far.length; v += 3) {
+            Point vertex = new Point((float) far[v], (float) far[v + 1], (float) far[v + 2]);
+            assertNotNull(farFloats.findClosestIntersection(new Ray(vertex.add(new Vector(0, 0, 5)),
+                    new Vector(0, 0, -1))), "The ray must hit the vertex " + v / 3);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing the batches of spheres and triangles
+ * @author Hadar Nagar & Elinoy Damari
+ */
+class PrimitiveBatchTest {
+
+    /**
+     * Creates random small spheres
+     *
+     * @param random the random numbers
+     * @param n      amount of the spheres
+     * @return the spheres
+     */
+    private static Intersectable[] spheres(Random random, int n) {
+        Intersectable[] spheres = new Intersectable[n];
+        for (int i = 0; i < n; ++i)
+            spheres[i] = new Sphere(0.5 + random.nextDouble(),
+                    new Point(20 * random.nextDouble() - 10, 20 * random.nextDouble() - 10, -10 * random.nextDouble()));
+        return spheres;
+    }
+
+    /**
+     * Creates random triangles
+     *
+     * @param random the random numbers
+     * @param n      amount of the triangles
+     * @return the triangles
+     */
+    private static Intersectable[] triangles(Random random, int n) {
+        Intersectable[] triangles = new Intersectable[n];
+        for (int i = 0; i < n; ++i) {
+            Point p0 = new Point(20 * random.nextDouble() - 10, 20 * random.nextDouble() - 10, -10 * random.nextDouble());
+            triangles[i] = new Triangle(p0, p0.add(new Vector(2 + random.nextDouble(), random.nextDouble(), 1)),
+                    p0.add(new Vector(random.nextDouble(), 2 + random.nextDouble(), -1)));
+        }
+        return triangles;
+    }
+
+    /**
+     * Asserts that a group of shapes finds exactly the closest intersections the shapes find one by one
+     *
+     * @param shapes the shapes
+     * @param group  the group of the shapes
+     * @param random the random numbers
+     */
+    private static void assertSameHits(Intersectable[] shapes, Geometries group, Random random) {
+        int hits = 0;
+        for (int i = 0; i < 500; ++i) {
+            Ray ray = new Ray(new Point(24 * random.nextDouble() - 12, 24 * random.nextDouble() - 12, 10),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -5));
+            HitRecord expected = new HitRecord().reset(ray, Double.POSITIVE_INFINITY);
+            for (Intersectable shape : shapes)
+                shape.findClosestIntersectionHelper(expected);
+            HitRecord actual = new HitRecord().reset(ray, Double.POSITIVE_INFINITY);
+            assertEquals(expected.isFound(), group.findClosestIntersection(actual), "Wrong result");
+            assertSame(expected.getGeometry(), actual.getGeometry(), "Wrong geometry");
+            assertEquals(expected.getT(), actual.getT(), 0, "Wrong distance");
+            if (expected.isFound())
+                ++hits;
+            // the barycentric coordinates are meaningful only for a triangle
+            if (expected.getGeometry() instanceof Triangle) {
+                assertEquals(expected.getU(), actual.getU(), 0, "Wrong barycentric coordinate");
+                assertEquals(expected.getV(), actual.getV(), 0, "Wrong barycentric coordinate");
+            }
+        }
+        assertTrue(hits > 50, "Too few rays hit the shapes");
+    }
+
+    @Test
+    void testKind() {
+        Random random = new Random(1);
+        Intersectable[] shapes = new Intersectable[8];
+        System.arraycopy(spheres(random, 2), 0, shapes, 0, 2);
+        System.arraycopy(triangles(random, 3), 0, shapes, 2, 3);
+        shapes[5] = new Plane(Point.ZERO, new Vector(0, 0, 1));
+        shapes[6] = new Sphere(1, Point.ZERO) {
+        };
+        shapes[7] = new Sphere(1, Point.ZERO);
+        PrimitiveBatch batch = new PrimitiveBatch(shapes);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Homogeneous ranges
+        assertEquals(PrimitiveBatch.SPHERES, batch.kind(0, 2), "Wrong kind of spheres");
+        assertEquals(PrimitiveBatch.TRIANGLES, batch.kind(2, 5), "Wrong kind of triangles");
+        // TC02: Mixed ranges
+        assertEquals(PrimitiveBatch.MIXED, batch.kind(0, 3), "Wrong kind of spheres and triangles");
+        assertEquals(PrimitiveBatch.MIXED, batch.kind, "Wrong kind of all the shapes");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: A single shape isn't batched
+        assertEquals(PrimitiveBatch.MIXED, batch.kind(7, 8), "A single sphere isn't batched");
+        // TC11: A subclass of a sphere isn't batched
+        assertEquals(PrimitiveBatch.MIXED, batch.kind(6, 8), "A subclass of a sphere isn't batched");
+    }
+
+    @Test
+    void testFindClosestIntersection() {
+        Random random = new Random(2);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A group of spheres (not a multiple of the lanes)
+        Intersectable[] spheres = spheres(random, 37);
+        assertSameHits(spheres, new Geometries(spheres), random);
+        // TC02: A group of triangles
+        Intersectable[] triangles = triangles(random, 29);
+        assertSameHits(triangles, new Geometries(triangles), random);
+        // TC03: The leaves of a hierarchy of spheres and triangles
+        Intersectable[] mixed = new Intersectable[spheres.length + triangles.length];
+        System.arraycopy(spheres, 0, mixed, 0, spheres.length);
+        System.arraycopy(triangles, 0, mixed, spheres.length, triangles.length);
+        assertSameHits(mixed, new Geometries(mixed).buildBVH(), random);
+
+        // =============== Boundary Values Tests ==================
+        // TC10: A ray from the center of a sphere
+        Ray ray = new Ray(new Point(5, 0, 0), new Vector(0, 0, 1));
+        Geometries group = new Geometries(new Sphere(1, new Point(5, 0, 0)), new Sphere(1, new Point(5, 0, -10)));
+        HitRecord hit = new HitRecord().reset(ray, Double.POSITIVE_INFINITY);
+        assertTrue(group.findClosestIntersection(hit), "A ray from the center must intersect");
+        assertEquals(1, hit.getT(), 0, "Wrong distance from the center");
+    }
+
+    @Test
+    void testKernel() {
+        Random random = new Random(3);
+        Intersectable[] shapes = new Intersectable[40];
+        System.arraycopy(spheres(random, 20), 0, shapes, 0, 20);
+        System.arraycopy(triangles(random, 20), 0, shapes, 20, 20);
+        PrimitiveBatch batch = new PrimitiveBatch(shapes);
+        BatchKernel scalar = new ScalarBatchKernel();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The loaded kernel (vectorized if available) computes exactly the distances of the scalar one
+        for (int i = 0; i < 200; ++i) {
+            Ray ray = new Ray(new Point(24 * random.nextDouble() - 12, 24 * random.nextDouble() - 12, 10),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -5));
+            int from = random.nextInt(20), to = from + 1 + random.nextInt(20 - from);
+            int size = 20 + PrimitiveBatch.PADDING; // a kernel may write after the batch
+            double[] expected = new double[size], actual = new double[size];
+            scalar.intersectSpheres(batch, ray, from, to, expected);
+            PrimitiveBatch.KERNEL.intersectSpheres(batch, ray, from, to, actual);
+            assertArrayEquals(Arrays.copyOf(expected, to - from), Arrays.copyOf(actual, to - from),
+                    "Wrong distances of spheres");
+
+            double[] u = new double[size], v = new double[size];
+            scalar.intersectTriangles(batch, ray, 20 + from, 20 + to, 100, expected, u, v);
+            PrimitiveBatch.KERNEL.intersectTriangles(batch, ray, 20 + from, 20 + to, 100, actual, u, v);
+            assertArrayEquals(Arrays.copyOf(expected, to - from), Arrays.copyOf(actual, to - from),
+                    "Wrong distances of triangles");
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing the packets of rays
+ * @author Hadar Nagar & Elinoy Damari
+ */
+class RayPacketTest {
+
+    /**
+     * Creates a scene of random spheres and triangles over a plane
+     *
+     * @param random the random numbers
+     * @return the geometries of the scene (without a hierarchy)
+     */
+    private static Geometries scene(Random random) {
+        Geometries geometries = new Geometries(new Plane(new Point(0, 0, -30), new Vector(0, 0.2, 1)));
+        for (int i = 0; i < 200; ++i) {
+            Point p0 = new Point(40 * random.nextDouble() - 20, 40 * random.nextDouble() - 20, -20 * random.nextDouble());
+            if (i % 2 == 0)
+                geometries.add(new Sphere(0.5 + random.nextDouble(), p0));
+            else
+                geometries.add(new Triangle(p0, p0.add(new Vector(2 + random.nextDouble(), random.nextDouble(), 1)),
+                        p0.add(new Vector(random.nextDouble(), 2 + random.nextDouble(), -1))));
+        }
+        return geometries;
+    }
+
+    /**
+     * Asserts that the intersections of the rays of a packet are exactly the ones of the rays one by one
+     *
+     * @param geometries the intersected geometries
+     * @param rays       the rays of the packet
+     */
+    private static void assertSameHits(Geometries geometries, Ray[] rays) {
+        RayPacket packet = new RayPacket();
+        for (Ray ray : rays)
+            packet.add(ray);
+        geometries.findClosestIntersections(packet);
+        for (int i = 0; i < rays.length; ++i) {
+            HitRecord expected = new HitRecord().reset(rays[i], Double.POSITIVE_INFINITY);
+            geometries.findClosestIntersection(expected);
+            HitRecord actual = packet.get(i);
+            assertSame(expected.getGeometry(), actual.getGeometry(), "Wrong geometry of ray " + i);
+            assertEquals(expected.getT(), actual.getT(), 0, "Wrong distance of ray " + i);
+        }
+    }
+
+    /**
+     * Creates the rays from the origin through a block of pixels of a view plane
+     *
+     * @param size   width and height of the block
+     * @param x      the x coordinate of the center of the block
+     * @param y      the y coordinate of the center of the block
+     * @param spread the distance between the pixels
+     * @return the rays
+     */
+    private static Ray[] block(int size, double x, double y, double spread) {
+        Ray[] rays = new Ray[size * size];
+        for (int i = 0; i < size; ++i)
+            for (int j = 0; j < size; ++j)
+                rays[i * size + j] = new Ray(new Point(0, 0, 20),
+                        new Vector(x + (j - (size - 1) / 2d) * spread, y + (i - (size - 1) / 2d) * spread, -10));
+        return rays;
+    }
+
+    /**
+     * Test method for {@link Intersectable#findClosestIntersections(RayPacket)}.
+     */
+    @Test
+    void testFindClosestIntersections() {
+        Random random = new Random(4);
+        Geometries geometries = scene(random);
+        Geometries hierarchy = scene(new Random(4)).buildBVH();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Coherent packets of 4x4 rays through the hierarchy
+        for (int i = 0; i < 100; ++i) {
+            Ray[] rays = block(4, 20 * random.nextDouble() - 10, 20 * random.nextDouble() - 10, 0.05);
+            assertSameHits(hierarchy, rays);
+        }
+        // TC02: Packets of rays of different direction signs (around the axes)
+        for (int i = 0; i < 100; ++i)
+            assertSameHits(hierarchy, block(4, 0.5 * random.nextDouble() - 0.25, 0.5 * random.nextDouble() - 0.25, 0.2));
+        // TC03: Packets of 2x2 rays through geometries without a hierarchy
+        for (int i = 0; i < 100; ++i)
+            assertSameHits(geometries, block(2, 20 * random.nextDouble() - 10, 20 * random.nextDouble() - 10, 0.05));
+
+        // =============== Boundary Values Tests ==================
+        // TC10: A packet of a single ray
+        assertSameHits(hierarchy, block(1, 1, 1, 0));
+        // TC11: A packet that misses all the geometries of the hierarchy but the plane
+        assertSameHits(hierarchy, block(4, 200, 200, 0.1));
+    }
+
+    /**
+     * Test method for {@link RayPacket#add(Ray)}.
+     */
+    @Test
+    void testAdd() {
+        RayPacket packet = new RayPacket();
+        Ray ray = new Ray(Point.ZERO, new Vector(0, 0, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The rays are added in order, without an intersection yet
+        packet.add(ray).add(ray);
+        assertEquals(2, packet.size(), "Wrong amount of rays");
+        assertFalse(packet.get(1).isFound(), "A new ray has no intersection");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: A full packet
+        for (int i = 2; i < RayPacket.MAX_SIZE; ++i)
+            packet.add(ray);
+        assertThrows(IllegalStateException.class, () -> packet.add(ray), "A full packet must not accept rays");
+        // TC11: A cleared packet
+        assertEquals(0, packet.clear().size(), "The packet must be empty");
+        assertThrows(IndexOutOfBoundsException.class, () -> packet.get(0), "There is no ray");
+    }
+}
@@ -86,4 +86,28 @@ class TriangleTest {
         assertNull(result);
 
     }
+
+    @Test
+    void testFindClosestIntersection() {
+        Triangle triangle = new Triangle(new Point(0, 0, -1), new Point(4, 0, -1), new Point(0, 2, -1));
+        HitRecord hit = HitRecord.local();
+        // ================= Equivalence Partitions Tests ===========================
+        // TC01: The distance and the barycentric coordinates of the intersection
+        assertTrue(triangle.findClosestIntersection(hit.reset(new Ray(new Point(1, 0.5, 1), new Vector(0, 0, -1)),
+                Double.POSITIVE_INFINITY)), "The ray must intersect the triangle");
+        assertEquals(2, hit.getT(), 1e-10, "Wrong distance");
+        assertEquals(0.25, hit.getU(), 1e-10, "Wrong weight of the second vertex");
+        assertEquals(0.25, hit.getV(), 1e-10, "Wrong weight of the third vertex");
+        assertEquals(new Point(1, 0.5, -1), hit.getPoint(), "Wrong intersection point");
+        // TC02: The ray goes away from the triangle
+        assertFalse(triangle.findClosestIntersection(hit.reset(new Ray(new Point(1, 0.5, 1), new Vector(0, 0, 1)),
+                Double.POSITIVE_INFINITY)), "The ray must not intersect the triangle");
+        // ================= BVA Tests ===========================
+        // TC10: The ray is parallel to the triangle
+        assertFalse(triangle.findClosestIntersection(hit.reset(new Ray(new Point(1, 0.5, 1), new Vector(1, 0, 0)),
+                Double.POSITIVE_INFINITY)), "The ray must not intersect the triangle");
+        // TC11: The ray starts on the triangle
+        assertFalse(triangle.findClosestIntersection(hit.reset(new Ray(new Point(1, 0.5, -1), new Vector(0, 0, -1)),
+                Double.POSITIVE_INFINITY)), "The ray must not intersect the triangle");
+    }
 }
\ No newline at end of file
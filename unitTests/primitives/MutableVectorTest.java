@@ -0,0 +1,78 @@
+package primitives;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing the mutable scratch vectors
+ * @author Hadar Nagar & Elinoy Damari
+ */
+class MutableVectorTest {
+
+    /**
+     * Asserts that a mutable vector has exactly the coordinates of a vector
+     *
+     * @param expected the vector
+     * @param actual   the mutable vector
+     * @param message  the message of a failure
+     */
+    private static void assertExact(Point expected, MutableVector actual, String message) {
+        assertEquals(expected.getX(), actual.getX(), 0, message);
+        assertEquals(expected.getY(), actual.getY(), 0, message);
+        assertEquals(expected.getZ(), actual.getZ(), 0, message);
+    }
+
+    @Test
+    void testOperations() {
+        MutableVector v = new MutableVector(1, 2, 3);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The operations are in place
+        assertSame(v, v.add(new Vector(1, 1, 1)).scale(2), "The operations must return the vector itself");
+        assertExact(new Point(4, 6, 8), v, "Wrong add and scale");
+        // TC02: Subtracting a scaled vector
+        assertExact(new Point(2, 3, 4), v.subtractScaled(new Vector(1, 1.5, 2), 2), "Wrong subtractScaled");
+        // TC03: Dot and cross products
+        MutableVector u = new MutableVector(1, 0, 0);
+        assertEquals(2, v.dotProduct(u), 0, "Wrong dot product");
+        assertExact(new Point(0, -4, 3), u.crossProduct(v), "Wrong cross product");
+        // TC04: The difference of points
+        assertExact(new Point(1, -1, 2), v.setDifference(new Point(2, 0, 3), new Point(1, 1, 1)),
+                "Wrong difference");
+        // TC05: Normalizing
+        assertEquals(1, new MutableVector(3, 4, 12).normalize().length(), 1e-15, "Wrong normalize");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: The zero vector is allowed but can't be normalized or converted to a vector
+        MutableVector zero = new MutableVector();
+        assertTrue(zero.isZeroVector(), "The default vector is the zero vector");
+        assertThrows(IllegalArgumentException.class, zero::normalize, "Normalizing the zero vector must throw");
+        assertThrows(IllegalArgumentException.class, zero::toVector, "The zero vector must not be converted");
+        // TC11: The cross product of parallel vectors is the zero vector
+        assertTrue(new MutableVector(1, 2, 3).crossProduct(new MutableVector(2, 4, 6)).isZeroVector(),
+                "The cross product of parallel vectors must be the zero vector");
+    }
+
+    @Test
+    void testSameAsVector() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The results are exactly the results of the immutable vectors
+        Random random = new Random(3);
+        for (int i = 0; i < 1000; ++i) {
+            Vector a = new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, random.nextDouble() + 1);
+            Vector b = new Vector(random.nextDouble() + 1, random.nextDouble() - 0.5, random.nextDouble() - 0.5);
+            double s = random.nextDouble() + 0.5;
+            assertExact(a.subtract(b.scale(s)), new MutableVector(a).subtractScaled(b, s), "Wrong subtractScaled");
+            assertExact(a.crossProduct(b), new MutableVector(a).crossProduct(new MutableVector(b)), "Wrong cross");
+            assertExact(a.normalize(), new MutableVector(a).normalize(), "Wrong normalize");
+            assertEquals(a.dotProduct(b), new MutableVector(a).dotProduct(b), 0, "Wrong dot product");
+            assertExact(a.subtract(b), new MutableVector().setDifference(a, b), "Wrong difference");
+        }
+        // TC02: A converted vector is equal to the mutable vector
+        assertEquals(new Vector(1, 2, 3), new MutableVector(1, 2, 3).toVector(), "Wrong conversion to a vector");
+        assertEquals(new Point(1, 2, 3), new MutableVector(1, 2, 3).toPoint(), "Wrong conversion to a point");
+    }
+}
@@ -61,4 +61,17 @@ class PointTest {
         // TC01: Tests that distance works for the distance of a point from itself
         assertTrue(Util.isZero(p1.distance(p1)), "ERROR:distance() does not work for distance between point and itself");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testAddScaled() {
+        Point p1 = new Point(1, 2, 3);
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Test that the new point is the right one
+        assertEquals(new Point(3, 6, 9), p1.addScaled(new Vector(1, 2, 3), 2), "ERROR: addScaled() does not work correctly");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: Test that a scale of zero (or a tiny scale) gives the point itself, without an exception
+        assertEquals(p1, p1.addScaled(new Vector(1, 2, 3), 0), "ERROR: addScaled() does not work for a scale of zero");
+        assertEquals(p1, p1.addScaled(new Vector(1, 0, 0), 1e-13), "ERROR: addScaled() does not work for a tiny scale");
+    }
+}
@@ -60,4 +60,48 @@ class RayTest {
         assertEquals(a, ray.findClosestPoint(points), "Returned wrong result");
 
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests the reciprocal direction and the sign bits of the Ray class.
+     */
+    @Test
+    void testInverseDirection() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A direction of negative and positive components
+        Ray ray = new Ray(Point.ZERO, new Vector(-1, 2, 2));
+        assertEquals(-3, ray.getInvDx(), 1e-12, "Wrong reciprocal of x");
+        assertEquals(1.5, ray.getInvDy(), 1e-12, "Wrong reciprocal of y");
+        assertEquals(1.5, ray.getInvDz(), 1e-12, "Wrong reciprocal of z");
+        assertEquals(Ray.NEGATIVE_X, ray.getSigns(), "Wrong sign bits");
+        assertTrue(ray.isNegative(0), "x is negative");
+        assertFalse(ray.isNegative(2), "z is positive");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: A direction parallel to an axis
+        ray = new Ray(Point.ZERO, new Vector(0, 0, -1));
+        assertEquals(Double.POSITIVE_INFINITY, ray.getInvDx(), "Wrong reciprocal of a zero component");
+        assertEquals(Ray.NEGATIVE_Z, ray.getSigns(), "Wrong sign bits");
+    }
+
+    /**
+     * Tests the construction of rays of normalized directions.
+     */
+    @Test
+    void testOfUnit() {
+        Vector direction = new Vector(1, 1, 1).normalize();
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The normalized direction is kept as is
+        Ray ray = Ray.ofUnit(new Point(1, 2, 3), direction);
+        assertSame(direction, ray.getDirection(), "The direction must not be normalized again");
+        assertEquals(new Ray(new Point(1, 2, 3), direction), ray, "Wrong ray");
+        // TC02: The head is moved along the normal, like a ray of any direction
+        Vector normal = new Vector(0, 0, 1);
+        assertEquals(new Ray(Point.ZERO, direction, normal), Ray.ofUnit(Point.ZERO, direction, normal),
+                "Wrong moved head");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: A direction orthogonal to the normal doesn't move the head
+        assertEquals(Point.ZERO, Ray.ofUnit(Point.ZERO, new Vector(1, 0, 0), normal).getHead(),
+                "The head must not be moved");
+    }
+}
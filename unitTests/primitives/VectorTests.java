@@ -118,4 +118,19 @@ class VectorTests {
         // TC01: Test normalize
         assertEquals( 1,v1.normalize().length(), "ERROR: normalize() result is not a unit vector");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testUnchecked() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Test that the unchecked vector is the same as a checked one
+        assertEquals(new Vector(1, -2, 3), Vector.unchecked(1, -2, 3), "ERROR: unchecked() does not work correctly");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: Test that the checked operations still throw for the zero vector
+        Vector v1 = new Vector(1, 2, 3);
+        assertThrows(IllegalArgumentException.class, () -> v1.subtract(new Point(1, 2, 3)),
+                "ERROR: subtract() does not throw exception for the zero vector");
+        assertThrows(IllegalArgumentException.class, () -> v1.add(new Vector(-1, -2, -3 + 1e-13)),
+                "ERROR: add() does not throw exception for an almost zero vector");
+    }
+}
@@ -1,14 +1,27 @@
 package renderer;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.Test;
 
+import geometries.HitRecord;
+import geometries.Sphere;
+import geometries.Triangle;
+import lighting.PointLight;
 import primitives.*;
 import renderer.*;
 import scene.Scene;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 //import scene.Scene;
 
@@ -66,6 +79,225 @@ class CameraTest {
                 camera2.constructRay(3, 3, 0, 0), badRay);
 
     }
+    /**
+     * Test method for
+     * {@link renderer.Camera#renderProgressive(ProgressListener)}.
+     */
+    @Test
+    void testRenderProgressive() {
+        Scene scene = new Scene("Progressive");
+        scene.geometries.add(new Sphere(3d, new Point(0, 0, -20)).setEmission(new Color(100, 50, 20)));
+        AtomicInteger traced = new AtomicInteger();
+        RayTracerBase tracer = new SimpleRayTracer(scene) {
+            @Override
+            public Color traceRay(Ray ray) {
+                traced.incrementAndGet();
+                return super.traceRay(ray);
+            }
+        };
+        Camera.Builder builder = cameraBuilder.setVpSize(8d, 8d).setRayTracer(tracer)
+                .setImageWriter(new ImageWriter("Test", 8, 8)).setAntiAliasingFactor(2);
+        List<Integer> passes = new ArrayList<>();
+        List<Integer> samples = new ArrayList<>();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Coarse pass, full resolution pass and 3 antialiasing passes, every ray is traced once
+        builder.build().renderProgressive((pass, frame) -> {
+            passes.add(pass);
+            samples.add(frame.getSamples(1, 1));
+            return true;
+        });
+        assertEquals(List.of(0, 1, 2, 3, 4), passes, "Wrong passes");
+        assertEquals(List.of(0, 1, 2, 3, 4), samples, "Wrong samples of a pixel");
+        assertEquals(8 * 8 * 4, traced.get(), "The samples of the previous passes must be reused");
+
+        // TC02: The same passes by multi-threading
+        traced.set(0);
+        builder.setMultiThreading(2).setTileSize(3).build().renderProgressive((pass, frame) -> {
+            if (pass == 0)
+                assertTrue(frame.getSamples(0, 0) == 1 && frame.getSamples(4, 4) == 1 && frame.getSamples(1, 0) == 0,
+                        "Coarse pass must sample only the corners of the blocks");
+            else
+                assertEquals(pass, frame.getSamples(7, 7), "Wrong samples of a pixel");
+            return true;
+        });
+        assertEquals(8 * 8 * 4, traced.get(), "The samples of the previous passes must be reused");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: The listener stops the rendering after the full resolution pass
+        traced.set(0);
+        passes.clear();
+        builder.setMultiThreading(0).build().renderProgressive((pass, frame) -> passes.add(pass) && pass < 1);
+        assertEquals(List.of(0, 1), passes, "The rendering must stop");
+        assertEquals(8 * 8, traced.get(), "Wrong amount of traced rays");
+    }
+
+    /**
+     * Test method for
+     * {@link renderer.Camera#renderProgressive(ProgressListener, RenderBudget)}.
+     */
+    @Test
+    void testRenderBudget() {
+        Scene scene = new Scene("Budget");
+        scene.geometries.add(new Sphere(15d, new Point(0, 0, -20)).setEmission(new Color(100, 50, 20)));
+        AtomicInteger traced = new AtomicInteger();
+        RenderBudget budget = RenderBudget.unlimited();
+        RayTracerBase tracer = new SimpleRayTracer(scene) {
+            @Override
+            public Color traceRay(Ray ray) {
+                // the budget is over after 10 rays
+                if (traced.incrementAndGet() == 10) budget.cancel();
+                return super.traceRay(ray);
+            }
+        };
+        Camera camera = cameraBuilder.setVpSize(8d, 8d).setRayTracer(tracer)
+                .setImageWriter(new ImageWriter("Test", 8, 8)).setAntiAliasingFactor(3).build();
+        List<Integer> passes = new ArrayList<>();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The budget is over in the middle of the full resolution pass - the rest of the pixels
+        // show the preview of their blocks
+        camera.renderProgressive((pass, frame) -> {
+            passes.add(pass);
+            if (pass == 1) {
+                assertEquals(0, frame.getSamples(7, 7), "The pixel must not be sampled");
+                assertNotEquals(Color.BLACK, frame.getColor(7, 7), "The pixel must show the preview of its block");
+            }
+            return true;
+        }, budget);
+        assertEquals(List.of(0, 1), passes, "The rendering must stop after the budget is over");
+        assertEquals(10, traced.get(), "Wrong amount of traced rays");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: The coarse pass is completed even if the budget is over before the rendering
+        traced.set(0);
+        passes.clear();
+        RenderBudget cancelled = RenderBudget.unlimited();
+        cancelled.cancel();
+        camera.renderProgressive((pass, frame) -> passes.add(pass), cancelled);
+        assertEquals(List.of(0), passes, "Only the coarse pass must be rendered");
+        assertEquals(4, traced.get(), "Wrong amount of traced rays");
+
+        // TC11: A deadline that has already passed
+        assertTrue(RenderBudget.of(Duration.ZERO).isExhausted(), "The budget must be over");
+        assertFalse(RenderBudget.of(Duration.ofHours(1)).isExhausted(), "The budget must not be over");
+    }
+
+    /**
+     * Test method for {@link Camera#getStatistics()}.
+     */
+    @Test
+    void testRenderStatistics() throws InterruptedException {
+        Scene scene = new Scene("Statistics");
+        scene.geometries.add(new Sphere(15d, new Point(0, 0, -20)).setEmission(new Color(100, 50, 20))
+                .setMaterial(new Material().setKd(0.5).setKs(0.5).setKR(0.3)));
+        scene.lights.add(new PointLight(new Color(500, 500, 500), new Point(0, 50, 50)));
+        Camera.Builder builder = cameraBuilder.setVpSize(8d, 8d).setRayTracer(new SimpleRayTracer(scene))
+                .setImageWriter(new ImageWriter("Test", 8, 8)).setAntiAliasingFactor(1);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Rendering with statistics
+        Camera camera = builder.setStatistics(true).setMultiThreading(2).build();
+        camera.renderImage();
+        RenderStatistics statistics = camera.getStatistics();
+        assertEquals(64, statistics.getRays(RenderStatistics.RayType.PRIMARY), "Wrong amount of primary rays");
+        assertTrue(statistics.getRays(RenderStatistics.RayType.SHADOW) > 0, "Shadow rays must be counted");
+        assertTrue(statistics.getRays(RenderStatistics.RayType.REFLECTION) > 0, "Reflected rays must be counted");
+        assertEquals(0, statistics.getRays(RenderStatistics.RayType.REFRACTION), "There are no refracted rays");
+        assertTrue(statistics.getIntersectionTests().get("Sphere") >= 64, "Intersection tests must be counted");
+        long[] depths = statistics.getDepthHistogram();
+        // the reflected rays of a single sphere don't hit anything
+        assertEquals(1, depths.length, "Wrong recursion depths");
+        assertTrue(depths[0] > 0, "Recursion depths must be counted");
+        assertTrue(statistics.getPhaseTimes().containsKey("render"), "The rendering must be timed");
+        // TC02: Two renderings at once through the same ray tracer keep their own statistics
+        Camera first = builder.build();
+        Camera second = builder.setImageWriter(new ImageWriter("Test", 8, 8)).build();
+        Thread thread = new Thread(first::renderImage);
+        thread.start();
+        second.renderImage();
+        thread.join();
+        assertEquals(64, first.getStatistics().getRays(RenderStatistics.RayType.PRIMARY), "Wrong rays of the first");
+        assertEquals(64, second.getStatistics().getRays(RenderStatistics.RayType.PRIMARY), "Wrong rays of the second");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: Rendering without statistics
+        camera = builder.setStatistics(false).build();
+        camera.renderImage();
+        assertNull(camera.getStatistics(), "Statistics must not be collected");
+        // TC11: The intersection tests of the rendering thread are not counted after a rendering with statistics
+        builder.setStatistics(true).setMultiThreading(0).build().renderImage();
+        scene.geometries.findClosestIntersection(new Ray(new Point(0, 0, 50), new Vector(0, 0, -1)));
+        AtomicInteger counted = new AtomicInteger();
+        HitRecord.local().drainTests((type, count) -> counted.addAndGet(count.intValue()));
+        assertEquals(0, counted.get(), "The tests must not be counted after the rendering");
+    }
+
+    /**
+     * Renders an image and returns the colors of its pixels
+     *
+     * @param builder the builder of the camera
+     * @param nX      amount of the pixel columns
+     * @param nY      amount of the pixel rows
+     * @return the colors of the pixels (as strings, row by row)
+     */
+    private String[] render(Camera.Builder builder, int nX, int nY) {
+        String[] pixels = new String[nX * nY];
+        builder.setImageWriter(new ImageWriter("Test", nX, nY) {
+            @Override
+            public void writePixel(int xIndex, int yIndex, Color color) {
+                pixels[yIndex * nX + xIndex] = color.toString();
+            }
+        }).build().renderImage();
+        return pixels;
+    }
+
+    /**
+     * Test method for {@link Camera.Builder#setPacketSize(int)}.
+     */
+    @Test
+    void testRenderPackets() {
+        Scene scene = new Scene("Packets");
+        for (int i = 0; i < 20; ++i)
+            scene.geometries.add(new Sphere(1d, new Point(4 * (i % 5) - 8, 4 * (i / 5) - 6, -20 - i))
+                            .setEmission(new Color(100, 50, 20)).setMaterial(new Material().setKd(0.5).setKs(0.5).setKR(0.3)),
+                    new Triangle(new Point(-10, -10, -40), new Point(10, -10, -40), new Point(0, 10, -45 + i))
+                            .setEmission(new Color(20, 50, 100)).setMaterial(new Material().setKd(0.5)));
+        scene.geometries.buildBVH();
+        scene.lights.add(new PointLight(new Color(500, 500, 500), new Point(0, 50, 50)));
+        AtomicInteger packets = new AtomicInteger();
+        RayTracerBase tracer = new SimpleRayTracer(scene) {
+            @Override
+            public Color[] tracePacket(Ray[] rays) {
+                packets.incrementAndGet();
+                return super.tracePacket(rays);
+            }
+        };
+        Camera.Builder builder = cameraBuilder.setVpSize(8d, 10d).setRayTracer(tracer).setMultiThreading(2)
+                .setTileSize(3).setAntiAliasingFactor(2);
+        String[] expected = render(builder.setPacketSize(1), 10, 7);
+        assertEquals(0, packets.get(), "Single rays must not be traced by packets");
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Blocks of 2x2 pixels (crossing the tiles) render the same image
+        assertArrayEquals(expected, render(builder.setPacketSize(2), 10, 7), "Wrong image of 2x2 packets");
+        assertEquals(5 * 4, packets.get(), "Wrong amount of packets");
+        // TC02: Blocks of 4x4 pixels without antialiasing
+        expected = render(builder.setPacketSize(1).setAntiAliasingFactor(1), 10, 7);
+        assertArrayEquals(expected, render(builder.setPacketSize(4), 10, 7), "Wrong image of 4x4 packets");
+        // TC03: Rendering in the calling thread (of its own order of the samples) doesn't use packets
+        packets.set(0);
+        builder.setAntiAliasingFactor(2).setMultiThreading(0);
+        expected = render(builder.setPacketSize(1), 10, 7);
+        assertArrayEquals(expected, render(builder.setPacketSize(2), 10, 7), "Wrong image in the calling thread");
+        assertEquals(0, packets.get(), "The calling thread must not trace packets");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: Illegal packet sizes
+        assertThrows(IllegalArgumentException.class, () -> builder.setPacketSize(3), "Packets of 3x3 pixels");
+        assertThrows(IllegalArgumentException.class, () -> builder.setPacketSize(0), "Packets of no pixels");
+    }
+
 //    @Test
 //    void testConstructRays() {
 //        List<Ray> result = cameraBuilder.setVpSize(100d,100d).setAntiAliasingFactor(3).build().constructRays(3, 3, 0, 1);
@@ -0,0 +1,109 @@
+package renderer;
+
+import geometries.Sphere;
+import lighting.PointLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing the heat map of the costs of the pixels
+ * @author Hadar Nagar & Elinoy Damari
+ */
+class HeatMapTest {
+    /** Camera builder of a small sphere in the middle of the image, lit by a point light */
+    private final Camera.Builder cameraBuilder = Camera.getBuilder()
+            .setLocation(Point.ZERO)
+            .setDirection(new Vector(0, 0, -1), new Vector(0, -1, 0))
+            .setVpDistance(10d)
+            .setVpSize(8d, 8d)
+            .setImageWriter(new ImageWriter("heatMapTest", 8, 8));
+
+    /**
+     * Creates the scene of the tests
+     *
+     * @return the scene
+     */
+    private Scene scene() {
+        Scene scene = new Scene("HeatMap");
+        scene.geometries.add(new Sphere(3d, new Point(0, 0, -20)).setEmission(new Color(100, 50, 20))
+                .setMaterial(new Material().setKd(0.5).setKs(0.5)));
+        scene.lights.add(new PointLight(new Color(500, 500, 500), new Point(0, 50, 50)));
+        return scene;
+    }
+
+    /**
+     * Test method for {@link Camera#getHeatMap()}.
+     */
+    @Test
+    void testRenderHeatMap() {
+        Camera.Builder builder = cameraBuilder.setRayTracer(new SimpleRayTracer(scene()));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Pixels of the sphere cost more rays than the pixels of the background
+        for (int threads : new int[]{0, 2}) {
+            Camera camera = builder.setMultiThreading(threads).setHeatMap(HeatMap.Metric.RAYS).build();
+            camera.renderImage();
+            HeatMap heatMap = camera.getHeatMap();
+            assertEquals(1, heatMap.getCost(HeatMap.Metric.RAYS, 0, 0), "A background pixel traces a single ray");
+            assertEquals(2, heatMap.getCost(HeatMap.Metric.RAYS, 4, 4), "A sphere pixel traces a shadow ray");
+            assertTrue(heatMap.getCost(HeatMap.Metric.INTERSECTION_TESTS, 4, 4)
+                    > heatMap.getCost(HeatMap.Metric.INTERSECTION_TESTS, 0, 0), "Wrong intersection tests");
+            assertTrue(heatMap.getCost(HeatMap.Metric.NANOS, 4, 4) > 0, "The time must be recorded");
+            assertEquals(2, heatMap.getMaxCost(HeatMap.Metric.RAYS), "Wrong highest cost");
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC10: No heat map by default
+        Camera camera = builder.setHeatMap(null).build();
+        camera.renderImage();
+        assertNull(camera.getHeatMap(), "A heat map must not be recorded");
+    }
+
+    /**
+     * Test method for {@link HeatMap#writeRaw(Path, HeatMap.Metric)}.
+     */
+    @Test
+    void testWriteRaw() throws IOException {
+        HeatMap heatMap = new HeatMap(3, 2);
+        heatMap.add(2, 1, 7, 5, 100);
+        Path file = Files.createTempFile("heatMapTest", ".raw");
+        try {
+            // ============ Equivalence Partitions Tests ==============
+            // TC01: The floats of the pixels, row by row
+            heatMap.writeRaw(file, HeatMap.Metric.RAYS);
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+            assertEquals(6 * Float.BYTES, buffer.remaining(), "Wrong size of the buffer");
+            assertEquals(0f, buffer.getFloat(0), "Wrong cost of the first pixel");
+            assertEquals(7f, buffer.getFloat(5 * Float.BYTES), "Wrong cost of the last pixel");
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Test method for {@link HeatMap#falseColor(long, long)}.
+     */
+    @Test
+    void testFalseColor() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Half of the highest cost is red
+        assertEquals(new Color(255, 0, 0).getColor(), HeatMap.falseColor(50, 100).getColor(), "Wrong color");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: No cost is black
+        assertEquals(Color.BLACK.getColor(), HeatMap.falseColor(0, 100).getColor(), "Wrong color");
+        // TC11: The highest cost is white
+        assertEquals(new Color(255, 255, 255).getColor(), HeatMap.falseColor(100, 100).getColor(), "Wrong color");
+        // TC12: An empty heat map is black
+        assertEquals(Color.BLACK.getColor(), HeatMap.falseColor(0, 0).getColor(), "Wrong color");
+    }
+}
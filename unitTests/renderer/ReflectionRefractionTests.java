@@ -63,6 +63,19 @@ public class ReflectionRefractionTests {
      */
     @Test
     public void twoSpheresOnMirrors() {
+        twoSpheresOnMirrorsScene()
+                .setImageWriter(new ImageWriter("reflectionTwoSpheresMirrored", 500, 500))
+                .build()
+                .renderImage()
+                .writeToImage();
+    }
+
+    /**
+     * Builds the scene of two spheres reflected by two mirrors
+     *
+     * @return the camera builder of the scene, without an image writer
+     */
+    Camera.Builder twoSpheresOnMirrorsScene() {
         scene.geometries.add(
                 new Sphere(400d, new Point(-950, -900, -1000)).setEmission(new Color(0, 50, 100))
                         .setMaterial(new Material().setKd(0.25).setKs(0.25).setNShininess(20)
@@ -81,12 +94,8 @@ public class ReflectionRefractionTests {
         scene.lights.add(new SpotLight(new Color(1020, 400, 400), new Point(-750, -750, -150), new Vector(-1, -1, -4))
                 .setkL(0.00001).setkQ(0.000005));
 
-        cameraBuilder.setLocation(new Point(0, 0, 10000)).setVpDistance(10000d)
-                .setVpSize(2500d, 2500d)
-                .setImageWriter(new ImageWriter("reflectionTwoSpheresMirrored", 500, 500))
-                .build()
-                .renderImage()
-                .writeToImage();
+        return cameraBuilder.setLocation(new Point(0, 0, 10000)).setVpDistance(10000d)
+                .setVpSize(2500d, 2500d);
     }
 
     /**
@@ -96,6 +105,19 @@ public class ReflectionRefractionTests {
      */
     @Test
     public void trianglesTransparentSphere() {
+        trianglesTransparentSphereScene()
+                .setImageWriter(new ImageWriter("refractionShadow", 600, 600))
+                .build()
+                .renderImage()
+                .writeToImage();
+    }
+
+    /**
+     * Builds the scene of two triangles with a partial shadow of a transparent sphere
+     *
+     * @return the camera builder of the scene, without an image writer
+     */
+    Camera.Builder trianglesTransparentSphereScene() {
         scene.geometries.add(
                 new Triangle(new Point(-150, -150, -115), new Point(150, -150, -135),
                         new Point(75, 75, -150))
@@ -109,12 +131,8 @@ public class ReflectionRefractionTests {
                 new SpotLight(new Color(700, 400, 400), new Point(60, 50, 0), new Vector(0, 0, -1))
                         .setkL(4E-5).setkQ(2E-7));
 
-        cameraBuilder.setLocation(new Point(0, 0, 1000)).setVpDistance(1000d)
-                .setVpSize(200d, 200d)
-                .setImageWriter(new ImageWriter("refractionShadow", 600, 600))
-                .build()
-                .renderImage()
-                .writeToImage();
+        return cameraBuilder.setLocation(new Point(0, 0, 1000)).setVpDistance(1000d)
+                .setVpSize(200d, 200d);
     }
 
 
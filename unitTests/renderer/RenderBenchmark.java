@@ -0,0 +1,211 @@
+package renderer;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * End-to-end render benchmark over the reference scenes of the tests.<br/>
+ * The scenes are built headlessly (nothing is written to image files) and rendered at fixed
+ * resolutions, thread counts and antialiasing factors. For each configuration the benchmark reports
+ * the time of a frame, the primary rays per second and the bytes allocated per frame, as JSON. The time
+ * and the allocated bytes are both of the rendering alone - the scene and the camera are built before.
+ * <p>
+ * Usage: {@code RenderBenchmark [--scenes=a,b] [--scales=0.25,0.5] [--threads=0,4] [--aa=1,3]
+ * [--warmup=1] [--frames=3] [--out=file.json]} - all the options are optional, and the JSON
+ * is printed to the standard output unless an output file is given.
+ * </p>
+ * The allocated bytes are measured over all the platform threads, virtual threads are not counted.
+ *
+ * @author Hadar Nagar & Elinoy Damari
+ */
+public class RenderBenchmark {
+    /**
+     * A reference scene
+     *
+     * @param name    name of the scene
+     * @param nX      width of the original image in pixels
+     * @param nY      height of the original image in pixels
+     * @param builder creates the camera builder of a new instance of the scene
+     */
+    record Workload(String name, int nX, int nY, Supplier<Camera.Builder> builder) {
+    }
+
+    /**
+     * Measurements of the rendering of a frame
+     *
+     * @param nanos time of the rendering in nanoseconds
+     * @param bytes bytes allocated by the rendering, -1 if not supported by the JVM
+     */
+    record Frame(long nanos, long bytes) {
+    }
+
+    /**
+     * Result of a benchmark configuration
+     *
+     * @param scene                name of the scene
+     * @param nX                   width of the rendered image
+     * @param nY                   height of the rendered image
+     * @param threads              amount of the rendering threads (0 - the calling thread)
+     * @param antiAliasing         antialiasing factor
+     * @param frames               amount of the measured frames
+     * @param msPerFrame           average time of a frame in milliseconds
+     * @param primaryRaysPerSecond primary rays traced per second
+     * @param bytesPerFrame        average bytes allocated per frame, -1 if not supported by the JVM
+     */
+    record Result(String scene, int nX, int nY, int threads, int antiAliasing, int frames,
+                  double msPerFrame, double primaryRaysPerSecond, long bytesPerFrame) {
+        /**
+         * Formats the result as a JSON object
+         *
+         * @return the JSON object
+         */
+        String toJson() {
+            return String.format(Locale.ROOT,
+                    "{\"scene\":\"%s\",\"width\":%d,\"height\":%d,\"threads\":%d,\"antiAliasing\":%d,"
+                            + "\"frames\":%d,\"msPerFrame\":%.3f,\"primaryRaysPerSecond\":%.1f,\"allocatedBytesPerFrame\":%d}",
+                    scene, nX, nY, threads, antiAliasing, frames, msPerFrame, primaryRaysPerSecond, bytesPerFrame);
+        }
+    }
+
+    /**
+     * The reference scenes
+     */
+    static final List<Workload> WORKLOADS = List.of(
+            new Workload("snooker", SnookerTests.NX, SnookerTests.NY, () -> new SnookerTests().snookerScene()),
+            new Workload("twoSpheresOnMirrors", 500, 500,
+                    () -> new ReflectionRefractionTests().twoSpheresOnMirrorsScene()),
+            new Workload("trianglesTransparentSphere", 600, 600,
+                    () -> new ReflectionRefractionTests().trianglesTransparentSphereScene()),
+            new Workload("angleFinalImage", 1200, 1200, () -> new angleTests().finalImageScene()),
+            new Workload("finalImage2", 750, 500, () -> new finalImage2().finalImageScene()),
+            new Workload("sampleChess", 500, 500, () -> new sample().chessScene()));
+
+    /**
+     * Renders a frame of a scene - builds the scene and the camera, and then measures the rendering alone
+     *
+     * @param workload     the scene
+     * @param nX           width of the image
+     * @param nY           height of the image
+     * @param threads      amount of the rendering threads
+     * @param antiAliasing antialiasing factor
+     * @return the measurements of the rendering
+     */
+    static Frame renderFrame(Workload workload, int nX, int nY, int threads, int antiAliasing) {
+        Camera camera = workload.builder().get()
+                .setImageWriter(new ImageWriter(workload.name(), nX, nY))
+                .setMultiThreading(threads)
+                .setAntiAliasingFactor(antiAliasing)
+                .setAdaptive(false)
+                .setDebugPrint(0)
+                .build();
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        camera.renderImage();
+        long nanos = System.nanoTime() - start;
+        return new Frame(nanos, bytes < 0 ? -1 : allocatedBytes() - bytes);
+    }
+
+    /**
+     * Benchmarks a configuration - renders warm up frames and then the measured frames
+     *
+     * @param workload     the scene
+     * @param scale        scale of the original resolution of the scene
+     * @param threads      amount of the rendering threads
+     * @param antiAliasing antialiasing factor
+     * @param warmup       amount of the warm up frames
+     * @param frames       amount of the measured frames
+     * @return the result
+     */
+    static Result benchmark(Workload workload, double scale, int threads, int antiAliasing, int warmup, int frames) {
+        int nX = Math.max(1, (int) Math.round(workload.nX() * scale));
+        int nY = Math.max(1, (int) Math.round(workload.nY() * scale));
+        for (int i = 0; i < warmup; ++i)
+            renderFrame(workload, nX, nY, threads, antiAliasing);
+
+        long nanos = 0;
+        long bytes = 0;
+        for (int i = 0; i < frames; ++i) {
+            Frame frame = renderFrame(workload, nX, nY, threads, antiAliasing);
+            nanos += frame.nanos();
+            bytes = bytes < 0 || frame.bytes() < 0 ? -1 : bytes + frame.bytes();
+        }
+        long allocated = bytes < 0 ? -1 : bytes / frames;
+
+        double seconds = nanos / 1e9;
+        long rays = (long) nX * nY * antiAliasing * antiAliasing * frames;
+        return new Result(workload.name(), nX, nY, threads, antiAliasing, frames,
+                nanos / 1e6 / frames, rays / seconds, allocated);
+    }
+
+    /**
+     * Returns the total bytes allocated by all the platform threads of the JVM
+     *
+     * @return the allocated bytes, -1 if not supported
+     */
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled())
+            return bean.getTotalThreadAllocatedBytes();
+        return -1;
+    }
+
+    /**
+     * Returns the values of a command line option
+     *
+     * @param args         the command line arguments
+     * @param name         name of the option
+     * @param defaultValue the values if the option is missing
+     * @return the values of the option
+     */
+    private static String[] option(String[] args, String name, String defaultValue) {
+        String prefix = "--" + name + "=";
+        String value = Arrays.stream(args).filter(arg -> arg.startsWith(prefix))
+                .map(arg -> arg.substring(prefix.length())).reduce((first, last) -> last).orElse(defaultValue);
+        return value.split(",");
+    }
+
+    /**
+     * Runs the benchmark
+     *
+     * @param args the options (see the class documentation)
+     * @throws IOException if the output file can't be written
+     */
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        List<String> scenes = List.of(option(args, "scenes",
+                String.join(",", WORKLOADS.stream().map(Workload::name).toList())));
+        double[] scales = Arrays.stream(option(args, "scales", "0.25")).mapToDouble(Double::parseDouble).toArray();
+        int[] threads = Arrays.stream(option(args, "threads", "0," + Runtime.getRuntime().availableProcessors()))
+                .mapToInt(Integer::parseInt).toArray();
+        int[] antiAliasing = Arrays.stream(option(args, "aa", "1,2")).mapToInt(Integer::parseInt).toArray();
+        int warmup = Integer.parseInt(option(args, "warmup", "1")[0]);
+        int frames = Integer.parseInt(option(args, "frames", "3")[0]);
+        String out = option(args, "out", "")[0];
+
+        List<String> results = new ArrayList<>();
+        for (Workload workload : WORKLOADS) {
+            if (!scenes.contains(workload.name()))
+                continue;
+            for (double scale : scales)
+                for (int threadsCount : threads)
+                    for (int factor : antiAliasing) {
+                        Result result = benchmark(workload, scale, threadsCount, factor, warmup, frames);
+                        System.err.println(result.toJson());
+                        results.add(result.toJson());
+                    }
+        }
+
+        String json = "[\n  " + String.join(",\n  ", results) + "\n]\n";
+        if (out.isEmpty())
+            System.out.print(json);
+        else
+            Files.writeString(Path.of(out), json);
+    }
+}
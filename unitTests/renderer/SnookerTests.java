@@ -38,10 +38,35 @@ public class SnookerTests {
 //                .renderImage()
 //                .writeToImage();
 //    }
+    /**
+     * Width of the snooker image in pixels
+     */
+    static final int NX = 600;
+    /**
+     * Height of the snooker image in pixels
+     */
+    static final int NY = 400;
+
     @Test
     public void mp1Test() {
-        int nX = 600;
-        int nY = 400;
+        snookerScene()
+                .setAdaptive(false)
+
+                //  .setImageWriter(new ImageWriter("mp1SNOOKER300rays", nX, nY))
+                .setImageWriter(new ImageWriter("mp2WithThreads", NX, NY))
+                .build()
+                .renderImage()
+                .writeToImage();
+    }
+
+    /**
+     * Builds the snooker table scene
+     *
+     * @return the camera builder of the scene, without an image writer
+     */
+    Camera.Builder snookerScene() {
+        int nX = NX;
+        int nY = NY;
         double zWall = -1000;
         double yTable = 30;
         double zTable = -120;
@@ -156,14 +181,6 @@ public class SnookerTests {
 //                .build()
 //                .renderImage()
 //                .writeToImage();
-        cameraBuilder
-                .setAdaptive(false)
-
-                //  .setImageWriter(new ImageWriter("mp1SNOOKER300rays", nX, nY))
-                .setImageWriter(new ImageWriter("mp2WithThreads", nX, nY))
-                .build()
-                .renderImage()
-                .writeToImage();
 //        cameraBuilder
 //                .setMultiThreading(0)
 //                .setAdaptive(true)
@@ -173,7 +190,7 @@ public class SnookerTests {
 //                .build()
 //                .renderImage()
 //                .writeToImage();
-
+        return cameraBuilder;
     }
 
 
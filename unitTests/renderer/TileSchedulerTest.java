@@ -0,0 +1,120 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing the tile scheduler of multi-threaded rendering
+ * @author Hadar Nagar & Elinoy Damari
+ */
+class TileSchedulerTest {
+
+    /**
+     * Renders an image by the scheduler and checks that every pixel was rendered exactly once
+     *
+     * @param nX          amount of the pixel columns
+     * @param nY          amount of the pixel rows
+     * @param tileSize    width and height of a tile
+     * @param parallelism amount of the worker threads
+     */
+    private void assertRenderedOnce(int nX, int nY, int tileSize, int parallelism) {
+        AtomicIntegerArray rendered = new AtomicIntegerArray(nX * nY);
+        PixelManager pixelManager = new PixelManager(nY, nX, 0);
+        new TileScheduler(nX, nY, tileSize, pixelManager)
+                .render(parallelism, (col, row) -> rendered.incrementAndGet(row * nX + col));
+        for (int i = 0; i < rendered.length(); ++i)
+            assertEquals(1, rendered.get(i), "Pixel " + i + " must be rendered exactly once");
+        assertEquals((long) nX * nY, pixelManager.getPixels(), "Wrong progress");
+    }
+
+    @Test
+    void testRender() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The image is divided into whole tiles
+        assertRenderedOnce(64, 32, 16, 4);
+        // TC02: Partial tiles on the right and bottom edges
+        assertRenderedOnce(50, 37, 16, 3);
+
+        // =============== Boundary Values Tests ==================
+        // TC10: A single tile bigger than the image
+        assertRenderedOnce(10, 7, 64, 2);
+        // TC11: Tiles of a single pixel
+        assertRenderedOnce(9, 5, 1, 4);
+        // TC12: A single thread
+        assertRenderedOnce(20, 20, 8, 1);
+        // TC13: Non positive tile size
+        assertThrows(IllegalArgumentException.class, () -> new TileScheduler(10, 10, 0, new PixelManager(10, 10, 0)),
+                "Tile size must be positive");
+    }
+
+    @Test
+    void testRenderException() {
+        // TC01: An exception in a worker is thrown to the rendering thread
+        PixelManager pixelManager = new PixelManager(10, 10, 0);
+        TileScheduler scheduler = new TileScheduler(10, 10, 4, pixelManager);
+        assertEquals(9, scheduler.getTiles(), "Wrong amount of tiles");
+        assertThrows(IllegalStateException.class, () -> scheduler.render(2, (col, row) -> {
+            if (col == 5 && row == 5) throw new IllegalStateException("test");
+        }), "The exception must be thrown to the caller");
+    }
+
+    @Test
+    void testRenderVirtual() throws InterruptedException {
+        int nX = 40, nY = 30;
+        AtomicIntegerArray rendered = new AtomicIntegerArray(nX * nY);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        PixelManager pixelManager = new PixelManager(nY, nX, 0);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Every pixel is rendered exactly once, and at most 3 tiles are rendered at the same time
+        new TileScheduler(nX, nY, 10, pixelManager).renderVirtual(3, (col, row) -> {
+            if (col % 10 == 0 && row % 10 == 0)
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            rendered.incrementAndGet(row * nX + col);
+            if (col % 10 == 9 && row % 10 == 9)
+                active.decrementAndGet();
+        });
+        for (int i = 0; i < rendered.length(); ++i)
+            assertEquals(1, rendered.get(i), "Pixel " + i + " must be rendered exactly once");
+        assertEquals((long) nX * nY, pixelManager.getPixels(), "Wrong progress");
+        assertTrue(maxActive.get() <= 3, "Too many tiles were rendered at the same time");
+
+        // TC02: An exception in a virtual thread is thrown to the rendering thread
+        TileScheduler scheduler = new TileScheduler(10, 10, 4, new PixelManager(10, 10, 0));
+        assertThrows(IllegalStateException.class, () -> scheduler.renderVirtual(2, (col, row) -> {
+            if (col == 5 && row == 5) throw new IllegalStateException("test");
+        }), "The exception must be thrown to the caller");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: An interrupted rendering skips the tiles that haven't started
+        AtomicInteger started = new AtomicInteger();
+        AtomicReference<RuntimeException> thrown = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            try {
+                new TileScheduler(10, 10, 1, new PixelManager(10, 10, 0)).renderVirtual(1, (col, row) -> {
+                    started.incrementAndGet();
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            } catch (RuntimeException e) {
+                thrown.set(e);
+            }
+        });
+        thread.start();
+        while (started.get() == 0)
+            Thread.onSpinWait();
+        thread.interrupt();
+        thread.join();
+        assertInstanceOf(IllegalStateException.class, thrown.get(), "The interruption must be thrown to the caller");
+        assertTrue(started.get() < 100, "The tiles that haven't started must be skipped");
+    }
+}
@@ -167,6 +167,18 @@ public class angleTests {
               setMaterial(new Material().setKd(0.7).setKs(0.3).setShininess(20));*/
     @Test
     public void finalImage(){
+        finalImageScene().setImageWriter(new ImageWriter("temp", 1200, 1200)) //
+                .build()
+                .renderImage() //
+                .writeToImage();
+    }
+
+    /**
+     * Builds the scene of the final image
+     *
+     * @return the camera builder of the scene, without an image writer
+     */
+    Camera.Builder finalImageScene(){
         scene.geometries.add(floor,wall,bigSphere,tri1,tri2,tri3,cyl,lightSphere1,lightSphere2,lightSphere3,
                 lightSphere4,lightSphere5,lightSphere6,lightSphere7,lightSphere8, lightSphere9,triStar1,
                 triStar11,triStar12,triStar13,tristar2,tristar21,tristar22,tristar23,triStarR1,
@@ -188,11 +200,6 @@ public class angleTests {
 //        scene.lights.add(new SpotLight(new Color(33, 239, 47),new Point(450,300,40),
 //                new Vector(-114,-53,18)).setKl(0.004).setKq(0.00006));
 
-        camera.setImageWriter(new ImageWriter("temp", 1200, 1200)) //
-                .setRayTracer(new SimpleRayTracer(scene))
-                .build()
-                .renderImage() //
-                .writeToImage();
-
+        return camera.setRayTracer(new SimpleRayTracer(scene));
     }
 }
@@ -23,6 +23,18 @@ public class finalImage2 {
 
     @Test
     public void renderFinalImage() {
+        finalImageScene().setImageWriter(new ImageWriter("mp2ImageOption2", 750, 500))//
+                .build()//
+                .renderImage() //
+                .writeToImage();
+    }
+
+    /**
+     * Builds the scene of the final image
+     *
+     * @return the camera builder of the scene, without an image writer
+     */
+    Camera.Builder finalImageScene() {
         createLights();
         createRoom();
         createTable();
@@ -30,11 +42,7 @@ public class finalImage2 {
         createTV();
         createAquarium();
         scene.setAmbientLight(new AmbientLight(new Color(255, 255, 255), new Double3(0.1)));
-        camera.setImageWriter(new ImageWriter("mp2ImageOption2", 750, 500))//
-                .setRayTracer(new SimpleRayTracer(scene))
-                .build()//
-                .renderImage() //
-                .writeToImage();
+        return camera.setRayTracer(new SimpleRayTracer(scene));
     }
 
     private void createAquarium() {
@@ -25,17 +25,25 @@ public class sample {
      */
     @Test
     public void renderFinalImage() {
+        chessScene().setImageWriter(new ImageWriter("sampleImage", 500, 500))//
+               .build()//
+               .renderImage() //
+                .writeToImage();
+
+    }
+
+    /**
+     * Builds the chess scene of the final image
+     *
+     * @return the camera builder of the scene, without an image writer
+     */
+    Camera.Builder chessScene() {
         createRoom();
         createLights();
         createTable();
         createChess();
         scene.setAmbientLight(new AmbientLight(new Color(255, 255, 255), new Double3(0.1)));
-        camera.setImageWriter(new ImageWriter("sampleImage", 500, 500))//
-                .setRayTracer(new SimpleRayTracer(scene))
-               .build()//
-               .renderImage() //
-                .writeToImage();
-
+        return camera.setRayTracer(new SimpleRayTracer(scene));
     }
 
     /**
@@ -0,0 +1,126 @@
+package scene;
+
+import geometries.*;
+import lighting.AmbientLight;
+import lighting.DirectionalLight;
+import lighting.SpotLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import renderer.SimpleRayTracer;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing the frozen snapshots of scenes
+ * @author Hadar Nagar & Elinoy Damari
+ */
+class FrozenSceneTest {
+
+    /**
+     * Creates a scene of transparent, reflective and nested geometries lit by a few lights
+     *
+     * @return the scene
+     */
+    private static Scene createScene() {
+        Scene scene = new Scene("frozen").setBackGround(new Color(10, 20, 30))
+                .setAmbientLight(new AmbientLight(new Color(255, 255, 255), 0.1));
+        Geometries nested = new Geometries(
+                new Triangle(new Point(-150, -150, -115), new Point(150, -150, -135), new Point(75, 75, -150))
+                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setNShininess(60)),
+                new Triangle(new Point(-150, -150, -115), new Point(-70, 70, -140), new Point(75, 75, -150))
+                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setKR(0.5).setNShininess(60)));
+        scene.geometries.add(
+                new Sphere(30, new Point(60, 50, -50)).setEmission(new Color(0, 0, 100))
+                        .setMaterial(new Material().setKd(0.2).setKs(0.2).setNShininess(30).setKT(0.6)),
+                new Sphere(15, new Point(60, 50, -50)).setEmission(new Color(100, 20, 20))
+                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setNShininess(100)),
+                new Plane(new Point(0, 0, -200), new Vector(0, 0, 1))
+                        .setMaterial(new Material().setKd(0.3).setKR(new Double3(0.2, 0.3, 0.4))),
+                nested);
+        scene.lights.add(new SpotLight(new Color(700, 400, 400), new Point(60, 50, 0), new Vector(0, 0, -1))
+                .setkL(4E-5).setkQ(2E-7));
+        scene.lights.add(new DirectionalLight(new Color(100, 100, 100), new Vector(1, -1, -1)));
+        return scene;
+    }
+
+    @Test
+    void testFreeze() {
+        Scene scene = createScene();
+        FrozenScene frozen = scene.freeze();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The snapshot has the content of the scene
+        assertEquals("frozen", frozen.name, "Wrong name");
+        assertEquals(new Double3(10, 20, 30), frozen.background.getRgb(), "Wrong background");
+        assertEquals(new Double3(25.5), frozen.ambient.getRgb(), "Wrong ambient light");
+        assertEquals(2, frozen.lights.size(), "Wrong amount of lights");
+        assertEquals(4, frozen.geometries.getGeometries().size(), "Wrong amount of geometries");
+
+        // TC02: The shading constants, also of the geometries of a nested collection
+        Geometry sphere = (Geometry) scene.geometries.getGeometries().get(0);
+        FrozenScene.Shading shading = frozen.getShading(sphere);
+        assertTrue(shading.transparent(), "The sphere is transparent");
+        assertFalse(shading.reflective(), "The sphere isn't reflective");
+        Geometry triangle = (Geometry) ((Geometries) scene.geometries.getGeometries().get(3)).getGeometries().get(1);
+        assertTrue(frozen.getShading(triangle).reflective(), "The triangle is reflective");
+
+        // TC03: Later changes of the scene don't change the snapshot
+        sphere.getMaterial().setKT(0);
+        scene.lights.add(new DirectionalLight(new Color(1, 1, 1), new Vector(0, 0, -1)));
+        scene.geometries.add(new Sphere(1, Point.ZERO));
+        scene.setBackGround(Color.BLACK);
+        assertTrue(frozen.getShading(sphere).transparent(), "The material must be frozen");
+        assertEquals(2, frozen.lights.size(), "The lights must be frozen");
+        assertEquals(4, frozen.geometries.getGeometries().size(), "The geometries must be frozen");
+        assertEquals(new Double3(10, 20, 30), frozen.background.getRgb(), "The background must be frozen");
+        assertThrows(UnsupportedOperationException.class,
+                () -> frozen.lights.add(new DirectionalLight(Color.BLACK, new Vector(0, 0, 1))),
+                "The lights of the snapshot can't be changed");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: A geometry that was added to a nested collection after the freeze has its current constants
+        Geometry late = new Sphere(1, Point.ZERO).setMaterial(new Material().setKR(1));
+        ((Geometries) scene.geometries.getGeometries().get(3)).add(late);
+        assertTrue(frozen.getShading(late).reflective(), "Wrong constants of a late geometry");
+        // TC11: A geometry added to a nested collection after the freeze keeps the hierarchy of the snapshot
+        Scene spheres = new Scene("spheres");
+        Geometries group = new Geometries(new Sphere(1, new Point(0, 0, -500)));
+        for (int i = 0; i < 100; ++i)
+            spheres.geometries.add(new Sphere(1, new Point(4 * (i % 10), 4 * (i / 10), -10)));
+        spheres.geometries.add(group);
+        FrozenScene snapshot = spheres.freeze();
+        group.add(new Sphere(1, new Point(0, 4, -500)));
+        HitRecord hit = HitRecord.local();
+        hit.setCountingTests(true);
+        assertNotNull(snapshot.geometries.findClosestIntersection(new Ray(new Point(0, 0, 10), new Vector(0, 0, -1))),
+                "The ray must hit a sphere");
+        long[] tests = {0};
+        hit.drainTests((type, count) -> tests[0] += count);
+        hit.setCountingTests(false);
+        assertTrue(tests[0] < 20, "The snapshot must keep its hierarchy, but tested " + tests[0] + " spheres");
+        // TC12: An empty scene
+        FrozenScene empty = new Scene("empty").freeze();
+        assertTrue(empty.lights.isEmpty(), "An empty scene has no lights");
+        assertNull(empty.geometries.findClosestIntersection(new Ray(Point.ZERO, new Vector(0, 0, -1))),
+                "An empty scene has no intersections");
+    }
+
+    @Test
+    void testRender() {
+        Scene scene = createScene();
+        SimpleRayTracer live = new SimpleRayTracer(scene);
+        SimpleRayTracer frozen = new SimpleRayTracer(scene.freeze());
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The frozen scene is rendered exactly like the scene
+        Random random = new Random(11);
+        Point camera = new Point(0, 0, 1000);
+        for (int i = 0; i < 500; ++i) {
+            Point target = new Point(300 * random.nextDouble() - 150, 300 * random.nextDouble() - 150, -100);
+            Ray ray = new Ray(camera, target.subtract(camera));
+            assertEquals(live.traceRay(ray).getRgb(), frozen.traceRay(ray).getRgb(), "Wrong color");
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package scene;
+
+import geometries.Mesh;
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing the importer of OBJ models
+ * @author Hadar Nagar & Elinoy Damari
+ */
+class ObjImporterTest {
+
+    /**
+     * Imports OBJ content
+     *
+     * @param content the content
+     * @return the mesh
+     */
+    private static Mesh importMesh(String content) {
+        return ObjImporter.importMesh(ByteBuffer.wrap(content.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void testImportMesh() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A quad (two triangles) with comments, ignored records and relative indices
+        Mesh mesh = importMesh("""
+                # a unit square at z=-1
+                mtllib square.mtl
+                o square
+                v 0 0 -1
+                v 1.0 0 -1.0
+                v 1 1 -1 1.0
+                v 0 1 -1   # the last vertex
+                vt 0 0
+                usemtl white
+                s off
+                f -4/1 -3/1 -2/1 -1/1
+                """);
+        assertEquals(4, mesh.getVerticesCount(), "Wrong amount of vertices");
+        assertEquals(2, mesh.getFacesCount(), "Wrong amount of faces");
+        assertEquals(new Point(1, 1, -1), mesh.getVertex(2), "Wrong vertex");
+        assertEquals(List.of(new Point(0.7, 0.2, -1)),
+                mesh.findIntersections(new Ray(new Point(0.7, 0.2, 0), new Vector(0, 0, -1))), "Wrong intersection");
+        assertEquals(new Vector(0, 0, 1), mesh.findClosestIntersection(
+                new Ray(new Point(0.2, 0.7, 0), new Vector(0, 0, -1))).getNormal(), "Wrong normal");
+
+        // TC02: Normals of the corners and Windows line ends
+        mesh = importMesh("v 0 0 0\r\nv 1 0 0\r\nv 0 1 0\r\nvn 0 0 1\r\nvn 1 0 0\r\nf 1//1 2//2 3//1\r\n");
+        assertEquals(new Vector(1, 0, 1).normalize(), mesh.findClosestIntersection(
+                new Ray(new Point(0.5, 0.25, 1), new Vector(0, 0, -1))).getNormal(), "Wrong interpolated normal");
+
+        // TC03: Malformed content
+        assertThrows(IllegalArgumentException.class, () -> importMesh("v 0 0 0\nv 1 0 0\nf 1 2\n"),
+                "A face of 2 vertices must throw");
+        assertThrows(IllegalArgumentException.class, () -> importMesh("v 0 0 0\nv 1 0 0\nv 0 1 0\nf 1 2 4\n"),
+                "A missing vertex must throw");
+        assertThrows(IllegalArgumentException.class, () -> importMesh("v 0 0\n"), "A missing coordinate must throw");
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> importMesh("v 0 0 0\nv 1 x 0\n"), "An illegal number must throw");
+        assertTrue(exception.getMessage().contains("line 2"), "The error must tell the line");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: Empty content
+        assertEquals(0, importMesh("").getFacesCount(), "Empty content has no faces");
+        // TC11: The last line has no line end
+        assertEquals(1, importMesh("v 0 0 0\nv 1 0 0\nv 0 1 0\nf 1 2 3").getFacesCount(), "Wrong amount of faces");
+    }
+
+    @Test
+    void testNumbers() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The numbers are parsed exactly like Double.parseDouble
+        Random random = new Random(3);
+        StringBuilder content = new StringBuilder();
+        double[] expected = new double[3000];
+        for (int i = 0; i < expected.length; ++i) {
+            String number = switch (i % 4) {
+                case 0 -> Double.toString((random.nextDouble() - 0.5) * 1000);
+                case 1 -> String.format(Locale.ROOT, "%.6f", random.nextGaussian());
+                case 2 -> String.format(Locale.ROOT, "%.4e", random.nextDouble() * 1e-5);
+                default -> "0.1234567890123456789"; // more digits than a double holds
+            };
+            expected[i] = Double.parseDouble(number);
+            content.append(i % 3 == 0 ? "v " : " ").append(number).append(i % 3 == 2 ? "\n" : "");
+        }
+        Mesh mesh = importMesh(content.toString());
+        for (int i = 0; i < expected.length / 3; ++i) {
+            Point vertex = mesh.getVertex(i);
+            assertEquals(expected[3 * i], vertex.getX(), 0, "Wrong number " + 3 * i);
+            assertEquals(expected[3 * i + 1], vertex.getY(), 0, "Wrong number " + (3 * i + 1));
+            assertEquals(expected[3 * i + 2], vertex.getZ(), 0, "Wrong number " + (3 * i + 2));
+        }
+    }
+
+    @Test
+    void testImportFile() throws IOException {
+        Path file = Files.createTempFile("objImporterTest", ".obj");
+        try {
+            // ============ Equivalence Partitions Tests ==============
+            // TC01: A mapped file
+            Files.writeString(file, "v 0 0 0\nv 1 0 0\nv 0 1 0\nf 1 2 3\n");
+            assertEquals(1, ObjImporter.importMesh(file).getFacesCount(), "Wrong amount of faces");
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
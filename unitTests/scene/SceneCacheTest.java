@@ -0,0 +1,138 @@
+package scene;
+
+import lighting.DirectionalLight;
+import lighting.PointLight;
+import lighting.SpotLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing the cache of loaded scenes
+ * @author Hadar Nagar & Elinoy Damari
+ */
+class SceneCacheTest {
+    /** A scene of lights, a camera and geometries with a hierarchy */
+    private static final String SCENE = """
+            <scene name="cached" background="1 2 3">
+              <camera location="0 0 100" to="0 0 -1" up="0 1 0" distance="100" width="50" height="40"
+                      resolution="50 40"/>
+              <ambientLight color="100 100 100" k="0.5"/>
+              <lights>
+                <pointLight color="500 300 0" position="10 10 10" kL="0.001" kQ="0.0002"/>
+                <spotLight color="400 400 400" position="-10 10 10" direction="1 -1 -1" narrowBeam="10"/>
+                <directionalLight color="100 100 100" direction="0 0 -1"/>
+              </lights>
+              <geometries bvh="true">
+                <sphere center="0 0 -50" radius="10" kT="0.5"/>
+                <plane point="0 -20 0" normal="0 1 0"/>
+                <mesh file="square.obj"/>
+              </geometries>
+            </scene>
+            """;
+
+    /**
+     * Deletes a directory with all its content
+     *
+     * @param directory the directory
+     * @throws IOException if a file can't be deleted
+     */
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList())
+                Files.delete(file);
+        }
+    }
+
+    /**
+     * Finds the closest intersection point of a ray along -z
+     *
+     * @param scene the scene
+     * @param x     x of the ray
+     * @param y     y of the ray
+     * @return the intersection point
+     */
+    private static Point intersect(Scene scene, double x, double y) {
+        return scene.geometries.findClosestIntersection(new Ray(new Point(x, y, 100), new Vector(0, 0, -1))).point;
+    }
+
+    @Test
+    void testLoad() throws IOException {
+        Path directory = Files.createTempDirectory("sceneCacheTest");
+        try {
+            Path obj = directory.resolve("square.obj");
+            Files.writeString(obj, "v 40 -5 -60\nv 50 -5 -60\nv 50 5 -60\nv 40 5 -60\nf 1 2 3 4\n");
+            Path file = directory.resolve("scene.xml");
+            Files.writeString(file, SCENE);
+            Path cache = directory.resolve("cache");
+            Path cached = cache.resolve(SceneCache.key(Files.readAllBytes(file), directory.toAbsolutePath().normalize())
+                    + ".scene");
+
+            // ============ Equivalence Partitions Tests ==============
+            // TC01: The first load caches the scene
+            Scene loaded = SceneCache.load(file, cache);
+            assertTrue(Files.isRegularFile(cached), "The scene must be cached");
+
+            // TC02: The cached scene is the same scene
+            Scene scene = SceneCache.read(cached);
+            assertEquals("cached", scene.name, "Wrong name");
+            assertEquals(new Double3(1, 2, 3), scene.backGround.getRgb(), "Wrong background");
+            assertEquals(new Double3(50), scene.ambientLight.getIntensity().getRgb(), "Wrong ambient light");
+            assertEquals(loaded.camera, scene.camera, "Wrong camera");
+            assertEquals(3, scene.lights.size(), "Wrong amount of lights");
+            SpotLight spot = (SpotLight) scene.lights.get(1);
+            assertEquals(10, spot.getNarrowBeam(), "Wrong narrow beam");
+            assertEquals(new Vector(1, -1, -1).normalize(), spot.getDirection(), "Wrong direction");
+            PointLight point = (PointLight) scene.lights.get(0);
+            assertEquals(0.0002, point.getkQ(), 0, "Wrong attenuation");
+            assertInstanceOf(DirectionalLight.class, scene.lights.get(2), "Wrong light");
+            Point here = new Point(0, 0, 100);
+            assertEquals(loaded.lights.get(1).getIntensity(here).getRgb(), spot.getIntensity(here).getRgb(),
+                    "Wrong intensity");
+            assertEquals(new Point(0, 0, -40), intersect(scene, 0, 0), "Wrong sphere");
+            assertEquals(new Point(47, -2, -60), intersect(scene, 47, -2), "Wrong mesh");
+
+            // TC03: The second load reads the cached scene (a changed cached scene shows it was read)
+            Scene modified = new Scene("modified");
+            modified.lights.add(new PointLight(new Color(1, 1, 1), Point.ZERO));
+            SceneCache.write(modified, cached);
+            assertEquals("modified", SceneCache.load(file, cache).name, "The cached scene must be read");
+
+            // TC04: A changed mesh file outdates the cached scene
+            Files.delete(cached);
+            assertEquals(new Point(47, -2, -60), intersect(SceneCache.load(file, cache), 47, -2), "Wrong mesh");
+            Files.writeString(obj, "v 40 -5 -70\nv 50 -5 -70\nv 50 5 -70\nv 40 5 -70\nf 1 2 3 4\n");
+            Files.setLastModifiedTime(obj, FileTime.fromMillis(Files.getLastModifiedTime(obj).toMillis() + 5000));
+            assertEquals(new Point(47, -2, -70), intersect(SceneCache.load(file, cache), 47, -2),
+                    "The outdated cached scene must be loaded again");
+
+            // TC05: The same scene file in another directory refers to its own mesh file
+            Path other = Files.createDirectory(directory.resolve("other"));
+            Files.writeString(other.resolve("square.obj"), "v 40 -5 -80\nv 50 -5 -80\nv 50 5 -80\nv 40 5 -80\nf 1 2 3\n");
+            Files.writeString(other.resolve("scene.xml"), SCENE);
+            assertEquals(new Point(47, -2, -80), intersect(SceneCache.load(other.resolve("scene.xml"), cache), 47, -2),
+                    "The scene of the other directory must not be the cached scene of the first one");
+            assertEquals(new Point(47, -2, -70), intersect(SceneCache.load(file, cache), 47, -2),
+                    "The cached scene of the first directory must stay");
+
+            // =============== Boundary Values Tests ==================
+            // TC10: A corrupted cached scene is replaced
+            Files.write(cached, new byte[]{1, 2, 3});
+            assertEquals("cached", SceneCache.load(file, cache).name, "The corrupted cached scene must be replaced");
+            assertEquals("cached", SceneCache.read(cached).name, "The cached scene must be written again");
+            // TC11: Reading a file that isn't of a scene
+            Files.write(cached, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+            assertThrows(IllegalArgumentException.class, () -> SceneCache.read(cached), "A wrong file must throw");
+        } finally {
+            delete(directory);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package scene;
+
+import geometries.Intersectable.GeoPoint;
+import lighting.DirectionalLight;
+import lighting.PointLight;
+import lighting.SpotLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import renderer.Camera;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing the loader of scene files
+ * @author Hadar Nagar & Elinoy Damari
+ */
+class SceneLoaderTest {
+    /** A scene of all the kinds of elements */
+    private static final String SCENE = """
+            <?xml version="1.0"?>
+            <scene name="loaded" background="10 20 30">
+              <camera location="0 0 100" to="0 0 -1" up="0 1 0" distance="100" width="50" height="40"
+                      resolution="50 40"/>
+              <ambientLight color="255 255 255" k="0.1"/>
+              <lights>
+                <pointLight color="500 300 0" position="10 10 10" kL="0.001" kQ="0.0002"/>
+                <spotLight color="400 400 400" position="-10 10 10" direction="1 -1 -1" narrowBeam="10"/>
+                <directionalLight color="100 100 100" direction="0 0 -1"/>
+              </lights>
+              <geometries bvh="true">
+                <sphere center="0 0 -50" radius="10" emission="0 0 100" kD="0.5" kS="0.5" shininess="30"
+                        kT="0.3 0.2 0.1"/>
+                <plane point="0 -20 0" normal="0 1 0" kR="1"/>
+                <triangle p0="20 0 -50" p1="30 0 -50" p2="20 10 -50"/>
+                <polygon vertices="-30 0 -50, -20 0 -50, -20 10 -50, -30 10 -50"/>
+                <tube radius="2" head="0 0 -80" direction="1 0 0"/>
+                <cylinder radius="2" height="5" head="0 15 -50" direction="0 1 0"/>
+                <mesh file="square.obj" emission="50 50 50"/>
+              </geometries>
+            </scene>
+            """;
+
+    /**
+     * Loads a scene from a string
+     *
+     * @param content   the content of the scene file
+     * @param directory directory of the files of the meshes
+     * @return the scene
+     * @throws IOException if a file of a mesh can't be read
+     */
+    private static Scene load(String content, Path directory) throws IOException {
+        return SceneLoader.load(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), directory);
+    }
+
+    @Test
+    void testLoad() throws IOException {
+        Path directory = Files.createTempDirectory("sceneLoaderTest");
+        Path obj = directory.resolve("square.obj");
+        Files.writeString(obj, "v 40 -5 -60\nv 50 -5 -60\nv 50 5 -60\nv 40 5 -60\nf 1 2 3 4\n");
+        Path file = directory.resolve("scene.xml");
+        Files.writeString(file, SCENE);
+        try {
+            // ============ Equivalence Partitions Tests ==============
+            // TC01: A scene of all the kinds of elements
+            Scene scene = SceneLoader.load(file);
+            assertEquals("loaded", scene.name, "Wrong name");
+            assertEquals(new Color(10, 20, 30).getColor(), scene.backGround.getColor(), "Wrong background");
+            assertEquals(new CameraSettings(new Point(0, 0, 100), new Vector(0, 0, -1), new Vector(0, 1, 0),
+                    100, 50, 40, 50, 40), scene.camera, "Wrong camera");
+            assertEquals(3, scene.lights.size(), "Wrong amount of lights");
+            assertInstanceOf(PointLight.class, scene.lights.get(0), "Wrong light");
+            assertInstanceOf(SpotLight.class, scene.lights.get(1), "Wrong light");
+            assertInstanceOf(DirectionalLight.class, scene.lights.get(2), "Wrong light");
+
+            GeoPoint sphere = scene.geometries.findClosestIntersection(
+                    new Ray(new Point(0, 0, 100), new Vector(0, 0, -1)));
+            assertEquals(new Point(0, 0, -40), sphere.point, "Wrong sphere");
+            assertEquals(new Double3(0.3, 0.2, 0.1), sphere.geometry.getMaterial().kT, "Wrong material");
+            assertEquals(30, sphere.geometry.getMaterial().nShininess, "Wrong shininess");
+            GeoPoint mesh = scene.geometries.findClosestIntersection(
+                    new Ray(new Point(47, -2, 100), new Vector(0, 0, -1)));
+            assertEquals(new Point(47, -2, -60), mesh.point, "Wrong mesh");
+            assertEquals(new Color(50, 50, 50).getColor(), mesh.geometry.getEmission().getColor(), "Wrong emission");
+
+            // TC02: The camera of the scene
+            Camera camera = Camera.getBuilder().setScene(scene).build();
+            assertEquals(new Point(0, 0, 100), camera.constructRay(50, 40, 25, 20).getHead(), "Wrong camera");
+            assertDoesNotThrow(() -> { camera.renderImage(); }, "The scene must be rendered");
+
+            // =============== Boundary Values Tests ==================
+            // TC10: An empty scene
+            Scene empty = load("<scene/>", directory);
+            assertEquals("scene", empty.name, "Wrong default name");
+            assertNull(empty.camera, "An empty scene has no camera");
+            assertTrue(empty.lights.isEmpty(), "An empty scene has no lights");
+        } finally {
+            Files.delete(obj);
+            Files.delete(file);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    void testErrors() {
+        Path directory = Path.of(".");
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Malformed XML
+        assertThrows(IllegalArgumentException.class, () -> load("<scene>", directory), "Malformed XML must throw");
+        // TC02: A missing attribute, the error tells the line
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> load("<scene>\n<geometries>\n<sphere radius=\"1\"/>\n</geometries>\n</scene>", directory),
+                "A missing attribute must throw");
+        assertTrue(exception.getMessage().contains("line 3"), "The error must tell the line");
+        // TC03: An illegal number
+        assertThrows(IllegalArgumentException.class,
+                () -> load("<scene><ambientLight color=\"1 1 x\" k=\"1\"/></scene>", directory),
+                "An illegal number must throw");
+        // TC04: An unknown element
+        assertThrows(IllegalArgumentException.class, () -> load("<scene><teapot/></scene>", directory),
+                "An unknown element must throw");
+        // TC05: An illegal geometry
+        assertThrows(IllegalArgumentException.class, () -> load(
+                "<scene><geometries><polygon vertices=\"0 0 0, 1 0 0, 1 1 0, 0 1 1\"/></geometries></scene>", directory),
+                "An illegal geometry must throw");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: The root element isn't a scene
+        assertThrows(IllegalArgumentException.class, () -> load("<camera/>", directory), "A wrong root must throw");
+        // TC11: Document types are not supported
+        assertThrows(IllegalArgumentException.class, () -> load(
+                "<!DOCTYPE scene [<!ENTITY x SYSTEM \"file:///etc/passwd\">]><scene name=\"&x;\"/>", directory),
+                "External entities must not be resolved");
+    }
+}